@@ -0,0 +1,41 @@
+#!/usr/bin/env sh
+# Benchmark lado a lado: GET /feed da aplicação principal (MVC + JPA, porta 8080)
+# contra o GET /feed do módulo reativo (WebFlux + R2DBC, porta 8081).
+#
+# Pré-requisitos: as duas aplicações rodando contra o mesmo banco e o "hey" instalado
+# (https://github.com/rakyll/hey).
+#
+# A aplicação principal precisa subir com o limitador de concorrência DESLIGADO:
+# com ele ligado, o bulkhead de leitura do feed recusa com 503 tudo acima de poucas
+# consultas simultâneas e a comparação não mede nada. Assim as duas versões usam
+# um pool de 10 conexões e as requisições excedentes esperam na fila do pool:
+#
+#   java -jar target/springsecurity-0.0.1-SNAPSHOT.jar --app.limits.enabled=false
+#
+# Uso: ./bench.sh [concorrência] [requisições] [página]
+#
+# A página padrão (5) fica fora do cache de respostas da aplicação principal
+# (app.feed.cache.max-page=3), então as duas versões vão ao banco em toda requisição.
+
+CONCURRENCY=${1:-1000}
+REQUESTS=${2:-50000}
+PAGE=${3:-5}
+
+# Token emitido pela aplicação principal (vale nas duas, mesma chave RSA)
+TOKEN=$(curl -s -X POST http://localhost:8080/login \
+  -H 'Content-Type: application/json' \
+  -d '{"username":"admin","password":"123"}' | sed 's/.*"accessToken":"\([^"]*\)".*/\1/')
+
+for TARGET in "mvc http://localhost:8080" "reactive http://localhost:8081"; do
+  set -- $TARGET
+  echo "=== $1 ($2/feed?page=$PAGE) c=$CONCURRENCY n=$REQUESTS"
+  OUTPUT=$(hey -n "$REQUESTS" -c "$CONCURRENCY" \
+    -H "Authorization: Bearer $TOKEN" \
+    "$2/feed?page=$PAGE&pageSize=10")
+  echo "$OUTPUT" | grep -E 'Requests/sec|Average|99%|Status code|\[[0-9]+\]'
+
+  # 503 na aplicação principal: o limitador continua ligado
+  if echo "$OUTPUT" | grep -q '\[503\]'; then
+    echo "AVISO: respostas 503 em $1; suba a aplicação principal com --app.limits.enabled=false"
+  fi
+done
@@ -0,0 +1,13 @@
+package com.loop.springsecurity.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class ReactiveFeedApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveFeedApplication.class, args);
+	}
+
+}
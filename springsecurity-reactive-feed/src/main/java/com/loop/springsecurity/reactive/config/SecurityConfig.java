@@ -0,0 +1,61 @@
+// Define o pacote de configuração de segurança do módulo reativo
+package com.loop.springsecurity.reactive.config;
+
+// Importações do Spring
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+// Importação da chave RSA
+import java.security.interfaces.RSAPublicKey;
+
+// Mesma segurança da aplicação principal (SecurityConfig), na versão WebFlux:
+// Resource Server OAuth2 validando o JWT com a chave pública RSA
+// Este módulo só lê o feed: não emite tokens (o /login continua na aplicação principal)
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfig {
+
+    // Chave pública RSA usada para VALIDAR tokens JWT
+    @Value("${jwt.public.key}")
+    private RSAPublicKey publicKey;
+
+    // Define a cadeia de filtros de segurança (versão reativa)
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+
+        http
+                // Desabilita proteção CSRF (API stateless com JWT)
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+
+                // Stateless: nenhum contexto de segurança é guardado em sessão
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+
+                // Qualquer requisição exige autenticação
+                .authorizeExchange(exchange -> exchange
+                        .anyExchange().authenticated()
+                )
+
+                // Autenticação via JWT
+                .oauth2ResourceServer(oauth2 ->
+                        oauth2.jwt(Customizer.withDefaults())
+                );
+
+        return http.build();
+    }
+
+    // Bean responsável por VALIDAR tokens JWT (versão reativa)
+    @Bean
+    public ReactiveJwtDecoder jwtDecoder() {
+        return NimbusReactiveJwtDecoder
+                .withPublicKey(publicKey)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.reactive.dto;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO que representa a resposta do feed de tweets
+// Mesmo formato (e mesmo JSON) do FeedDto da aplicação principal
+public record FeedDto(
+
+        // Lista de itens do feed (cada item representa um tweet)
+        List<FeedItemDto> feedItens,
+
+        // Número da página atual
+        int page,
+
+        // Quantidade de itens por página
+        int pageSize,
+
+        // Total de páginas disponíveis
+        int totalPages,
+
+        // Total de elementos existentes (todos os tweets)
+        long totalElements
+) {
+}
@@ -0,0 +1,22 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.reactive.dto;
+
+// DTO que representa um único item do feed
+// Mesmo formato (e mesmo JSON) do FeedItemDto da aplicação principal
+public record FeedItemDto(
+
+        // Identificador único do tweet
+        long tweetId,
+
+        // Conteúdo textual do tweet
+        String content,
+
+        // Nome do usuário que criou o tweet
+        // (o nome do campo é mantido igual ao da aplicação principal)
+        String usernas,
+
+        // Quantidade de likes gravados no banco
+        // (os likes ainda pendentes ficam na memória da aplicação principal)
+        long likes
+) {
+}
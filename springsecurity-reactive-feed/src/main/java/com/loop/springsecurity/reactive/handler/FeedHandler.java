@@ -0,0 +1,118 @@
+// Define o pacote dos handlers do módulo reativo
+package com.loop.springsecurity.reactive.handler;
+
+// DTOs do feed (mesmo JSON da aplicação principal)
+import com.loop.springsecurity.reactive.dto.FeedDto;
+import com.loop.springsecurity.reactive.dto.FeedItemDto;
+
+// Cliente R2DBC (consultas não bloqueantes)
+import org.springframework.r2dbc.core.DatabaseClient;
+
+// Tipos do WebFlux
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+// Parâmetro inválido: o WebFlux responde 400
+import org.springframework.web.server.ServerWebInputException;
+
+// Tipos do Reactor
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Handler reativo do GET /feed
+// Mesmo contrato do TweetController.feed da aplicação principal, mas sem bloquear
+// uma thread enquanto o banco responde: a consulta é feita via R2DBC e o JSON
+// é escrito conforme as linhas chegam.
+@Component
+public class FeedHandler {
+
+    // Página do feed: tweets não apagados, mais recentes primeiro, com o username do autor
+    private static final String FEED_QUERY = """
+            select t.tweet_id, t.content, u.username, t.likes
+            from tb_tweets t
+            join tb_users u on u.user_id = t.user_id
+            where t.deleted = false
+            order by t.creation_timestamp desc
+            limit :limit offset :offset
+            """;
+
+    // Total de tweets (usado para calcular o total de páginas)
+    private static final String COUNT_QUERY = "select count(*) from tb_tweets where deleted = false";
+
+    private final DatabaseClient databaseClient;
+
+    public FeedHandler(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    // GET /feed?page=0&pageSize=10
+    // - Accept: application/json      -> FeedDto (mesmo formato da aplicação principal)
+    // - Accept: application/x-ndjson  -> um FeedItemDto por linha, enviado assim que lido
+    public Mono<ServerResponse> feed(ServerRequest request) {
+
+        int page = intParam(request, "page", 0, 0);
+        int pageSize = intParam(request, "pageSize", 10, 1);
+
+        var items = loadItems(page, pageSize);
+
+        // Stream: não espera a página inteira nem o count
+        if (request.headers().accept().contains(MediaType.APPLICATION_NDJSON)) {
+            return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(items, FeedItemDto.class);
+        }
+
+        // Página completa: lista e count rodam em paralelo no pool R2DBC
+        var total = databaseClient.sql(COUNT_QUERY)
+                .map(row -> row.get(0, Long.class))
+                .one();
+
+        var body = Mono.zip(items.collectList(), total)
+                .map(result -> new FeedDto(
+                        result.getT1(),
+                        page,
+                        pageSize,
+                        (int) Math.ceil((double) result.getT2() / pageSize),
+                        result.getT2()
+                ));
+
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body, FeedDto.class);
+    }
+
+    // Parâmetro inteiro da query (ausente = valor padrão)
+    // Não numérico ou abaixo do mínimo: 400, em vez de um NumberFormatException (500)
+    private static int intParam(ServerRequest request, String name, int defaultValue, int min) {
+        var raw = request.queryParam(name);
+        if (raw.isEmpty()) {
+            return defaultValue;
+        }
+        int value;
+        try {
+            value = Integer.parseInt(raw.get());
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Parâmetro " + name + " inválido: " + raw.get());
+        }
+        if (value < min) {
+            throw new ServerWebInputException("Parâmetro " + name + " deve ser >= " + min);
+        }
+        return value;
+    }
+
+    // Lê uma página do feed como um stream de FeedItemDto
+    private Flux<FeedItemDto> loadItems(int page, int pageSize) {
+        return databaseClient.sql(FEED_QUERY)
+                .bind("limit", pageSize)
+                .bind("offset", (long) page * pageSize)
+                .map(row -> new FeedItemDto(
+                        row.get("tweet_id", Long.class),
+                        row.get("content", String.class),
+                        row.get("username", String.class),
+                        row.get("likes", Long.class)
+                ))
+                .all();
+    }
+}
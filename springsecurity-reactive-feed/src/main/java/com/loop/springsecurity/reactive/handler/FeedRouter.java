@@ -0,0 +1,23 @@
+// Define o pacote dos handlers do módulo reativo
+package com.loop.springsecurity.reactive.handler;
+
+// Importações do Spring
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+// Rotas funcionais (WebFlux)
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+// Registra as rotas do módulo reativo
+@Configuration
+public class FeedRouter {
+
+    @Bean
+    public RouterFunction<ServerResponse> feedRoutes(FeedHandler feedHandler) {
+        return route()
+                .GET("/feed", feedHandler::feed)
+                .build();
+    }
+}
@@ -15,17 +15,23 @@ import com.loop.springsecurity.repository.RoleRepository;
 // Repositório responsável por acessar os usuários no banco de dados
 import com.loop.springsecurity.repository.UserRepository;
 
+// Eventos de invalidação de cache para as outras instâncias (outbox)
+import com.loop.springsecurity.service.InvalidationOutbox;
+
 // Anotação que indica que o método roda dentro de uma transação
 import jakarta.transaction.Transactional;
 
 // Interface usada para executar código automaticamente ao subir a aplicação
 import org.springframework.boot.CommandLineRunner;
 
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
 // Marca esta classe como uma classe de configuração do Spring
 import org.springframework.context.annotation.Configuration;
 
 // Encoder usado para criptografar a senha do usuário admin
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 // Estrutura de dados usada para definir o conjunto de roles do usuário
 import java.util.Set;
@@ -44,18 +50,27 @@ public class AdminUserConfig implements CommandLineRunner {
     // Repositório de usuários
     private final UserRepository userRepository;
 
-    // Encoder de senha (BCrypt)
-    private final BCryptPasswordEncoder passwordEncoder;
+    // Encoder de senha (ver PasswordHashingConfig)
+    private final PasswordEncoder passwordEncoder;
+
+    // Outbox: o seed cria roles e o admin (outras instâncias podem já estar no ar)
+    private final InvalidationOutbox outbox;
+
+    // Permite desligar totalmente o seed (ex: ambientes onde o banco já foi preparado)
+    @Value("${app.seed.enabled:true}")
+    private boolean seedEnabled;
 
     // Construtor com injeção de dependências
     public AdminUserConfig(
             RoleRepository roleRepository,
             UserRepository userRepository,
-            BCryptPasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            InvalidationOutbox outbox
     ) {
         this.roleRepository = roleRepository;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.outbox = outbox;
     }
 
     // Método executado automaticamente ao iniciar a aplicação
@@ -66,6 +81,22 @@ public class AdminUserConfig implements CommandLineRunner {
     @Transactional
     public void run(String... args) {
 
+        // Seed desligado por configuração: nenhuma query é executada
+        if (!seedEnabled) {
+            return;
+        }
+
+        // =========================
+        // SEED JÁ REALIZADO
+        // =========================
+        // O admin só é criado depois das roles, então se ele existe
+        // o seed inteiro já foi feito. Uma única query barata (exists)
+        // evita as buscas de roles e o BCrypt em todo restart.
+        if (userRepository.existsByUsername("admin")) {
+            System.out.println("Usuário admin já existe");
+            return;
+        }
+
         // =========================
         // CRIA OU BUSCA ROLE ADMIN
         // =========================
@@ -123,5 +154,9 @@ public class AdminUserConfig implements CommandLineRunner {
                             userRepository.save(user);
                         }
                 );
+
+        // Eventos de invalidação na mesma transação do seed
+        outbox.append(InvalidationOutbox.ROLES, InvalidationOutbox.ALL);
+        outbox.append(InvalidationOutbox.USERS, "admin");
     }
 }
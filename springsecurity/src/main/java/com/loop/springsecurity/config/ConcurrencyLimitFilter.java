@@ -0,0 +1,102 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Bulkheads com limite de concorrência adaptativo
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+
+// Tipos da API de Servlet
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Códigos e headers HTTP
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+// Filtro executado uma única vez por requisição
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Utilitários de IO
+import java.io.IOException;
+
+// Aplica os bulkheads (ConcurrencyLimits) às requisições que sempre usam o banco
+// Requisições acima do limite recebem 503 imediatamente (sem fila),
+// mantendo a latência das aceitas sob controle.
+// Não é um bean: o SecurityConfig coloca o filtro DEPOIS da autorização, então
+// requisições sem token válido recebem 401 sem ocupar vagas.
+// Login, cadastro, /feed e busca são limitados nos controllers, só em volta do acesso
+// ao banco (o hash BCrypt, o cache e a busca em memória não ocupam vagas).
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimits limits;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        var bulkhead = classify(request.getMethod(), request.getRequestURI());
+
+        // Endpoints que não usam o banco (ou conexões longas como o SSE) não são limitados
+        if (bulkhead == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Limite atingido: recusa imediatamente
+        if (!limits.tryAcquire(bulkhead)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limits.release(bulkhead, System.nanoTime() - start);
+        }
+    }
+
+    // Define o bulkhead de uma requisição (null = não limitada aqui)
+    static Bulkhead classify(String method, String path) {
+
+        // Health e métricas nunca são recusados (nem durante uma importação longa)
+        if (path.startsWith("/actuator")) {
+            return null;
+        }
+
+        // Login e cadastro: limitados no controller (bulkhead AUTH só nas consultas)
+        if (method.equals("POST") && (path.equals("/login") || path.equals("/users"))) {
+            return null;
+        }
+
+        // Administração
+        if (path.equals("/users") || path.startsWith("/users/import") || path.equals("/tweets/moderation")) {
+            return Bulkhead.ADMIN;
+        }
+
+        // Escrita de tweets
+        if ((method.equals("POST") || method.equals("DELETE")) && path.startsWith("/tweets")) {
+            return Bulkhead.TWEET_WRITE;
+        }
+
+        // Timeline de um usuário: sempre consulta o banco
+        // O /feed e o /tweets/search são limitados no controller, só em volta da consulta
+        // ao banco (304, cache e a busca no índice ficam livres); /trends e o SSE
+        // respondem da memória
+        if (method.equals("GET") && path.startsWith("/users/") && path.endsWith("/tweets")) {
+            return Bulkhead.FEED_READ;
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,18 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Anotações Java
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Marca o parâmetro de um controller que recebe o usuário autenticado (UserAuthenticationToken)
+// Resolvido pelo UserAuthenticationArgumentResolver. Sem a anotação, o parâmetro
+// seria tratado como Principal pelo Spring MVC (que não converte a autenticação).
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
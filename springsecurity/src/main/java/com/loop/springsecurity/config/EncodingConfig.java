@@ -0,0 +1,47 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Importações do Spring
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Conversores HTTP dos formatos binários (usados, por exemplo, no GET /users)
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+
+// Serializadores binários do Jackson
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+// Formatos binários além do JSON: CBOR e Smile
+// O Spring Boot adiciona qualquer HttpMessageConverter declarado como bean à lista
+// de conversores do MVC, então os endpoints comuns passam a responder nesses formatos
+// quando o cliente pede pelo header Accept. O /feed usa os mappers diretamente
+// (ele serializa uma vez e guarda os bytes no cache).
+@Configuration
+public class EncodingConfig {
+
+    // Mapper CBOR (RFC 8949)
+    @Bean
+    public CBORMapper cborMapper() {
+        return CBORMapper.builder().build();
+    }
+
+    // Mapper Smile (JSON binário do Jackson)
+    @Bean
+    public SmileMapper smileMapper() {
+        return SmileMapper.builder().build();
+    }
+
+    // Responde application/cbor
+    @Bean
+    public JacksonCborHttpMessageConverter cborHttpMessageConverter(CBORMapper cborMapper) {
+        return new JacksonCborHttpMessageConverter(cborMapper);
+    }
+
+    // Responde application/x-jackson-smile
+    @Bean
+    public JacksonSmileHttpMessageConverter smileHttpMessageConverter(SmileMapper smileMapper) {
+        return new JacksonSmileHttpMessageConverter(smileMapper);
+    }
+}
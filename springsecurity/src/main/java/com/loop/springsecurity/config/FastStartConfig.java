@@ -0,0 +1,39 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// EntityManagerFactory do JPA (Hibernate)
+import jakarta.persistence.EntityManagerFactory;
+
+// Filtro do Spring Boot que permite excluir beans da inicialização lazy
+import org.springframework.boot.LazyInitializationExcludeFilter;
+
+// Anotações de configuração do Spring
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// Decoder de JWT usado pelo Resource Server
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+// Cadeia de filtros do Spring Security
+import org.springframework.security.web.SecurityFilterChain;
+
+// Configuração ativa apenas no profile "fast-start"
+// (application-fast-start.properties liga spring.main.lazy-initialization)
+@Configuration
+@Profile("fast-start")
+public class FastStartConfig {
+
+    // Com a inicialização lazy ligada, todos os beans só seriam criados
+    // na primeira requisição. Os beans abaixo são críticos: se ficassem
+    // lazy, o custo deles cairia em cima da primeira requisição.
+    // Por isso eles continuam sendo criados durante o boot.
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                SecurityFilterChain.class,
+                JwtDecoder.class,
+                EntityManagerFactory.class
+        );
+    }
+}
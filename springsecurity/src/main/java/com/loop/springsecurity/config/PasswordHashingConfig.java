@@ -0,0 +1,125 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Anotações de configuração do Spring
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// Encoders de senha do Spring Security
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+// Estrutura de dados usada para registrar os encoders por id
+import java.util.HashMap;
+
+// Configuração do hash de senhas
+// Por padrão (app.password.bcrypt-strength=0) o custo do BCrypt é calibrado no boot
+// para que uma verificação leve aproximadamente o tempo alvo nesta máquina.
+// Instâncias em máquinas diferentes podem chegar a custos diferentes: nesse caso,
+// fixe app.password.bcrypt-strength com o mesmo valor em todas.
+// O encoder delegante guarda o algoritmo no próprio hash ({bcrypt}, {pbkdf2...}),
+// então hashes antigos continuam válidos e são atualizados no próximo login.
+@Configuration
+public class PasswordHashingConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingConfig.class);
+
+    // Id do algoritmo usado para gerar novos hashes
+    private static final String ENCODING_ID = "bcrypt";
+
+    // Faixa de custo aceita (abaixo de 10 o BCrypt fica fraco demais)
+    private static final int MIN_STRENGTH = 10;
+    private static final int MAX_STRENGTH = 16;
+
+    // Bean do PasswordEncoder usado para criptografar e validar senhas
+    @Bean
+    public PasswordEncoder passwordEncoder(
+
+            // Tempo alvo de uma verificação de senha
+            @Value("${app.password.target-millis:250}") long targetMillis,
+
+            // Custo do BCrypt, o mesmo em todas as instâncias (0 = calibrar no boot)
+            @Value("${app.password.bcrypt-strength:0}") int fixedStrength
+    ) {
+
+        int strength;
+        if (fixedStrength > 0) {
+            strength = fixedStrength;
+            log.info("Custo do BCrypt: {}", strength);
+        } else {
+            strength = calibrate(targetMillis);
+            log.info("Custo do BCrypt calibrado nesta máquina: {} (com máquinas diferentes, fixe "
+                    + "app.password.bcrypt-strength com o mesmo valor em todas as instâncias)", strength);
+        }
+
+        var bcrypt = new BCryptPasswordEncoder(strength);
+
+        var encoders = new HashMap<String, PasswordEncoder>();
+        encoders.put(ENCODING_ID, bcrypt);
+        encoders.put("pbkdf2@SpringSecurity_v5_8", Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        var delegating = new DelegatingPasswordEncoder(ENCODING_ID, encoders) {
+
+            // Além de trocar hashes de outros algoritmos, também refaz hashes
+            // BCrypt com custo MENOR que o atual. Um custo maior é mantido: senão
+            // instâncias com custos diferentes refariam o hash da mesma conta a cada
+            // login (um BCrypt e uma escrita a mais por login)
+            @Override
+            protected boolean upgradeEncodingNonNull(String prefixEncodedPassword) {
+                if (super.upgradeEncodingNonNull(prefixEncodedPassword)) {
+                    return true;
+                }
+                int stored = bcryptStrength(prefixEncodedPassword);
+                return stored >= 0 && stored < strength;
+            }
+        };
+
+        // Hashes antigos, gravados sem prefixo, são BCrypt
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return delegating;
+    }
+
+    // Escolhe o custo do BCrypt cuja verificação fica mais próxima do tempo alvo
+    // Mede o custo mínimo e extrapola: cada ponto de custo dobra o tempo
+    static int calibrate(long targetMillis) {
+        var encoder = new BCryptPasswordEncoder(MIN_STRENGTH);
+        var hash = encoder.encode("calibration");
+
+        // Melhor de algumas medições (a primeira inclui aquecimento da JIT)
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.matches("calibration", hash);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double measuredMillis = Math.max(best / 1_000_000.0, 1.0);
+        int strength = MIN_STRENGTH + (int) Math.round(Math.log(targetMillis / measuredMillis) / Math.log(2));
+
+        return Math.max(MIN_STRENGTH, Math.min(MAX_STRENGTH, strength));
+    }
+
+    // Custo de um hash BCrypt (formato: {bcrypt}$2a$10$...)
+    // Retorna -1 quando o hash não é BCrypt
+    private static int bcryptStrength(String prefixEncodedPassword) {
+        int start = prefixEncodedPassword.indexOf('$');
+        if (start < 0 || prefixEncodedPassword.length() < start + 7) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(prefixEncodedPassword.substring(start + 4, start + 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
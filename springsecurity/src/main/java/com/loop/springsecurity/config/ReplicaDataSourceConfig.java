@@ -0,0 +1,140 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Pool de conexões (Hikari)
+import com.zaxxer.hikari.HikariDataSource;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Liga as propriedades spring.datasource.hikari.* ao pool do primário
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+// Condição: a configuração só é aplicada quando a réplica está habilitada
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+// Anotações de configuração do Spring
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+// DataSources de roteamento do Spring JDBC
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Interface JDBC
+import javax.sql.DataSource;
+
+// Estrutura de dados usada para registrar os DataSources de destino
+import java.util.Map;
+
+// Roteamento de leitura/escrita entre o banco primário e uma réplica
+// Transações @Transactional(readOnly = true) usam a réplica; as demais usam o primário.
+// Quando a réplica está atrasada além do tolerado (ou fora do ar),
+// as transações somente leitura também vão para o primário.
+// Ative com app.datasource.replica.enabled=true
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    // Chaves do roteamento
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    // Pool do banco primário (escritas e fallback das leituras)
+    // Recebe as mesmas propriedades spring.datasource.hikari.* do pool padrão
+    // (ex: maximum-pool-size, usado pelo limite de concorrência)
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username}") String username,
+            @Value("${spring.datasource.password}") String password
+    ) {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName("primary");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        return dataSource;
+    }
+
+    // Pool da réplica (apenas leituras)
+    // Timeouts curtos: com a réplica fora do ar, a verificação do monitor e as leituras
+    // que ainda iriam para ela falham rápido em vez de esperar os 30 s padrão do Hikari
+    @Bean
+    public HikariDataSource replicaDataSource(
+            @Value("${app.datasource.replica.url}") String url,
+            @Value("${app.datasource.replica.username}") String username,
+            @Value("${app.datasource.replica.password}") String password,
+            @Value("${app.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${app.datasource.replica.connection-timeout-millis:1000}") long connectionTimeoutMillis,
+            @Value("${app.datasource.replica.validation-timeout-millis:500}") long validationTimeoutMillis
+    ) {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeoutMillis);
+        dataSource.setValidationTimeout(validationTimeoutMillis);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    // Monitor do atraso de replicação
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            HikariDataSource replicaDataSource,
+            @Value("${app.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${app.datasource.replica.max-lag-seconds:5}") long maxLagSeconds,
+            MeterRegistry meterRegistry
+    ) {
+        var monitor = new ReplicaLagMonitor(replicaDataSource, lagQuery, maxLagSeconds);
+
+        Gauge.builder("datasource.replica.lag.seconds", monitor, ReplicaLagMonitor::lagSeconds)
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", monitor, m -> m.isReplicaUsable() ? 1 : 0)
+                .register(meterRegistry);
+
+        return monitor;
+    }
+
+    // DataSource usado pela aplicação (JPA, JdbcTemplate, etc)
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            HikariDataSource primaryDataSource,
+            HikariDataSource replicaDataSource,
+            ReplicaLagMonitor replicaLagMonitor
+    ) {
+        return routingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+    }
+
+    // Monta o roteamento:
+    // - o LazyConnectionDataSourceProxy só pega a conexão física no primeiro uso,
+    //   depois que a transação já marcou a conexão como somente leitura
+    // - conexões somente leitura vão para o DataSource de leitura, que escolhe
+    //   a réplica ou o primário conforme o monitor de atraso
+    static DataSource routingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+
+        var readRouting = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return monitor.isReplicaUsable() ? REPLICA : PRIMARY;
+            }
+        };
+        readRouting.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        readRouting.setDefaultTargetDataSource(primary);
+        readRouting.afterPropertiesSet();
+
+        var proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(readRouting);
+        return proxy;
+    }
+}
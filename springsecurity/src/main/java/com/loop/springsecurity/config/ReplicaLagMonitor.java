@@ -0,0 +1,95 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Agendamento de tarefas do Spring
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Interfaces JDBC
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// Monitora a réplica de leitura e decide se ela pode ser usada
+// A réplica deixa de ser usada (leituras voltam para o primário) quando:
+// - não responde, ou
+// - o atraso de replicação passa do limite configurado
+// O atraso é lido por uma query configurável que retorna um único número (segundos).
+// Exemplo com tabela de heartbeat:
+//   select timestampdiff(second, max(ts), now()) from heartbeat
+// Sem query configurada, apenas a disponibilidade da réplica é verificada.
+// Até a primeira verificação a réplica é considerada indisponível (leituras no primário).
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+
+    // Query que retorna o atraso em segundos (opcional)
+    private final String lagQuery;
+
+    // Atraso máximo tolerado, em segundos
+    private final long maxLagSeconds;
+
+    // Último atraso medido (-1 = réplica indisponível)
+    private volatile long lagSeconds;
+
+    // Resultado da última verificação (false até a primeira)
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagSeconds) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    // Indica se as transações somente leitura podem ir para a réplica
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    public long lagSeconds() {
+        return lagSeconds;
+    }
+
+    // Verifica a réplica periodicamente
+    @Scheduled(fixedDelayString = "${app.datasource.replica.check-interval-millis:1000}")
+    public void check() {
+        boolean usable;
+
+        try (var connection = replica.getConnection()) {
+            if (lagQuery == null || lagQuery.isBlank()) {
+                lagSeconds = 0;
+                usable = connection.isValid(1);
+            } else {
+                try (var statement = connection.createStatement();
+                     var result = statement.executeQuery(lagQuery)) {
+
+                    // Sem linha ou valor nulo: replicação parada, atraso desconhecido
+                    long lag = -1;
+                    if (result.next()) {
+                        lag = result.getLong(1);
+                        if (result.wasNull()) {
+                            lag = -1;
+                        }
+                    }
+                    lagSeconds = lag;
+                }
+                usable = lagSeconds >= 0 && lagSeconds <= maxLagSeconds;
+            }
+        } catch (SQLException e) {
+            lagSeconds = -1;
+            usable = false;
+        }
+
+        // Registra apenas as mudanças de estado
+        if (usable != replicaUsable) {
+            log.warn(usable
+                    ? "Réplica disponível, leituras vão para a réplica"
+                    : "Réplica indisponível ou atrasada ({} s), leituras vão para o primário", lagSeconds);
+        }
+        replicaUsable = usable;
+    }
+}
@@ -13,17 +13,19 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+
+// Bulkheads de acesso ao banco (ver ConcurrencyLimitFilter)
+import com.loop.springsecurity.service.ConcurrencyLimits;
 
 // Importações de chaves RSA
 import java.security.interfaces.RSAPrivateKey;
@@ -52,7 +54,7 @@ public class SecurityConfig {
 
     // Define a cadeia de filtros de segurança do Spring Security
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ConcurrencyLimits limits) throws Exception {
 
         http
                 // Desabilita proteção CSRF
@@ -68,6 +70,10 @@ public class SecurityConfig {
                 // Define as regras de autorização das requisições HTTP
                 .authorizeHttpRequests(auth -> auth
 
+                        // Importação em massa de usuários: apenas ADMIN
+                        // (precisa vir antes da regra pública de POST /users/**)
+                        .requestMatchers(HttpMethod.POST, "/users/import").hasAuthority("SCOPE_ADMIN")
+
                         // Permite criar usuários sem autenticação
                         .requestMatchers(HttpMethod.POST, "/users/**").permitAll()
 
@@ -83,9 +89,15 @@ public class SecurityConfig {
 
                 // Configura o servidor como Resource Server OAuth2
                 // Indica que a autenticação será feita via JWT
+                // O JWT validado vira um UserAuthenticationToken (authorities reaproveitadas
+                // por valor da claim "scope" e id do usuário já convertido)
                 .oauth2ResourceServer(oauth2 ->
-                        oauth2.jwt(Customizer.withDefaults())
-                );
+                        oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(new InternedJwtAuthenticationConverter()))
+                )
+
+                // Limite de concorrência por classe de endpoint, depois da autorização:
+                // requisições anônimas recusadas (401/403) não ocupam vagas dos bulkheads
+                .addFilterAfter(new ConcurrencyLimitFilter(limits), AuthorizationFilter.class);
 
         // Constrói e retorna o filtro de segurança configurado
         return http.build();
@@ -116,11 +128,4 @@ public class SecurityConfig {
                 .withPublicKey(publicKey)
                 .build();
     }
-
-    // Bean do BCryptPasswordEncoder
-    // Usado para criptografar e validar senhas
-    @Bean
-    public BCryptPasswordEncoder bCryptPasswordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
 }
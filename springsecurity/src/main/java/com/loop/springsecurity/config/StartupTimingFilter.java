@@ -0,0 +1,83 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Tipos da API de Servlet
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Evento publicado quando a aplicação está pronta para receber requisições
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+
+// Anotações do Spring
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+// Filtro executado uma única vez por requisição
+import org.springframework.web.filter.OncePerRequestFilter;
+
+// Utilitários de IO e da JVM
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Mede o tempo de boot da aplicação:
+// - tempo até a aplicação ficar pronta (ApplicationReadyEvent)
+// - tempo até a PRIMEIRA requisição ser respondida (time-to-first-request)
+// Os tempos são contados desde o início da JVM, então incluem
+// carregamento de classes (onde o AppCDS ajuda) e inicialização lazy.
+// Ativo apenas no profile fast-start ou, para medir o modo padrão com o mesmo
+// filtro, no profile startup-timing (que não muda mais nada)
+@Component
+@Profile({"fast-start", "startup-timing"})
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingFilter.class);
+
+    // Garante que apenas a primeira requisição seja medida
+    private final AtomicBoolean firstRequestDone = new AtomicBoolean();
+
+    // Executado quando a aplicação termina de subir
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        log.info("Aplicação pronta em {} ms desde o início da JVM", jvmUptime());
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        // Depois da primeira requisição o filtro só repassa adiante
+        if (firstRequestDone.get()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Apenas uma thread registra o tempo
+            if (firstRequestDone.compareAndSet(false, true)) {
+                log.info("Primeira requisição ({} {}) respondida em {} ms desde o início da JVM",
+                        request.getMethod(), request.getRequestURI(), jvmUptime());
+            }
+        }
+    }
+
+    // Tempo em milissegundos desde que a JVM iniciou
+    private static long jvmUptime() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+}
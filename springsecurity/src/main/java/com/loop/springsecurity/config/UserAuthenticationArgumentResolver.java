@@ -0,0 +1,44 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Contexto de segurança da requisição atual
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// Autenticação padrão de JWT do Spring Security
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+// Resolução de parâmetros dos métodos dos controllers
+import org.springframework.core.MethodParameter;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+// Entrega o UserAuthenticationToken aos parâmetros @CurrentUser dos controllers
+// Um parâmetro sem a anotação é um Principal para o Spring MVC (resolvido antes dos
+// resolvedores da aplicação) e só funcionaria se a autenticação fosse exatamente desse
+// tipo. Aqui uma autenticação JWT criada por outro caminho (ex: jwt() do
+// spring-security-test) é convertida, mantendo as authorities.
+public class UserAuthenticationArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && UserAuthenticationToken.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public UserAuthenticationToken resolveArgument(
+            MethodParameter parameter,
+            ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest,
+            WebDataBinderFactory binderFactory
+    ) {
+        var authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwt) {
+            return UserAuthenticationToken.of(jwt);
+        }
+        throw new AuthenticationCredentialsNotFoundException("Requisição sem autenticação JWT");
+    }
+}
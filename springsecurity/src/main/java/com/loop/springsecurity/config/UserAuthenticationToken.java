@@ -0,0 +1,132 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Roles da aplicação (ADMIN)
+import com.loop.springsecurity.entities.Role;
+
+// Autoridades (scopes) do usuário
+import org.springframework.security.core.GrantedAuthority;
+
+// Token JWT já validado
+import org.springframework.security.oauth2.jwt.Jwt;
+
+// Autenticação padrão de JWT do Spring Security (mantida como base para compatibilidade)
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+// Erro de autenticação (HTTP 401)
+import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
+
+// Utilitários
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+// Autenticação de um usuário a partir do JWT
+// Igual ao JwtAuthenticationToken, mas já traz o id do usuário (subject) convertido
+// para UUID e se ele é ADMIN: os controllers não precisam reconverter o subject
+// nem percorrer as authorities a cada requisição.
+// Criado pelo InternedJwtAuthenticationConverter.
+// toBuilder() devolve um builder deste tipo: uma autenticação reconstruída pelo
+// Spring Security (ex: authorities acrescentadas) continua sendo um UserAuthenticationToken.
+public class UserAuthenticationToken extends JwtAuthenticationToken {
+
+    // Authority do scope ADMIN (mesmo prefixo do InternedJwtAuthenticationConverter)
+    private static final String ADMIN_AUTHORITY = "SCOPE_" + Role.Values.ADMIN.name();
+
+    // ID do usuário (subject do token)
+    private final UUID userId;
+
+    // Indica se o token tem o scope ADMIN
+    private final boolean admin;
+
+    // Lista imutável de authorities, compartilhada entre os tokens com os mesmos scopes
+    private final List<GrantedAuthority> authorities;
+
+    public UserAuthenticationToken(
+            Jwt jwt,
+            List<GrantedAuthority> authorities,
+            UUID userId,
+            boolean admin
+    ) {
+        // A classe base copiaria a lista a cada requisição: recebe null (sem cópia)
+        // e getAuthorities() devolve a lista compartilhada
+        super(jwt, null, jwt.getSubject());
+        this.userId = userId;
+        this.admin = admin;
+        this.authorities = authorities;
+    }
+
+    // Reconstrução (toBuilder): id e ADMIN recalculados a partir do token e das authorities
+    protected UserAuthenticationToken(Builder<?> builder) {
+        super(builder);
+        this.authorities = List.copyOf(super.getAuthorities());
+        this.userId = userId(getToken());
+        this.admin = isAdmin(this.authorities);
+    }
+
+    // Converte uma autenticação JWT criada fora do InternedJwtAuthenticationConverter
+    // (ex: jwt() do spring-security-test), mantendo as authorities dela
+    public static UserAuthenticationToken of(JwtAuthenticationToken authentication) {
+        if (authentication instanceof UserAuthenticationToken token) {
+            return token;
+        }
+        var authorities = List.<GrantedAuthority>copyOf(authentication.getAuthorities());
+        var token = new UserAuthenticationToken(
+                authentication.getToken(),
+                authorities,
+                userId(authentication.getToken()),
+                isAdmin(authorities)
+        );
+        token.setDetails(authentication.getDetails());
+        return token;
+    }
+
+    // O subject é o id do usuário (ver TokenController)
+    static UUID userId(Jwt jwt) {
+        try {
+            return UUID.fromString(String.valueOf(jwt.getSubject()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidBearerTokenException("Subject do token inválido");
+        }
+    }
+
+    private static boolean isAdmin(Collection<? extends GrantedAuthority> authorities) {
+        for (var authority : authorities) {
+            if (ADMIN_AUTHORITY.equalsIgnoreCase(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Builder<?> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    @Override
+    public Collection<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    public UUID userId() {
+        return userId;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    // Builder que preserva o tipo (o da classe base criaria um JwtAuthenticationToken comum)
+    public static class Builder<B extends Builder<B>> extends JwtAuthenticationToken.Builder<B> {
+
+        protected Builder(UserAuthenticationToken token) {
+            super(token);
+        }
+
+        @Override
+        public UserAuthenticationToken build() {
+            return new UserAuthenticationToken(this);
+        }
+    }
+}
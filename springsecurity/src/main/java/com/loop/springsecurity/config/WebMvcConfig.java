@@ -0,0 +1,24 @@
+// Define o pacote de configuração da aplicação
+package com.loop.springsecurity.config;
+
+// Importações do Spring
+import org.springframework.context.annotation.Configuration;
+
+// Extensões do Spring MVC
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Utilitários
+import java.util.List;
+
+// Ajustes do Spring MVC
+// Os parâmetros @CurrentUser dos controllers são resolvidos pelo
+// UserAuthenticationArgumentResolver.
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new UserAuthenticationArgumentResolver());
+    }
+}
@@ -0,0 +1,163 @@
+// Define o pacote onde este controller está localizado
+package com.loop.springsecurity.controller;
+
+// DTOs da moderação em massa
+import com.loop.springsecurity.controller.dto.ModerationRequestDto;
+import com.loop.springsecurity.controller.dto.ModerationResultDto;
+
+// Repositório responsável por acessar os tweets no banco de dados
+import com.loop.springsecurity.repository.TweetRepository;
+
+// Versão do feed em memória, usada para gerar o ETag
+import com.loop.springsecurity.service.FeedVersion;
+
+// Índice de busca em memória
+import com.loop.springsecurity.service.TweetSearchIndex;
+
+// Arquivo morto (tweets antigos fora do banco)
+import com.loop.springsecurity.service.TweetArchive;
+
+// Stream de tweets (/feed/stream)
+import com.loop.springsecurity.service.TweetBroadcaster;
+
+// Journal local dos eventos de tweets
+import com.loop.springsecurity.service.TweetJournal;
+
+// Eventos de invalidação de cache para as outras instâncias (outbox)
+import com.loop.springsecurity.service.InvalidationOutbox;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Classe usada para montar respostas HTTP
+import org.springframework.http.ResponseEntity;
+
+// Anotação para segurança em nível de método
+import org.springframework.security.access.prepost.PreAuthorize;
+
+// Controle de transação programático
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Utilitários
+import java.util.ArrayList;
+import java.util.List;
+
+// Anotações para mapear endpoints REST
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Marca essa classe como um Controller REST
+@RestController
+public class ModerationController {
+
+    // Quantidade máxima de tweets por requisição (tamanho da lista do IN)
+    private static final int MAX_IDS = 1000;
+
+    // Repositório de tweets
+    private final TweetRepository tweetRepository;
+
+    // Versão do feed (incrementada quando tweets são apagados)
+    private final FeedVersion feedVersion;
+
+    // Índice de busca (os tweets apagados deixam de aparecer)
+    private final TweetSearchIndex searchIndex;
+
+    // Journal local (registra os tweets apagados)
+    private final TweetJournal journal;
+
+    // Stream de tweets (os apagados não são reenviados no replay)
+    private final TweetBroadcaster broadcaster;
+
+    // Arquivo morto (tweets arquivados também podem ser moderados)
+    private final TweetArchive archive;
+
+    // Outbox: avisa as outras instâncias que o feed mudou (na mesma transação)
+    private final InvalidationOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+
+    // Construtor onde o Spring injeta as dependências
+    public ModerationController(
+            TweetRepository tweetRepository,
+            FeedVersion feedVersion,
+            TweetSearchIndex searchIndex,
+            TweetJournal journal,
+            TweetBroadcaster broadcaster,
+            TweetArchive archive,
+            InvalidationOutbox outbox,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.tweetRepository = tweetRepository;
+        this.feedVersion = feedVersion;
+        this.searchIndex = searchIndex;
+        this.journal = journal;
+        this.broadcaster = broadcaster;
+        this.archive = archive;
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Endpoint POST /tweets/moderation
+    // Apaga (tombstone) vários tweets em um único update
+    // As linhas são removidas depois pelo TweetPurger, em segundo plano
+    @PostMapping("/tweets/moderation")
+
+    // Apenas usuários com SCOPE_ADMIN podem moderar
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public ResponseEntity<ModerationResultDto> moderate(@RequestBody ModerationRequestDto dto) {
+
+        var ids = dto.tweetIds();
+        if (ids == null || ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tweetIds é obrigatório");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Máximo de " + MAX_IDS + " tweets por requisição");
+        }
+
+        // Seleciona os tweets que ainda não foram apagados e os apaga com um único update com IN
+        // (e os eventos do outbox, se algo mudou). Os que não estão no banco e sim no arquivo
+        // morto ganham um tombstone do arquivo. Ids inexistentes ou já apagados ficam de fora
+        // e não geram registros no índice, no journal nem no outbox.
+        // Se outra requisição apagar algum deles entre o select e o update, ele é registrado
+        // pelas duas (tombstone repetido não tem efeito)
+        var archived = new ArrayList<Long>();
+        var changed = transactionTemplate.execute(status -> {
+            List<Long> live = tweetRepository.findLiveIds(ids);
+
+            var missing = new ArrayList<>(ids);
+            missing.removeAll(live);
+            archived.addAll(archive.findByIds(missing).keySet());
+
+            if (live.isEmpty() && archived.isEmpty()) {
+                return live;
+            }
+            if (!live.isEmpty()) {
+                tweetRepository.softDeleteAll(live);
+                outbox.appendAll(InvalidationOutbox.TWEETS, live.stream().map(String::valueOf).toList());
+            }
+            archive.recordDeleted(archived);
+            outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+
+            var all = new ArrayList<>(live);
+            all.addAll(archived);
+            return all;
+        });
+
+        if (!changed.isEmpty()) {
+            archive.tombstone(archived);
+
+            // Esconde os tweets da busca e do replay do stream até serem expurgados
+            changed.forEach(searchIndex::tombstone);
+            changed.forEach(journal::deleted);
+            changed.forEach(broadcaster::forget);
+
+            // O feed mudou: invalida os ETags emitidos até agora
+            feedVersion.bump();
+        }
+
+        return ResponseEntity.ok(new ModerationResultDto(ids.size(), changed.size()));
+    }
+}
@@ -0,0 +1,171 @@
+// Define o pacote onde este controller está localizado
+package com.loop.springsecurity.controller;
+
+// DTO que representa cada item retornado
+import com.loop.springsecurity.controller.dto.FeedItemDto;
+
+// DTO que representa a resposta da busca
+import com.loop.springsecurity.controller.dto.SearchResultDto;
+
+// Repositório responsável por acessar os tweets no banco de dados
+import com.loop.springsecurity.repository.TweetRepository;
+
+// Contador de likes agregado em memória
+import com.loop.springsecurity.service.LikeCounter;
+
+// Bulkheads do acesso ao banco (a busca usa o de leitura)
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+
+// Arquivo morto dos tweets antigos
+import com.loop.springsecurity.service.TweetArchive;
+
+// Índice invertido em memória usado na busca
+import com.loop.springsecurity.service.TweetSearchIndex;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Classe usada para montar respostas HTTP
+import org.springframework.http.ResponseEntity;
+
+// Controle de transação programático
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Anotações para mapear endpoints REST
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Estruturas de dados
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Marca essa classe como um Controller REST
+@RestController
+public class SearchController {
+
+    // Maior quantidade de resultados por página
+    private static final int MAX_LIMIT = 100;
+
+    // Índice de busca em memória
+    private final TweetSearchIndex searchIndex;
+
+    // Repositório de tweets (usado para carregar os tweets encontrados)
+    private final TweetRepository tweetRepository;
+
+    // Likes pendentes em memória (somados ao valor gravado)
+    private final LikeCounter likeCounter;
+
+    // Tweets antigos que já saíram do banco
+    private final TweetArchive archive;
+
+    // Limite de consultas simultâneas ao banco (bulkhead de leitura)
+    private final ConcurrencyLimits concurrencyLimits;
+
+    // Transação somente leitura (pode ir para a réplica) usada só para carregar a página
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Tweets da página encontrados no banco
+    // live: os não apagados, já convertidos; stored: todos os ids presentes no banco
+    private record Loaded(Map<Long, FeedItemDto> live, Set<Long> stored) {
+    }
+
+    // Construtor onde o Spring injeta as dependências
+    public SearchController(
+            TweetSearchIndex searchIndex,
+            TweetRepository tweetRepository,
+            LikeCounter likeCounter,
+            TweetArchive archive,
+            ConcurrencyLimits concurrencyLimits,
+            PlatformTransactionManager transactionManager
+    ) {
+        this.searchIndex = searchIndex;
+        this.tweetRepository = tweetRepository;
+        this.likeCounter = likeCounter;
+        this.archive = archive;
+        this.concurrencyLimits = concurrencyLimits;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Endpoint GET /tweets/search
+    // Busca tweets que contêm todos os termos informados (AND)
+    // Exemplo: /tweets/search?q=spring security&limit=20
+    @GetMapping("/tweets/search")
+    public ResponseEntity<SearchResultDto> search(
+
+            // Termos da busca
+            @RequestParam("q") String query,
+
+            // Cursor devolvido pela página anterior (opcional)
+            @RequestParam(value = "cursor", required = false) Long cursor,
+
+            // Quantidade de resultados por página
+            @RequestParam(value = "limit", defaultValue = "20") int limit
+    ) {
+
+        // Enquanto o índice é reconstruído os resultados estariam incompletos
+        if (!searchIndex.isReady()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Índice de busca em construção");
+        }
+
+        // A busca em si acontece inteiramente em memória
+        var page = searchIndex.search(query, cursor, Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+        // Carrega apenas os tweets da página, em uma única consulta por chave primária
+        // Só essa consulta ocupa vaga no bulkhead de leitura (acima do limite: 503)
+        var ids = Arrays.stream(page.tweetIds()).boxed().toList();
+        var loaded = concurrencyLimits.call(Bulkhead.FEED_READ,
+                () -> readOnlyTransaction.execute(status -> load(ids)));
+
+        // Os que não estão no banco podem ter sido arquivados
+        var missing = new HashSet<Long>(ids);
+        missing.removeAll(loaded.stored());
+        var archived = archive.findByIds(missing);
+
+        // Mantém a ordem do índice (mais recente primeiro)
+        // Tweets removidos entre a busca e a consulta são ignorados
+        var items = new ArrayList<FeedItemDto>(ids.size());
+        for (var id : ids) {
+            var item = loaded.live().get(id);
+            if (item != null) {
+                items.add(item);
+            } else if (archived.containsKey(id)) {
+                var old = archived.get(id);
+                items.add(new FeedItemDto(old.tweetId(), old.content(), old.username(), old.likes()));
+            }
+        }
+
+        return ResponseEntity.ok(new SearchResultDto(items, page.nextCursor()));
+    }
+
+    // Busca os tweets da página (dentro da transação: o autor é carregado junto)
+    private Loaded load(List<Long> ids) {
+        var live = new HashMap<Long, FeedItemDto>();
+        var stored = new HashSet<Long>();
+
+        for (var tweet : tweetRepository.findAllById(ids)) {
+            stored.add(tweet.getTweetId());
+            if (!tweet.isDeleted()) {
+                live.put(tweet.getTweetId(), new FeedItemDto(
+                        tweet.getTweetId(),
+                        tweet.getContent(),
+                        tweet.getUser().getUsername(),
+                        likeCounter.count(tweet.getTweetId(), tweet.getLikes())
+                ));
+            }
+        }
+        return new Loaded(live, stored);
+    }
+}
@@ -14,15 +14,19 @@ import com.loop.springsecurity.entities.Role;
 // Importa o repositório responsável por acessar os dados do usuário no banco
 import com.loop.springsecurity.repository.UserRepository;
 
+// Bulkheads do acesso ao banco (o login usa o de autenticação)
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+
 // Classe do Spring usada para construir respostas HTTP de forma flexível
 import org.springframework.http.ResponseEntity;
 
 // Exceção lançada quando usuário ou senha são inválidos
 import org.springframework.security.authentication.BadCredentialsException;
 
-// Encoder de senha que usa o algoritmo BCrypt
+// Encoder de senha (BCrypt com custo calibrado, ver PasswordHashingConfig)
 // Serve para comparar a senha digitada com a senha criptografada no banco
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 // Classe que representa o conjunto de claims (informações) do JWT
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
@@ -33,6 +37,10 @@ import org.springframework.security.oauth2.jwt.JwtEncoder;
 // Classe que empacota os parâmetros necessários para o encoder gerar o token
 import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 
+// Controle de transação programático
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
 // Anotação que indica que a classe é um controller REST
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -56,31 +64,48 @@ public class TokenController {
     private final UserRepository userRepository;
 
     // Encoder usado para validar a senha do usuário
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+
+    // Transação somente leitura (pode ir para a réplica) usada só para buscar o usuário
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Limite de acessos simultâneos ao banco (apenas as consultas, não o BCrypt)
+    private final ConcurrencyLimits concurrencyLimits;
 
     // Construtor com injeção de dependências
     // O Spring injeta automaticamente essas dependências em tempo de execução
     public TokenController(
             JwtEncoder jwtEncoder,
             UserRepository userRepository,
-            BCryptPasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            PlatformTransactionManager transactionManager,
+            ConcurrencyLimits concurrencyLimits
     ) {
         this.jwtEncoder = jwtEncoder;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.concurrencyLimits = concurrencyLimits;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     // Mapeia requisições HTTP POST para o endpoint /login
+    // O login NÃO roda dentro de uma transação: a verificação do BCrypt (~250 ms)
+    // seguraria uma conexão do pool o tempo todo, e a atualização do hash pegaria
+    // uma segunda conexão do mesmo pool (esgotando o pool sob carga de logins)
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(
             // Indica que o corpo da requisição será convertido para LoginRequest
             @RequestBody LoginRequest loginRequest
     ) {
 
-        // Busca o usuário no banco pelo username informado
-        var user = userRepository.findByUsername(loginRequest.username());
+        // Busca o usuário (com as roles, carregadas junto) em uma transação curta
+        // A conexão (e a vaga no bulkhead) volta antes da verificação da senha
+        var user = concurrencyLimits.call(Bulkhead.AUTH,
+                () -> readOnlyTransaction.execute(status -> userRepository.findByUsername(loginRequest.username())));
 
-        // Verifica duas coisas:
+        // Verifica duas coisas (fora de qualquer transação):
         // 1) Se o usuário não existe
         // 2) Se a senha informada não corresponde à senha criptografada no banco
         if (user.isEmpty() || !user.get().isLoginCorrect(loginRequest, passwordEncoder)) {
@@ -88,6 +113,16 @@ public class TokenController {
             throw new BadCredentialsException("user or password invalid!");
         }
 
+        // Senha correta, mas o hash foi gerado com outro algoritmo ou custo:
+        // aproveita a senha em texto puro (só disponível no login) para refazer o hash
+        // A atualização é uma escrita curta e separada (no primário); o novo hash
+        // é calculado antes, fora do bulkhead
+        if (passwordEncoder.upgradeEncoding(user.get().getPassword())) {
+            var rehashed = passwordEncoder.encode(loginRequest.password());
+            concurrencyLimits.call(Bulkhead.AUTH,
+                    () -> userRepository.updatePassword(user.get().getUserID(), rehashed));
+        }
+
         // Captura o instante atual (hora atual em UTC)
         var now = Instant.now();
 
@@ -0,0 +1,74 @@
+// Define o pacote onde este controller está localizado
+package com.loop.springsecurity.controller;
+
+// DTO que representa a resposta do endpoint
+import com.loop.springsecurity.controller.dto.TrendsDto;
+
+// Serviço de trending calculado em memória
+import com.loop.springsecurity.service.TrendingTags;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Classe usada para montar respostas HTTP
+import org.springframework.http.ResponseEntity;
+
+// Anotações para mapear endpoints REST
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Utilitário para converter texto em maiúsculas
+import java.util.Locale;
+
+// Marca essa classe como um Controller REST
+@RestController
+public class TrendController {
+
+    // Maior quantidade de tags retornadas
+    private static final int MAX_LIMIT = 50;
+
+    // Serviço de trending (injeção de dependência)
+    private final TrendingTags trendingTags;
+
+    // Construtor onde o Spring injeta as dependências
+    public TrendController(TrendingTags trendingTags) {
+        this.trendingTags = trendingTags;
+    }
+
+    // Endpoint GET /trends
+    // Retorna as hashtags (ou menções) mais usadas na janela informada
+    // Exemplo: /trends?window=1h&limit=10&type=hashtag
+    @GetMapping("/trends")
+    public ResponseEntity<TrendsDto> trends(
+
+            // Janela de tempo: 5m, 1h ou 1d
+            @RequestParam(value = "window", defaultValue = "1h") String window,
+
+            // Quantidade de tags retornadas
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+
+            // Tipo de tag: hashtag ou mention
+            @RequestParam(value = "type", defaultValue = "hashtag") String type
+    ) {
+
+        TrendingTags.Window parsedWindow;
+        TrendingTags.Type parsedType;
+
+        // Parâmetros inválidos retornam HTTP 400
+        try {
+            parsedWindow = TrendingTags.Window.fromLabel(window);
+            parsedType = TrendingTags.Type.valueOf(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        // Cálculo feito inteiramente em memória
+        var trends = trendingTags.top(parsedType, parsedWindow, Math.max(1, Math.min(limit, MAX_LIMIT)));
+
+        return ResponseEntity.ok(new TrendsDto(parsedWindow.label(), trends));
+    }
+}
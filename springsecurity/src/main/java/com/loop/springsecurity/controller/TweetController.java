@@ -10,6 +10,15 @@ import com.loop.springsecurity.controller.dto.FeedDto;
 // DTO que representa cada item individual do feed
 import com.loop.springsecurity.controller.dto.FeedItemDto;
 
+// DTOs da timeline de um usuário
+import com.loop.springsecurity.controller.dto.TimelineDto;
+import com.loop.springsecurity.controller.dto.TimelineItemDto;
+
+// Representa o usuário autenticado via JWT
+// Contém as informações extraídas do token e o id do usuário já convertido
+import com.loop.springsecurity.config.CurrentUser;
+import com.loop.springsecurity.config.UserAuthenticationToken;
+
 // Entidade Role, usada para verificar permissões (ex: ADMIN)
 import com.loop.springsecurity.entities.Role;
 
@@ -19,9 +28,58 @@ import com.loop.springsecurity.entities.Tweet;
 // Repositório responsável por acessar os tweets no banco de dados
 import com.loop.springsecurity.repository.TweetRepository;
 
+// Projeção enxuta de um tweet (timeline)
+import com.loop.springsecurity.repository.TweetSummary;
+
 // Repositório responsável por acessar os usuários no banco de dados
 import com.loop.springsecurity.repository.UserRepository;
 
+// Bulkhead de leitura do feed (limita só a consulta ao banco)
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+
+// Cache das primeiras páginas do feed já serializadas
+import com.loop.springsecurity.service.FeedResponseCache;
+
+// Formatos do feed (JSON, CBOR, Smile)
+import com.loop.springsecurity.service.FeedEncoding;
+
+// Versão do feed em memória, usada para gerar o ETag
+import com.loop.springsecurity.service.FeedVersion;
+
+// Compressão gzip com Deflaters reaproveitados
+import com.loop.springsecurity.service.GzipCompressor;
+
+// Respostas guardadas por Idempotency-Key (repetições do cliente)
+import com.loop.springsecurity.service.IdempotencyStore;
+
+// Eventos de invalidação de cache para as outras instâncias (outbox)
+import com.loop.springsecurity.service.InvalidationOutbox;
+
+// Contador de likes agregado em memória
+import com.loop.springsecurity.service.LikeCounter;
+
+// Cota de tweets por usuário (token bucket)
+import com.loop.springsecurity.service.PostingQuota;
+
+// Arquivo morto dos tweets antigos (segmentos em disco)
+import com.loop.springsecurity.service.TweetArchive;
+
+// Journal local dos eventos de tweets (restaura o índice de busca na subida)
+import com.loop.springsecurity.service.TweetJournal;
+
+// Coalescência de consultas idênticas concorrentes
+import com.loop.springsecurity.service.SingleFlight;
+
+// Broadcaster dos novos tweets para o stream (SSE)
+import com.loop.springsecurity.service.TweetBroadcaster;
+
+// Índice de busca em memória
+import com.loop.springsecurity.service.TweetSearchIndex;
+
+// Trending de hashtags e menções em memória
+import com.loop.springsecurity.service.TrendingTags;
+
 // Interface do Spring Data que representa uma página de resultados
 import org.springframework.data.domain.Page;
 
@@ -31,15 +89,25 @@ import org.springframework.data.domain.PageRequest;
 // Classe usada para definir ordenação (ASC, DESC)
 import org.springframework.data.domain.Sort;
 
+// Configuração do header Cache-Control
+import org.springframework.http.CacheControl;
+
+// Nomes dos headers HTTP (If-None-Match, etc)
+import org.springframework.http.HttpHeaders;
+
 // Enum com códigos HTTP (200, 403, 404, etc)
 import org.springframework.http.HttpStatus;
 
+// Tipos de conteúdo (application/json, etc)
+import org.springframework.http.MediaType;
+
 // Classe usada para montar respostas HTTP
 import org.springframework.http.ResponseEntity;
 
-// Representa o usuário autenticado via JWT
-// Contém as informações extraídas do token
-import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+// Controle de transação do Spring
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 // Anotações para mapear endpoints REST
 import org.springframework.web.bind.annotation.*;
@@ -47,6 +115,23 @@ import org.springframework.web.bind.annotation.*;
 // Exceção usada para retornar erros HTTP automaticamente
 import org.springframework.web.server.ResponseStatusException;
 
+// Emissor de Server-Sent Events
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Serializadores (Jackson): JSON configurado pelo Spring Boot e os binários (EncodingConfig)
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+// Classes usadas para montar e ler o cursor da timeline
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
 // Classe usada para trabalhar com UUID
 import java.util.UUID;
 
@@ -60,16 +145,121 @@ public class TweetController {
     // Repositório de usuários (injeção de dependência)
     private final UserRepository userRepository;
 
+    // Versão do feed (incrementada a cada tweet criado/removido)
+    private final FeedVersion feedVersion;
+
+    // Cache das respostas do feed já serializadas
+    private final FeedResponseCache feedResponseCache;
+
+    // Serializadores usados para gerar os bytes guardados no cache (um por formato)
+    private final JsonMapper jsonMapper;
+    private final CBORMapper cborMapper;
+    private final SmileMapper smileMapper;
+
+    // Compressão gzip das respostas grandes
+    private final GzipCompressor gzipCompressor;
+
+    // Faz requisições concorrentes idênticas compartilharem uma única consulta
+    private final SingleFlight singleFlight;
+
+    // Envia os novos tweets para os clientes conectados em /feed/stream
+    private final TweetBroadcaster tweetBroadcaster;
+
+    // Índice de busca, atualizado a cada tweet criado/removido
+    private final TweetSearchIndex searchIndex;
+
+    // Trending de hashtags e menções, alimentado a cada tweet criado
+    private final TrendingTags trendingTags;
+
+    // Likes agregados em memória (gravados em lote periodicamente)
+    private final LikeCounter likeCounter;
+
+    // Tweets antigos, fora do banco (o feed e a timeline continuam nele)
+    private final TweetArchive archive;
+
+    // Respostas do POST /tweets guardadas por Idempotency-Key
+    private final IdempotencyStore idempotencyStore;
+
+    // Journal local: cada tweet criado/apagado vira um registro
+    private final TweetJournal journal;
+
+    // Cota de tweets por usuário, verificada antes de qualquer acesso ao banco
+    private final PostingQuota postingQuota;
+
+    // Outbox: avisa as outras instâncias que o feed mudou (na mesma transação da escrita)
+    private final InvalidationOutbox outbox;
+
+    // Bulkhead de leitura do feed, aplicado apenas em volta da consulta ao banco
+    private final ConcurrencyLimits concurrencyLimits;
+
+    // Transação somente leitura usada apenas quando o feed precisa ir ao banco
+    // (respostas 304 e hits do cache não abrem transação nem pegam conexão)
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Transação de escrita: o tweet e o evento do outbox são gravados juntos
+    private final TransactionTemplate writeTransaction;
+
+    // Chave de uma consulta do feed para o single-flight
+    private record FeedQueryKey(long version, int page, int pageSize, FeedEncoding encoding, boolean acceptsGzip) {
+    }
+
     // Construtor onde o Spring injeta os repositórios automaticamente
-    public TweetController(TweetRepository tweetRepository, UserRepository userRepository) {
+    public TweetController(
+            TweetRepository tweetRepository,
+            UserRepository userRepository,
+            FeedVersion feedVersion,
+            FeedResponseCache feedResponseCache,
+            JsonMapper jsonMapper,
+            CBORMapper cborMapper,
+            SmileMapper smileMapper,
+            GzipCompressor gzipCompressor,
+            SingleFlight singleFlight,
+            TweetBroadcaster tweetBroadcaster,
+            TweetSearchIndex searchIndex,
+            TrendingTags trendingTags,
+            LikeCounter likeCounter,
+            TweetArchive archive,
+            IdempotencyStore idempotencyStore,
+            TweetJournal journal,
+            PostingQuota postingQuota,
+            InvalidationOutbox outbox,
+            ConcurrencyLimits concurrencyLimits,
+            PlatformTransactionManager transactionManager
+    ) {
         this.tweetRepository = tweetRepository;
         this.userRepository = userRepository;
+        this.feedVersion = feedVersion;
+        this.feedResponseCache = feedResponseCache;
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborMapper;
+        this.smileMapper = smileMapper;
+        this.gzipCompressor = gzipCompressor;
+        this.singleFlight = singleFlight;
+        this.tweetBroadcaster = tweetBroadcaster;
+        this.searchIndex = searchIndex;
+        this.trendingTags = trendingTags;
+        this.likeCounter = likeCounter;
+        this.archive = archive;
+        this.idempotencyStore = idempotencyStore;
+        this.journal = journal;
+        this.postingQuota = postingQuota;
+        this.outbox = outbox;
+        this.concurrencyLimits = concurrencyLimits;
+
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
     // Endpoint GET /feed
     // Retorna o feed de tweets com paginação
+    // O corpo é devolvido como bytes já serializados
+    // (vindos do cache quando possível, sem passar pelo Jackson)
+    // Formato pelo header Accept: JSON (padrão), CBOR ou Smile
+    // Respostas grandes vão com gzip quando o cliente aceita (Accept-Encoding)
     @GetMapping("/feed")
-    public ResponseEntity<FeedDto> feed(
+    public ResponseEntity<byte[]> feed(
 
             // Parâmetro de query "page"
             // Caso não seja enviado, o valor padrão será 0
@@ -77,12 +267,217 @@ public class TweetController {
 
             // Parâmetro de query "pageSize"
             // Caso não seja enviado, o valor padrão será 10
-            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize
+            @RequestParam(value = "pageSize", defaultValue = "10") int pageSize,
+
+            // ETag que o cliente já possui em cache (opcional)
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+
+            // Formatos aceitos pelo cliente (opcional)
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+
+            // Compressões aceitas pelo cliente (opcional)
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+
+        // Formato da resposta e se ela pode ir comprimida
+        var encoding = FeedEncoding.negotiate(accept);
+        var acceptsGzip = GzipCompressor.accepts(acceptEncoding);
+
+        // Versão atual do feed
+        // Lida uma única vez para que ETag e cache usem o mesmo valor
+        var version = feedVersion.current();
+
+        // ETag fraco derivado da versão do feed, dos parâmetros da página e do formato
+        var etag = feedVersion.etag(version, page, pageSize, encoding);
+
+        // Se o cliente já tem essa versão da página, responde 304
+        // sem nenhuma consulta ao banco e sem serializar o corpo
+        if (FeedVersion.matches(ifNoneMatch, etag)) {
+            return ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        // Tenta o corpo já serializado no cache
+        var body = feedResponseCache.get(page, pageSize, encoding, acceptsGzip, version);
+
+        // Miss: consulta o banco, serializa e guarda no cache
+        // Requisições concorrentes para a mesma página e versão compartilham
+        // uma única consulta (evita o "thundering herd" logo após um novo tweet)
+        if (body == null) {
+            var key = new FeedQueryKey(version, page, pageSize, encoding, acceptsGzip);
+            body = singleFlight.execute(key, () -> {
+                // Somente leitura: pode ir para a réplica
+                // Só a consulta ao banco ocupa vaga no bulkhead de leitura (acima do limite: 503)
+                var feed = concurrencyLimits.call(Bulkhead.FEED_READ,
+                        () -> readOnlyTransaction.execute(status -> loadFeed(page, pageSize)));
+                var bytes = mapper(encoding).writeValueAsBytes(feed);
+
+                // Comprime apenas acima do limite (abaixo dele não compensa a CPU)
+                var encoded = acceptsGzip && gzipCompressor.worthCompressing(bytes.length)
+                        ? new FeedResponseCache.Body(gzipCompressor.gzip(bytes), true)
+                        : new FeedResponseCache.Body(bytes, false);
+
+                feedResponseCache.put(page, pageSize, encoding, acceptsGzip, version, encoded);
+                return encoded;
+            });
+        }
+
+        // Retorna HTTP 200 com o FeedDto no formato pedido
+        // O ETag permite que o cliente faça GET condicional (If-None-Match)
+        // e o no-cache obriga o cliente a revalidar a cada requisição
+        var response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(encoding.mediaType());
+
+        if (body.gzip()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(body.bytes());
+    }
+
+    // Serializador do formato pedido
+    private ObjectMapper mapper(FeedEncoding encoding) {
+        return switch (encoding) {
+            case JSON -> jsonMapper;
+            case CBOR -> cborMapper;
+            case SMILE -> smileMapper;
+        };
+    }
+
+    // Endpoint GET /feed/stream
+    // Stream (Server-Sent Events) dos novos tweets, substitui o polling do /feed
+    // Cada evento tem id = tweetId, então o cliente pode retomar de onde parou
+    @GetMapping(value = "/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter feedStream(
+
+            // Último tweet recebido pelo cliente (opcional)
+            @RequestParam(value = "lastId", required = false) Long lastId,
+
+            // Header enviado automaticamente pelo EventSource ao reconectar
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId
+    ) {
+
+        // O parâmetro explícito tem prioridade sobre o header
+        return tweetBroadcaster.subscribe(lastId != null ? lastId : lastEventId);
+    }
+
+    // Endpoint GET /users/{id}/tweets
+    // Timeline de um usuário, do tweet mais recente para o mais antigo
+    // Paginação por cursor (keyset) sobre o índice (user_id, creation_timestamp, tweet_id):
+    // a latência é a mesma para um usuário com 10 ou 10 milhões de tweets
+    @GetMapping("/users/{id}/tweets")
+
+    // Somente leitura (pode ir para a réplica)
+    @Transactional(readOnly = true)
+    public ResponseEntity<TimelineDto> userTweets(
+
+            // ID do usuário vindo da URL
+            @PathVariable("id") UUID userId,
+
+            // Cursor devolvido pela página anterior (opcional)
+            @RequestParam(value = "cursor", required = false) String cursor,
+
+            // Quantidade de tweets por página
+            @RequestParam(value = "limit", defaultValue = "20") int limit
     ) {
 
+        // Limita o tamanho da página entre 1 e 100
+        var size = Math.max(1, Math.min(limit, 100));
+
+        // Busca um tweet a mais para saber se existe uma próxima página
+        var pageable = PageRequest.of(0, size + 1);
+
+        var position = cursor == null ? null : decodeCursor(cursor);
+
+        List<TweetSummary> tweets;
+        if (position == null) {
+            tweets = tweetRepository.findTimeline(userId, pageable);
+        } else {
+            tweets = tweetRepository.findTimelineBefore(
+                    userId,
+                    position.creationTimestamp(),
+                    position.tweetId(),
+                    pageable
+            );
+        }
+
+        // Acabaram os tweets do banco: continua no arquivo morto
+        // (todo tweet arquivado é mais antigo que qualquer tweet do banco)
+        if (tweets.size() <= size) {
+            var archived = archive.userTweetsBefore(
+                    userId,
+                    position == null ? null : position.creationTimestamp(),
+                    position == null ? null : position.tweetId(),
+                    size + 1 - tweets.size()
+            );
+            if (!archived.isEmpty()) {
+                tweets = new ArrayList<>(tweets);
+                for (var tweet : archived) {
+                    tweets.add(new TweetSummary(tweet.tweetId(), tweet.content(), tweet.creationTimestamp()));
+                }
+            }
+        }
+
+        // Se veio o tweet extra, existe próxima página a partir do último item retornado
+        var hasNext = tweets.size() > size;
+        var page = hasNext ? tweets.subList(0, size) : tweets;
+
+        var items = page.stream()
+                .map(tweet -> new TimelineItemDto(
+                        tweet.tweetId(),
+                        tweet.content(),
+                        tweet.creationTimestamp()
+                ))
+                .toList();
+
+        var nextCursor = hasNext ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        return ResponseEntity.ok(new TimelineDto(items, nextCursor));
+    }
+
+    // Gera o cursor a partir do último tweet da página
+    // Formato (antes do Base64): epochSecond:nano:tweetId
+    private static String encodeCursor(TweetSummary last) {
+        var raw = last.creationTimestamp().getEpochSecond()
+                + ":" + last.creationTimestamp().getNano()
+                + ":" + last.tweetId();
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Lê o cursor enviado pelo cliente
+    // Cursor inválido retorna HTTP 400
+    private static TweetSummary decodeCursor(String cursor) {
+        try {
+            var raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var parts = raw.split(":");
+            return new TweetSummary(
+                    Long.parseLong(parts[2]),
+                    null,
+                    Instant.ofEpochSecond(Long.parseLong(parts[0]), Long.parseLong(parts[1]))
+            );
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException
+                 | DateTimeException | ArithmeticException e) {
+            // Base64/número inválido, partes faltando ou instante fora do intervalo (cursor adulterado)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+    }
+
+    // Monta uma página do feed a partir do banco
+    private FeedDto loadFeed(int page, int pageSize) {
+
         // Busca os tweets no banco de forma paginada
         // Ordena do mais recente para o mais antigo usando creationTimestamp
-        var tweets = tweetRepository.findAll(
+        // Tweets apagados (tombstone) ficam de fora
+        var tweets = tweetRepository.findByDeletedFalse(
                         PageRequest.of(
                                 page,                 // número da página
                                 pageSize,             // tamanho da página
@@ -95,39 +490,95 @@ public class TweetController {
                 .map(tweet -> new FeedItemDto(
                         tweet.getTweetId(),               // ID do tweet
                         tweet.getContent(),               // conteúdo do tweet
-                        tweet.getUser().getUsername()     // username do autor
+                        tweet.getUser().getUsername(),    // username do autor
+                        likeCounter.count(                // likes gravados + pendentes
+                                tweet.getTweetId(),
+                                tweet.getLikes()
+                        )
+                ));
+
+        // A página passou do fim do banco: completa com o arquivo morto
+        // (todo tweet arquivado é mais antigo que qualquer tweet do banco)
+        var items = tweets.getContent();
+        var archived = archive.size();
+        if (items.size() < pageSize && archived > 0) {
+            items = new ArrayList<>(items);
+            long offset = Math.max(0, (long) page * pageSize - tweets.getTotalElements());
+            for (var tweet : archive.newest(offset, pageSize - items.size())) {
+                items.add(new FeedItemDto(
+                        tweet.tweetId(),
+                        tweet.content(),
+                        tweet.username(),
+                        tweet.likes()
                 ));
+            }
+        }
+
+        // Total: tweets do banco + tweets arquivados
+        var total = tweets.getTotalElements() + archived;
 
-        // Retorna HTTP 200 com o FeedDto
         // Inclui: lista de tweets, página atual, tamanho da página,
         // total de páginas e total de elementos
-        return ResponseEntity.ok(
-                new FeedDto(
-                        tweets.getContent(),        // lista de tweets da página atual
-                        page,                        // página atual
-                        pageSize,                    // tamanho da página
-                        tweets.getTotalPages(),      // total de páginas
-                        tweets.getTotalElements()    // total de tweets
-                )
+        return new FeedDto(
+                items,                                      // lista de tweets da página atual
+                page,                                       // página atual
+                pageSize,                                   // tamanho da página
+                (int) ((total + pageSize - 1) / pageSize),  // total de páginas
+                total                                       // total de tweets
         );
     }
 
     // Endpoint POST /tweets
     // Cria um novo tweet
+    // Com o header Idempotency-Key, um reenvio do mesmo POST (retry do cliente)
+    // recebe a resposta da primeira execução em vez de criar outro tweet
     @PostMapping("/tweets")
     public ResponseEntity<Void> createTweet(
 
             // Corpo da requisição contendo o conteúdo do tweet
             @RequestBody CreateTweetDto dto,
 
-            // Token JWT do usuário autenticado
-            JwtAuthenticationToken token
+            // Chave opcional enviada pelo cliente para identificar a tentativa
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+
+            // Token JWT do usuário autenticado (com o id do usuário já convertido)
+            @CurrentUser UserAuthenticationToken token
     ) {
 
-        // Recupera o usuário logado a partir do ID presente no token (subject)
-        var user = userRepository.findById(
-                UUID.fromString(token.getName())
+        // ID do usuário logado (subject do token)
+        var userId = token.userId();
+
+        var role = token.isAdmin() ? Role.Values.ADMIN : Role.Values.BASIC;
+
+        // A chave vale apenas para o usuário do token
+        // A cota é consumida só na primeira execução: o reenvio de um POST já concluído
+        // recebe a resposta guardada sem gastar ficha
+        return idempotencyStore.execute(
+                "POST /tweets",
+                token.getName(),
+                idempotencyKey,
+                dto,
+                () -> {
+
+                    // Cota do usuário esgotada: HTTP 429 sem tocar no banco
+                    // (o IdempotencyStore não guarda o 429: o reenvio tenta de novo)
+                    long retryAfterMillis = postingQuota.tryAcquire(userId, role);
+                    if (retryAfterMillis > 0) {
+                        return ResponseEntity
+                                .status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, String.valueOf((retryAfterMillis + 999) / 1000))
+                                .<Void>build();
+                    }
+                    return saveTweet(dto, userId);
+                }
         );
+    }
+
+    // Grava o tweet e notifica busca, trending e stream
+    private ResponseEntity<Void> saveTweet(CreateTweetDto dto, UUID userId) {
+
+        // Recupera o usuário logado a partir do ID presente no token (subject)
+        var user = userRepository.findById(userId);
 
         // Cria uma nova entidade Tweet
         var tweet = new Tweet();
@@ -138,15 +589,65 @@ public class TweetController {
         // Define o conteúdo do tweet
         tweet.setContent(dto.content());
 
-        // Salva o tweet no banco de dados
-        tweetRepository.save(tweet);
+        // Salva o tweet no banco de dados junto com o evento de invalidação do feed
+        writeTransaction.executeWithoutResult(status -> {
+            tweetRepository.save(tweet);
+            outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+        });
+
+        // O feed mudou: invalida os ETags emitidos até agora
+        feedVersion.bump();
+
+        // Indexa o conteúdo para a busca
+        searchIndex.add(tweet.getTweetId(), tweet.getContent());
+        journal.created(tweet.getTweetId(), tweet.getContent());
+
+        // Contabiliza hashtags e menções para o /trends
+        trendingTags.record(dto.content());
+
+        // Envia o tweet (já gravado) para os clientes conectados no stream
+        tweetBroadcaster.publish(new FeedItemDto(
+                tweet.getTweetId(),
+                tweet.getContent(),
+                tweet.getUser().getUsername(),
+                0
+        ));
 
         // Retorna HTTP 200 sem corpo
         return ResponseEntity.ok().build();
     }
 
+    // Endpoint POST /tweets/{id}/like
+    // Curte um tweet (cada usuário curte um tweet no máximo uma vez)
+    // O like é agregado em memória e gravado em lote pelo LikeCounter:
+    // nenhum update no banco acontece dentro da requisição
+    @PostMapping("/tweets/{id}/like")
+    public ResponseEntity<Void> likeTweet(
+
+            // ID do tweet vindo da URL
+            @PathVariable("id") Long tweetId,
+
+            // Token JWT do usuário autenticado
+            @CurrentUser UserAuthenticationToken token
+    ) {
+
+        // Tweets com likes pendentes já foram validados há pouco;
+        // os demais são conferidos pela chave primária (leitura, sem lock)
+        if (!likeCounter.isKnown(tweetId) && !tweetRepository.existsByTweetIdAndDeletedFalse(tweetId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+
+        // Registra o like (duplicados recentes são ignorados)
+        likeCounter.like(tweetId, token.userId());
+
+        // Retorna HTTP 200 sem corpo (o like é idempotente)
+        return ResponseEntity.ok().build();
+    }
+
     // Endpoint DELETE /tweets/{id}
-    // Remove um tweet pelo ID
+    // Apaga um tweet pelo ID
+    // O tweet é apenas marcado como apagado (tombstone) em um único update que já
+    // confere a permissão; a linha é removida depois pelo TweetPurger, em lote
     @DeleteMapping("/tweets/{id}")
     public ResponseEntity<Void> deleteTweet(
 
@@ -154,52 +655,65 @@ public class TweetController {
             @PathVariable("id") Long tweetId,
 
             // Token JWT do usuário autenticado
-            JwtAuthenticationToken token
+            @CurrentUser UserAuthenticationToken token
     ) {
 
-        // Busca o usuário logado pelo ID presente no token
-        var user = userRepository.findById(
-                UUID.fromString(token.getName())
-        );
-
-        // Busca o tweet pelo ID
-        // Caso não exista, retorna HTTP 404
-        var tweet = tweetRepository.findById(tweetId)
-                .orElseThrow(() ->
-                        new ResponseStatusException(HttpStatus.NOT_FOUND)
-                );
-
-        // Verifica se o usuário possui a role ADMIN
-        var isAdmin = user.get()
-                .getRoles()
-                .stream()
-                .anyMatch(role ->
-                        role.getName().equalsIgnoreCase(
-                                Role.Values.ADMIN.name()
-                        )
-                );
+        // Verifica se o usuário possui a role ADMIN (calculado uma vez por valor da claim scope)
+        var isAdmin = token.isAdmin();
 
-        // Permite deletar o tweet se:
+        // Apaga o tweet se:
         // 1) O usuário for ADMIN
         // OU
         // 2) O tweet pertencer ao próprio usuário logado
-        if (isAdmin ||
-                tweet.getUser()
-                        .getUserID()
-                        .equals(UUID.fromString(token.getName()))
-        ) {
-
-            // Remove o tweet do banco
-            tweetRepository.deleteById(tweetId);
+        // O evento de invalidação só é gravado se o tweet foi apagado (mesma transação)
+        int updated = writeTransaction.execute(status -> {
+            int rows = tweetRepository.softDelete(
+                    tweetId,
+                    token.userId(),
+                    isAdmin
+            );
+            if (rows > 0) {
+                outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+                outbox.append(InvalidationOutbox.TWEETS, tweetId.toString());
+            }
+            return rows;
+        });
+
+        if (updated == 0) {
+
+            // Nada foi apagado: o tweet pertence a outro usuário (403, Forbidden)
+            if (tweetRepository.existsByTweetIdAndDeletedFalse(tweetId)) {
+                return ResponseEntity
+                        .status(HttpStatus.FORBIDDEN)
+                        .build();
+            }
+
+            // Não está no banco: pode estar no arquivo morto; senão não existe (404)
+            var archived = archive.findByIds(List.of(tweetId)).get(tweetId);
+            if (archived == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }
+            if (!isAdmin && !archived.userId().equals(token.userId())) {
+                return ResponseEntity
+                        .status(HttpStatus.FORBIDDEN)
+                        .build();
+            }
+
+            // O segmento é imutável: o tweet ganha um tombstone do arquivo
+            writeTransaction.executeWithoutResult(status -> {
+                archive.recordDeleted(List.of(tweetId));
+                outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+            });
+            archive.tombstone(List.of(tweetId));
+        }
 
-        } else {
+        // Esconde o tweet da busca e do replay do stream até ele ser expurgado
+        searchIndex.tombstone(tweetId);
+        journal.deleted(tweetId);
+        tweetBroadcaster.forget(tweetId);
 
-            // Caso o usuário não tenha permissão,
-            // retorna HTTP 403 (Forbidden)
-            return ResponseEntity
-                    .status(HttpStatus.FORBIDDEN)
-                    .build();
-        }
+        // O feed mudou: invalida os ETags emitidos até agora
+        feedVersion.bump();
 
         // Se tudo deu certo, retorna HTTP 200
         return ResponseEntity.ok().build();
@@ -4,6 +4,9 @@ package com.loop.springsecurity.controller;
 // DTO usado para receber os dados necessários para criar um novo usuário
 import com.loop.springsecurity.controller.dto.CreateUserDto;
 
+// DTO com o resultado da importação em massa
+import com.loop.springsecurity.controller.dto.ImportReportDto;
+
 // Entidade Role, que representa as permissões do sistema
 import com.loop.springsecurity.entities.Role;
 
@@ -16,6 +19,22 @@ import com.loop.springsecurity.repository.RoleRepository;
 // Repositório responsável por acessar os usuários no banco
 import com.loop.springsecurity.repository.UserRepository;
 
+// Serviço de importação em massa de usuários
+import com.loop.springsecurity.service.UserImportService;
+
+// Respostas guardadas por Idempotency-Key (repetições do cliente)
+import com.loop.springsecurity.service.IdempotencyStore;
+
+// Eventos de invalidação de cache para as outras instâncias (outbox)
+import com.loop.springsecurity.service.InvalidationOutbox;
+
+// Bulkheads do acesso ao banco (o cadastro usa o de autenticação)
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+
+// Requisição HTTP (endereço do cliente)
+import jakarta.servlet.http.HttpServletRequest;
+
 // Enum que contém os códigos HTTP (201, 422, 500, etc)
 import org.springframework.http.HttpStatus;
 
@@ -25,18 +44,30 @@ import org.springframework.http.ResponseEntity;
 // Anotação usada para restringir acesso a métodos com base em permissões
 import org.springframework.security.access.prepost.PreAuthorize;
 
-// Encoder que usa BCrypt para criptografar senhas
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+// Encoder usado para criptografar senhas (BCrypt com custo calibrado, ver PasswordHashingConfig)
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Tipos de conteúdo (text/csv, application/x-ndjson)
+import org.springframework.http.MediaType;
+
+// Controle de transação do Spring
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 // Anotações do Spring para mapear endpoints REST
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
 // Exceção usada para retornar erros HTTP automaticamente
 import org.springframework.web.server.ResponseStatusException;
 
+// Stream do corpo da requisição
+import java.io.IOException;
+import java.io.InputStream;
+
 // Estruturas de dados usadas para listas e conjuntos
 import java.util.List;
 import java.util.Set;
@@ -52,48 +83,101 @@ public class UserController {
     private final RoleRepository roleRepository;
 
     // Encoder responsável por criptografar a senha do usuário
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
+
+    // Serviço de importação em massa
+    private final UserImportService userImportService;
+
+    // Respostas do POST /users guardadas por Idempotency-Key
+    private final IdempotencyStore idempotencyStore;
+
+    // Outbox: avisa as outras instâncias que um usuário mudou (na mesma transação)
+    private final InvalidationOutbox outbox;
+
+    // Transação que grava o usuário e o evento do outbox juntos
+    private final TransactionTemplate transactionTemplate;
+
+    // Limite de acessos simultâneos ao banco (apenas as consultas, não o BCrypt)
+    private final ConcurrencyLimits concurrencyLimits;
 
     // Construtor onde o Spring injeta automaticamente as dependências
     public UserController(
             UserRepository userRepository,
             RoleRepository roleRepository,
-            BCryptPasswordEncoder passwordEncoder
+            PasswordEncoder passwordEncoder,
+            UserImportService userImportService,
+            IdempotencyStore idempotencyStore,
+            InvalidationOutbox outbox,
+            TransactionTemplate transactionTemplate,
+            ConcurrencyLimits concurrencyLimits
     ) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userImportService = userImportService;
+        this.idempotencyStore = idempotencyStore;
+        this.outbox = outbox;
+        this.transactionTemplate = transactionTemplate;
+        this.concurrencyLimits = concurrencyLimits;
     }
 
     // Endpoint POST /users
     // Responsável por criar um novo usuário
+    // Com o header Idempotency-Key, um reenvio do mesmo POST recebe a resposta
+    // da primeira execução (sem calcular outro hash BCrypt)
     @PostMapping("/users")
     public ResponseEntity<Void> newUser(
 
             // Corpo da requisição contendo username e password
-            @RequestBody CreateUserDto dto
+            @RequestBody CreateUserDto dto,
+
+            // Chave opcional enviada pelo cliente para identificar a tentativa
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+
+            // Requisição HTTP (o cadastro é anônimo: a chave vale por endereço do cliente)
+            HttpServletRequest request
     ) {
 
-        // 1️⃣ Busca a role BASIC no banco de dados
-        // Essa role será atribuída por padrão ao novo usuário
-        Role basicRole = roleRepository
-                .findByName(Role.Values.BASIC.name())
+        // Vários clientes podem ter o mesmo endereço (NAT/proxy): a chave precisa ser um UUID
+        IdempotencyStore.requireUuid(idempotencyKey);
+
+        return idempotencyStore.execute(
+                "POST /users",
+                request.getRemoteAddr(),
+                idempotencyKey,
+                dto,
+                () -> createUser(dto)
+        );
+    }
+
+    // Cria o usuário com a role BASIC
+    // As consultas e a gravação ocupam vaga no bulkhead AUTH; o hash BCrypt fica fora
+    private ResponseEntity<Void> createUser(CreateUserDto dto) {
+
+        Role basicRole = concurrencyLimits.call(Bulkhead.AUTH, () -> {
 
-                // Caso a role não exista, retorna erro 500
-                .orElseThrow(() ->
-                        new ResponseStatusException(
-                                HttpStatus.INTERNAL_SERVER_ERROR,
-                                "Role BASIC não encontrada"
-                        )
-                );
+            // 1️⃣ Busca a role BASIC no banco de dados
+            // Essa role será atribuída por padrão ao novo usuário
+            Role role = roleRepository
+                    .findByName(Role.Values.BASIC.name())
 
-        // Verifica se já existe um usuário com o mesmo username
-        if (userRepository.findByUsername(dto.username()).isPresent()) {
+                    // Caso a role não exista, retorna erro 500
+                    .orElseThrow(() ->
+                            new ResponseStatusException(
+                                    HttpStatus.INTERNAL_SERVER_ERROR,
+                                    "Role BASIC não encontrada"
+                            )
+                    );
 
-            // Se existir, retorna HTTP 422 (Unprocessable Entity)
-            // Indica que os dados enviados são inválidos para criação
-            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
-        }
+            // Verifica se já existe um usuário com o mesmo username
+            if (userRepository.findByUsername(dto.username()).isPresent()) {
+
+                // Se existir, retorna HTTP 422 (Unprocessable Entity)
+                // Indica que os dados enviados são inválidos para criação
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            return role;
+        });
 
         // Cria a entidade User
         User user = new User();
@@ -109,8 +193,13 @@ public class UserController {
         // Define a role padrão do usuário como BASIC
         user.setRoles(Set.of(basicRole));
 
-        // Salva o usuário no banco de dados
-        userRepository.save(user);
+        // Salva o usuário no banco de dados junto com o evento de invalidação
+        // (o hash BCrypt acima fica fora da transação)
+        concurrencyLimits.call(Bulkhead.AUTH, () -> transactionTemplate.execute(status -> {
+            userRepository.save(user);
+            outbox.append(InvalidationOutbox.USERS, user.getUsername());
+            return user;
+        }));
 
         // Retorna HTTP 201 (Created) sem corpo
         return ResponseEntity
@@ -118,6 +207,32 @@ public class UserController {
                 .build();
     }
 
+    // Endpoint POST /users/import
+    // Importação em massa de usuários (apenas ADMIN)
+    // Aceita NDJSON ({"username": "...", "password": "..."} por linha) ou CSV (username,password)
+    // O corpo é lido como stream: arquivos grandes não são carregados inteiros em memória
+    @PostMapping(
+            value = "/users/import",
+            consumes = {"application/x-ndjson", "text/csv"}
+    )
+    @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+    public ResponseEntity<ImportReportDto> importUsers(
+
+            // Content-Type define o formato do arquivo
+            @RequestHeader("Content-Type") String contentType,
+
+            // Corpo da requisição, lido sob demanda
+            InputStream body
+    ) throws IOException {
+
+        var format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? UserImportService.Format.CSV
+                : UserImportService.Format.NDJSON;
+
+        // Linhas com erro são reportadas sem abortar a importação
+        return ResponseEntity.ok(userImportService.importUsers(body, format));
+    }
+
     // Endpoint GET /users
     // Retorna a lista de todos os usuários
     @GetMapping("/users")
@@ -125,6 +240,9 @@ public class UserController {
     // Restringe o acesso apenas a usuários com autoridade ADMIN
     // "SCOPE_ADMIN" vem da claim "scope" presente no JWT
     @PreAuthorize("hasAuthority('SCOPE_ADMIN')")
+
+    // Somente leitura (pode ir para a réplica)
+    @Transactional(readOnly = true)
     public ResponseEntity<List<User>> listUsers() {
 
         // Busca todos os usuários no banco
@@ -13,6 +13,9 @@ public record FeedItemDto(
 
         // Nome do usuário que criou o tweet
         // Esse valor normalmente vem de tweet.getUser().getUsername()
-        String usernas
+        String usernas,
+
+        // Quantidade de likes (gravados no banco + pendentes em memória)
+        long likes
 ) {
 }
@@ -0,0 +1,16 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// DTO (Data Transfer Object) que representa uma linha rejeitada na importação de usuários
+public record ImportErrorDto(
+
+        // Número da linha no arquivo enviado (começa em 1)
+        long line,
+
+        // Username da linha (quando foi possível ler)
+        String username,
+
+        // Motivo da rejeição
+        String reason
+) {
+}
@@ -0,0 +1,22 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO (Data Transfer Object) que representa o resultado da importação de usuários
+public record ImportReportDto(
+
+        // Total de linhas lidas
+        long processed,
+
+        // Usuários criados
+        long imported,
+
+        // Linhas rejeitadas
+        long failed,
+
+        // Detalhe das linhas rejeitadas (limitado, para não crescer sem controle)
+        List<ImportErrorDto> errors
+) {
+}
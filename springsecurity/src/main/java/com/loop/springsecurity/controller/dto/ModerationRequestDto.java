@@ -0,0 +1,13 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO (Data Transfer Object) com os tweets a apagar na moderação em massa
+public record ModerationRequestDto(
+
+        // IDs dos tweets
+        List<Long> tweetIds
+) {
+}
@@ -0,0 +1,13 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// DTO (Data Transfer Object) que representa o resultado da moderação em massa
+public record ModerationResultDto(
+
+        // IDs recebidos
+        int requested,
+
+        // Tweets efetivamente apagados (os que não existem ou já estavam apagados não contam)
+        int deleted
+) {
+}
@@ -0,0 +1,18 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO (Data Transfer Object) que representa a resposta da busca de tweets
+// Os itens vêm do mais recente para o mais antigo
+public record SearchResultDto(
+
+        // Tweets encontrados nesta página
+        List<FeedItemDto> items,
+
+        // Cursor da próxima página (enviar em ?cursor=)
+        // null quando não há mais resultados
+        Long nextCursor
+) {
+}
@@ -0,0 +1,19 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO (Data Transfer Object) que representa uma página da timeline de um usuário
+// Paginação por cursor: não existe total de páginas nem total de elementos
+// (isso exigiria uma contagem, cujo custo cresce com a quantidade de tweets)
+public record TimelineDto(
+
+        // Tweets desta página, do mais recente para o mais antigo
+        List<TimelineItemDto> items,
+
+        // Cursor da próxima página (enviar em ?cursor=)
+        // null quando não há mais tweets
+        String nextCursor
+) {
+}
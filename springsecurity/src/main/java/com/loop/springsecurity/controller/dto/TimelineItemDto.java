@@ -0,0 +1,20 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// DTO (Data Transfer Object) que representa um tweet na timeline de um usuário
+// O autor não é repetido em cada item: é o próprio usuário da timeline
+public record TimelineItemDto(
+
+        // Identificador único do tweet
+        long tweetId,
+
+        // Conteúdo textual do tweet
+        String content,
+
+        // Data de criação do tweet
+        Instant creationTimestamp
+) {
+}
@@ -0,0 +1,20 @@
+// Define o pacote onde este DTO está localizado
+package com.loop.springsecurity.controller.dto;
+
+// Trend calculado pelo serviço de trending
+import com.loop.springsecurity.service.TrendingTags;
+
+// Estrutura de dados usada para armazenar listas
+import java.util.List;
+
+// DTO (Data Transfer Object) que representa a resposta do endpoint /trends
+public record TrendsDto(
+
+        // Janela consultada (5m, 1h ou 1d)
+        String window,
+
+        // Tags mais frequentes na janela, da mais para a menos frequente
+        // A contagem é aproximada (count-min sketch), nunca menor que a real
+        List<TrendingTags.Trend> trends
+) {
+}
@@ -0,0 +1,42 @@
+// Define o pacote onde esta entidade está localizada
+package com.loop.springsecurity.entities;
+
+// Importações do Jakarta Persistence (JPA)
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Anotações do Lombok para gerar automaticamente getters e setters
+import lombok.Getter;
+import lombok.Setter;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// Marca esta classe como uma entidade JPA
+// Cada linha marca um tweet do arquivo morto como apagado (os segmentos são imutáveis).
+// As instâncias carregam a tabela inteira em memória (TweetArchive) e escondem esses
+// tweets do feed, da timeline e da busca.
+// As linhas são gravadas e lidas via JDBC; a entidade existe para o DDL.
+@Entity
+
+// Define explicitamente o nome da tabela no banco de dados
+@Table(name = "tb_archive_tombstones")
+
+// Lombok: gera automaticamente os getters
+@Getter
+
+// Lombok: gera automaticamente os setters
+@Setter
+public class ArchiveTombstone {
+
+    // Id do tweet arquivado que foi apagado
+    @Id
+    @Column(name = "tweet_id")
+    private Long tweetId;
+
+    // Momento em que o tweet foi apagado
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
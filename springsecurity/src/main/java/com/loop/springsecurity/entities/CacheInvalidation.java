@@ -0,0 +1,55 @@
+// Define o pacote onde esta entidade está localizada
+package com.loop.springsecurity.entities;
+
+// Importações do Jakarta Persistence (JPA)
+import jakarta.persistence.*;
+
+// Anotações do Lombok para gerar automaticamente getters e setters
+import lombok.Getter;
+import lombok.Setter;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// Marca esta classe como uma entidade JPA
+// Cada linha é um evento de invalidação de cache (outbox), gravado na mesma
+// transação da escrita que o originou. As instâncias leem a tabela pelo id
+// (InvalidationOutbox) e descartam as entradas correspondentes dos seus caches.
+// As linhas são gravadas e lidas via JDBC; a entidade existe para o DDL.
+@Entity
+
+// Define explicitamente o nome da tabela no banco de dados
+// O índice por data é usado apenas na limpeza dos eventos antigos
+@Table(
+        name = "tb_cache_invalidations",
+        indexes = @Index(name = "idx_cache_invalidations_created", columnList = "created_at")
+)
+
+// Lombok: gera automaticamente os getters
+@Getter
+
+// Lombok: gera automaticamente os setters
+@Setter
+public class CacheInvalidation {
+
+    // Id crescente: as instâncias leem "id > último id lido" (chave primária)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Cache afetado (ex: feed, users, roles)
+    @Column(name = "cache_name", nullable = false, length = 64)
+    private String cacheName;
+
+    // Entrada afetada ("*" = o cache inteiro)
+    @Column(name = "cache_key", nullable = false)
+    private String cacheKey;
+
+    // Instância que gravou o evento (ela mesma já atualizou os seus caches)
+    @Column(nullable = false, length = 64)
+    private String origin;
+
+    // Momento do evento, no relógio do banco (usado para medir o atraso de propagação)
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
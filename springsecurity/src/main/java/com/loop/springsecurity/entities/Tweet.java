@@ -9,6 +9,9 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+// Anotação do Hibernate que define o valor padrão da coluna no DDL
+import org.hibernate.annotations.ColumnDefault;
+
 // Anotação do Hibernate que preenche automaticamente a data de criação
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -20,7 +23,24 @@ import java.time.Instant;
 @Entity
 
 // Define explicitamente o nome da tabela no banco de dados
-@Table(name = "tb_tweets")
+// Índices (ambos começam pelo tombstone "deleted", então tweets apagados
+// que ainda não foram expurgados não são lidos pelas consultas do feed):
+// - timeline por usuário (/users/{id}/tweets): filtra por user_id e já entrega
+//   os tweets na ordem de leitura (keyset)
+// - feed (/feed): tweets não apagados, mais recentes primeiro
+@Table(
+        name = "tb_tweets",
+        indexes = {
+                @Index(
+                        name = "idx_tweets_user_created",
+                        columnList = "user_id, deleted, creation_timestamp, tweet_id"
+                ),
+                @Index(
+                        name = "idx_tweets_deleted_created",
+                        columnList = "deleted, creation_timestamp"
+                )
+        }
+)
 
 // Lombok: gera automaticamente os getters
 @Getter
@@ -56,4 +76,18 @@ public class Tweet {
     // Não precisa ser definido manualmente no código
     @CreationTimestamp
     private Instant creationTimestamp;
+
+    // Quantidade de likes já gravada no banco
+    // Atualizada apenas pelo flush em lote do LikeCounter; os likes ainda
+    // pendentes em memória são somados na leitura (LikeCounter.count)
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long likes;
+
+    // Tombstone: o tweet foi apagado, mas a linha ainda não foi expurgada
+    // O DELETE /tweets/{id} apenas marca este campo (um único update);
+    // o TweetPurger remove as linhas marcadas em lotes pequenos, em segundo plano
+    @ColumnDefault("false")
+    @Column(nullable = false)
+    private boolean deleted;
 }
@@ -0,0 +1,32 @@
+// Define o pacote onde esta entidade está localizada
+package com.loop.springsecurity.entities;
+
+// Importações do Jakarta Persistence (JPA)
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+// Anotações do Lombok para gerar automaticamente getters e setters
+import lombok.Getter;
+import lombok.Setter;
+
+// Marca esta classe como uma entidade JPA
+// Cada linha registra que um usuário curtiu um tweet
+// As linhas são gravadas em lote pelo LikeCounter (insert ignore),
+// nunca uma a uma pelo controller
+@Entity
+
+// Define explicitamente o nome da tabela no banco de dados
+@Table(name = "tb_tweet_likes")
+
+// Lombok: gera automaticamente os getters
+@Getter
+
+// Lombok: gera automaticamente os setters
+@Setter
+public class TweetLike {
+
+    // Chave composta (tweet_id, user_id)
+    @EmbeddedId
+    private TweetLikeId id;
+}
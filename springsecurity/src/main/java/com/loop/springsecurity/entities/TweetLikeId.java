@@ -0,0 +1,38 @@
+// Define o pacote onde esta classe está localizada
+package com.loop.springsecurity.entities;
+
+// Importações do Jakarta Persistence (JPA)
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+// Anotações do Lombok
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Interface exigida pelo JPA para chaves compostas
+import java.io.Serializable;
+
+// Classe usada para representar identificadores no formato UUID
+import java.util.UUID;
+
+// Chave composta de um like: (tweet, usuário)
+// Garante no banco que cada usuário curte um tweet no máximo uma vez
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class TweetLikeId implements Serializable {
+
+    // Tweet curtido
+    @Column(name = "tweet_id")
+    private Long tweetId;
+
+    // Usuário que curtiu
+    @Column(name = "user_id")
+    private UUID userId;
+}
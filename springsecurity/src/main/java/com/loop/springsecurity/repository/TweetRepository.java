@@ -8,19 +8,38 @@ import com.loop.springsecurity.entities.Tweet;
 // Interface do Spring Data que representa resultados paginados
 import org.springframework.data.domain.Page;
 
+// Interface do Spring Data que representa uma requisição de paginação
+import org.springframework.data.domain.Pageable;
+
 // Interface base do Spring Data JPA
 // Fornece automaticamente operações CRUD
 import org.springframework.data.jpa.repository.JpaRepository;
 
+// Anotações para declarar consultas JPQL e seus parâmetros
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 // Anotação que indica que esta interface é um repositório Spring
 import org.springframework.stereotype.Repository;
 
+// Controle de transação do Spring
+import org.springframework.transaction.annotation.Transactional;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// Estrutura de dados usada para listas
+import java.util.List;
+
+// Classe usada para representar identificadores no formato UUID
+import java.util.UUID;
+
 // Marca esta interface como um repositório
 @Repository
 public interface TweetRepository extends JpaRepository<Tweet, Long> {
 
-    // Nenhum método customizado é definido aqui
-    // Todos os métodos básicos já são fornecidos pelo JpaRepository, como:
+    // Os métodos básicos já são fornecidos pelo JpaRepository, como:
     // - save(Tweet tweet)
     // - findById(Long id)
     // - findAll()
@@ -28,4 +47,151 @@ public interface TweetRepository extends JpaRepository<Tweet, Long> {
     // - deleteById(Long id)
     // - delete(Tweet tweet)
 
+    // Página do feed: tweets não apagados (usa o índice deleted, creation_timestamp)
+    Page<Tweet> findByDeletedFalse(Pageable pageable);
+
+    // Indica se o tweet existe e não foi apagado
+    boolean existsByTweetIdAndDeletedFalse(Long tweetId);
+
+    // Busca os (no máximo) 100 tweets com id maior que o informado, em ordem crescente
+    // Usado para retomar o stream de tweets (/feed/stream) a partir do último id recebido
+    List<Tweet> findTop100ByTweetIdGreaterThanAndDeletedFalseOrderByTweetIdAsc(Long tweetId);
+
+    // Apaga (tombstone) um tweet em um único update, já conferindo a permissão:
+    // o tweet precisa pertencer ao usuário, a menos que ele seja ADMIN
+    // Retorna 0 se o tweet não existe, já foi apagado ou pertence a outro usuário
+    @Modifying
+    @Transactional
+    @Query("""
+            update Tweet t set t.deleted = true
+            where t.tweetId = :tweetId
+              and t.deleted = false
+              and (t.user.userID = :userId or :admin = true)
+            """)
+    int softDelete(
+            @Param("tweetId") Long tweetId,
+            @Param("userId") UUID userId,
+            @Param("admin") boolean admin
+    );
+
+    // Tweets mais antigos que o corte, do mais velho para o mais novo (arquivamento)
+    // O autor vem junto (join fetch): o arquivo guarda o username
+    @Query("""
+            select t from Tweet t join fetch t.user
+            where t.deleted = false
+              and t.creationTimestamp < :cutoff
+            order by t.creationTimestamp asc, t.tweetId asc
+            """)
+    List<Tweet> findArchivable(@Param("cutoff") Instant cutoff, Pageable pageable);
+
+    // Ids dos tweets que já estão no arquivo (chave até a informada)
+    // Usado para terminar um arquivamento interrompido entre a escrita do segmento e o delete
+    // O filtro por deleted usa o índice (deleted, creation_timestamp); os apagados
+    // ficam para o TweetPurger (que também os tira do índice de busca e do journal)
+    @Query("""
+            select t.tweetId from Tweet t
+            where t.deleted = :deleted
+              and (t.creationTimestamp < :timestamp
+                   or (t.creationTimestamp = :timestamp and t.tweetId <= :tweetId))
+            """)
+    List<Long> findArchivedIds(
+            @Param("deleted") boolean deleted,
+            @Param("timestamp") Instant timestamp,
+            @Param("tweetId") Long tweetId,
+            Pageable pageable
+    );
+
+    // Dentre os ids informados, os que existem e ainda não foram apagados
+    // Usado pela moderação para registrar (busca, journal, outbox) só os tweets que mudaram
+    @Query("select t.tweetId from Tweet t where t.tweetId in :tweetIds and t.deleted = false")
+    List<Long> findLiveIds(@Param("tweetIds") List<Long> tweetIds);
+
+    // Moderação em massa: apaga (tombstone) vários tweets em um único update
+    @Modifying
+    @Transactional
+    @Query("update Tweet t set t.deleted = true where t.tweetId in :tweetIds and t.deleted = false")
+    int softDeleteAll(@Param("tweetIds") List<Long> tweetIds);
+
+    // Busca id e conteúdo dos tweets com id maior que o informado, em ordem crescente
+    // Paginação por chave (keyset): cada lote continua a partir do último id lido,
+    // sem OFFSET e sem query de contagem. Usado para reconstruir o índice de busca.
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetText(t.tweetId, t.content)
+            from Tweet t
+            where t.tweetId > :afterId
+              and t.deleted = false
+            order by t.tweetId asc
+            """)
+    List<TweetText> findTextAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Tweets criados a partir de um instante, em ordem de (creation_timestamp, tweet_id)
+    // Keyset: cada lote continua depois do último (timestamp, id) lido
+    // Usado para conciliar o índice de busca com o banco a partir da marca do snapshot;
+    // o filtro usa o índice (deleted, creation_timestamp)
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetSummary(t.tweetId, t.content, t.creationTimestamp)
+            from Tweet t
+            where t.deleted = false
+              and (t.creationTimestamp > :timestamp
+                   or (t.creationTimestamp = :timestamp and t.tweetId > :tweetId))
+            order by t.creationTimestamp asc, t.tweetId asc
+            """)
+    List<TweetSummary> findTextCreatedAfter(
+            @Param("timestamp") Instant timestamp,
+            @Param("tweetId") Long tweetId,
+            Pageable pageable
+    );
+
+    // Tweets apagados (tombstone) ainda não expurgados, em ordem de id (keyset)
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetText(t.tweetId, t.content)
+            from Tweet t
+            where t.deleted = true
+              and t.tweetId > :afterId
+            order by t.tweetId asc
+            """)
+    List<TweetText> findDeletedText(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Id e conteúdo dos tweets informados, apagados ou não
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetText(t.tweetId, t.content)
+            from Tweet t
+            where t.tweetId in :tweetIds
+            """)
+    List<TweetText> findText(@Param("tweetIds") List<Long> tweetIds);
+
+    // Dentre os ids informados, os que ainda têm linha no tb_tweets (apagados ou não)
+    @Query("select t.tweetId from Tweet t where t.tweetId in :tweetIds")
+    List<Long> findExistingIds(@Param("tweetIds") List<Long> tweetIds);
+
+    // Primeira página da timeline de um usuário (mais recentes primeiro)
+    // Usa o índice (user_id, creation_timestamp, tweet_id): o custo depende apenas
+    // do tamanho da página, não da quantidade de tweets do usuário
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetSummary(t.tweetId, t.content, t.creationTimestamp)
+            from Tweet t
+            where t.user.userID = :userId
+              and t.deleted = false
+            order by t.creationTimestamp desc, t.tweetId desc
+            """)
+    List<TweetSummary> findTimeline(@Param("userId") UUID userId, Pageable pageable);
+
+    // Próximas páginas da timeline (keyset): continua logo depois do último tweet lido,
+    // sem OFFSET, comparando (creation_timestamp, tweet_id) com o cursor
+    @Query("""
+            select new com.loop.springsecurity.repository.TweetSummary(t.tweetId, t.content, t.creationTimestamp)
+            from Tweet t
+            where t.user.userID = :userId
+              and t.deleted = false
+              and (t.creationTimestamp < :timestamp
+                   or (t.creationTimestamp = :timestamp and t.tweetId < :tweetId))
+            order by t.creationTimestamp desc, t.tweetId desc
+            """)
+    List<TweetSummary> findTimelineBefore(
+            @Param("userId") UUID userId,
+            @Param("timestamp") Instant timestamp,
+            @Param("tweetId") Long tweetId,
+            Pageable pageable
+    );
+
 }
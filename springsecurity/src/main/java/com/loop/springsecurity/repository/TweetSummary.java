@@ -0,0 +1,20 @@
+// Define o pacote onde esta projeção está localizada
+package com.loop.springsecurity.repository;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// Projeção enxuta de um tweet para a timeline de um usuário
+// Lê apenas as colunas necessárias, sem carregar a entidade User
+public record TweetSummary(
+
+        // Identificador do tweet
+        Long tweetId,
+
+        // Conteúdo textual do tweet
+        String content,
+
+        // Data de criação do tweet
+        Instant creationTimestamp
+) {
+}
@@ -0,0 +1,14 @@
+// Define o pacote onde esta projeção está localizada
+package com.loop.springsecurity.repository;
+
+// Projeção enxuta de um tweet: apenas id e conteúdo
+// Usada para (re)construir o índice de busca sem carregar o usuário de cada tweet
+public record TweetText(
+
+        // Identificador do tweet
+        Long tweetId,
+
+        // Conteúdo textual do tweet
+        String content
+) {
+}
@@ -9,9 +9,17 @@ import com.loop.springsecurity.entities.User;
 // Fornece automaticamente métodos CRUD
 import org.springframework.data.jpa.repository.JpaRepository;
 
+// Anotações para declarar consultas de escrita
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 // Anotação que indica que esta interface é um repositório Spring
 import org.springframework.stereotype.Repository;
 
+// Controle de transação do Spring
+import org.springframework.transaction.annotation.Transactional;
+
 // Classe usada para representar valores que podem ou não existir
 import java.util.Optional;
 
@@ -28,4 +36,15 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     // Busca um usuário pelo campo "username"
     // Retorna Optional para evitar NullPointerException
     Optional<User> findByUsername(String username);
+
+    // Verifica apenas a existência do username
+    // Gera um "select ... limit 1" sem carregar a entidade nem as roles
+    boolean existsByUsername(String username);
+
+    // Atualiza apenas o hash da senha de um usuário
+    // Transação de escrita curta (no primário); o login chama fora de qualquer transação
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password where u.userID = :userId")
+    int updatePassword(@Param("userId") UUID userId, @Param("password") String password);
 }
@@ -0,0 +1,114 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Contador atômico (thread-safe, sem lock)
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limitador de concorrência adaptativo (algoritmo de gradiente, no estilo Vegas)
+// O limite de requisições simultâneas acompanha a latência observada:
+// - latência recente ~ latência sem carga: não há fila, o limite cresce
+// - latência recente >> latência sem carga: o banco está enfileirando, o limite diminui
+// Requisições acima do limite são recusadas na hora, em vez de esperar
+// na fila do pool de conexões até estourar o timeout.
+public class AdaptiveConcurrencyLimiter {
+
+    // Peso de cada nova amostra na média de latência recente
+    private static final double RTT_WEIGHT = 0.1;
+
+    // Quanto a latência recente pode subir acima da latência sem carga antes de reduzir o limite
+    private static final double TOLERANCE = 1.5;
+
+    // Quanto o limite muda a cada amostra
+    private static final double SMOOTHING = 0.2;
+
+    // A cada quantas amostras a latência sem carga é medida de novo
+    // (acompanha mudanças reais, como um banco maior ou um índice novo)
+    private static final int PROBE_INTERVAL = 5000;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+
+    // Requisições em andamento
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Limite atual
+    private volatile double limit;
+
+    // Latência recente (média móvel) e latência sem carga (mínima observada), em nanos
+    private double rtt;
+    private double noLoadRtt;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    // Tenta reservar uma vaga; retorna false se o limite foi atingido
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Libera a vaga e registra a latência da requisição
+    public void release(long rttNanos) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        sample(rttNanos, inFlightAtEnd);
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtEnd) {
+
+        // Nova medição da latência sem carga: o limite cai pela metade por um
+        // instante para que a fila esvazie e a mínima seja medida sem espera
+        if (++samples % PROBE_INTERVAL == 0) {
+            noLoadRtt = 0;
+            limit = Math.max(minLimit, limit / 2);
+        }
+
+        rtt = rtt == 0 ? rttNanos : rtt + (rttNanos - rtt) * RTT_WEIGHT;
+        if (noLoadRtt == 0 || rttNanos < noLoadRtt) {
+            noLoadRtt = rttNanos;
+        }
+
+        double current = limit;
+
+        // Pouca carga e sem fila: não há informação para aumentar o limite
+        if (inFlightAtEnd < current / 2 && rtt <= noLoadRtt * TOLERANCE) {
+            return;
+        }
+
+        // Gradiente: 1.0 enquanto a latência está dentro da tolerância;
+        // cai (até 0.5) conforme a fila no banco aumenta a latência
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * noLoadRtt / rtt));
+
+        // Folga que permite crescer quando não há fila
+        double queueSize = current < 16 ? 1 : Math.sqrt(current);
+
+        double newLimit = current * gradient + queueSize;
+        newLimit = current * (1 - SMOOTHING) + newLimit * SMOOTHING;
+
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,374 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Utilitários de IO
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Utilitários
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+// Compressão (deflate)
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Um arquivo de segmento do arquivo morto (imutável depois de escrito)
+//
+// Formato:
+//   [magic][versão]
+//   bloco 0 (deflate) ... bloco N (deflate)
+//   índice esparso: uma entrada por bloco
+//   [quantidade de blocos][posição do índice][magic]
+//
+// Cada bloco guarda até BLOCK_SIZE tweets em ordem crescente de (creationTimestamp, tweetId).
+// O índice esparso (pequeno, fica no heap) guarda para cada bloco: posição, tamanhos,
+// quantidade de tweets, menor/maior id, primeira/última chave e um filtro de Bloom
+// dos autores. Assim as leituras pulam blocos inteiros sem descomprimir.
+// O filtro de Bloom tem ~10 bits por autor distinto do bloco e 7 funções de hash
+// (~1% de falsos positivos).
+// O arquivo é lido via MappedByteBuffer: o sistema operacional cuida do cache das páginas.
+final class ArchiveSegment {
+
+    // Identifica o formato do arquivo ("TWAR")
+    private static final int MAGIC = 0x54574152;
+    private static final int VERSION = 2;
+
+    // Tweets por bloco comprimido
+    static final int BLOCK_SIZE = 256;
+
+    // Filtro de Bloom de autores: bits por autor distinto e quantidade de hashes
+    // (k = 0,69 * bits por autor minimiza os falsos positivos)
+    private static final int BLOOM_BITS_PER_AUTHOR = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    private final Path path;
+    private final MappedByteBuffer data;
+
+    // Índice esparso (uma posição por bloco)
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final int[] counts;
+    private final long[] minIds;
+    private final long[] maxIds;
+    private final Instant[] firstTimestamps;
+    private final long[] firstTweetIds;
+    private final Instant[] lastTimestamps;
+    private final long[] lastTweetIds;
+    private final long[][] authorBlooms;
+
+    private final long size;
+
+    private ArchiveSegment(Path path, MappedByteBuffer data, int blockCount) {
+        this.path = path;
+        this.data = data;
+        this.offsets = new long[blockCount];
+        this.compressedLengths = new int[blockCount];
+        this.rawLengths = new int[blockCount];
+        this.counts = new int[blockCount];
+        this.minIds = new long[blockCount];
+        this.maxIds = new long[blockCount];
+        this.firstTimestamps = new Instant[blockCount];
+        this.firstTweetIds = new long[blockCount];
+        this.lastTimestamps = new Instant[blockCount];
+        this.lastTweetIds = new long[blockCount];
+        this.authorBlooms = new long[blockCount][];
+
+        long total = 0;
+        long indexOffset = data.getLong(data.limit() - 12);
+        var index = data.slice((int) indexOffset, data.limit() - 16 - (int) indexOffset);
+        for (int i = 0; i < blockCount; i++) {
+            offsets[i] = index.getLong();
+            compressedLengths[i] = index.getInt();
+            rawLengths[i] = index.getInt();
+            counts[i] = index.getInt();
+            minIds[i] = index.getLong();
+            maxIds[i] = index.getLong();
+            firstTimestamps[i] = Instant.ofEpochSecond(index.getLong(), index.getInt());
+            firstTweetIds[i] = index.getLong();
+            lastTimestamps[i] = Instant.ofEpochSecond(index.getLong(), index.getInt());
+            lastTweetIds[i] = index.getLong();
+            authorBlooms[i] = new long[index.getInt()];
+            for (int w = 0; w < authorBlooms[i].length; w++) {
+                authorBlooms[i][w] = index.getLong();
+            }
+            total += counts[i];
+        }
+        this.size = total;
+    }
+
+    // Escreve um novo segmento (os tweets devem estar em ordem crescente de chave)
+    static void write(Path path, List<ArchivedTweet> tweets) throws IOException {
+        try (var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+
+            var header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION).flip();
+            long position = writeFully(channel, header);
+
+            var deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            var index = new ArrayList<ByteBuffer>();
+            try {
+                for (int start = 0; start < tweets.size(); start += BLOCK_SIZE) {
+                    var block = tweets.subList(start, Math.min(tweets.size(), start + BLOCK_SIZE));
+                    byte[] raw = encode(block);
+
+                    deflater.reset();
+                    deflater.setInput(raw);
+                    deflater.finish();
+                    var compressed = ByteBuffer.allocate(raw.length + 64);
+                    while (!deflater.finished()) {
+                        if (!compressed.hasRemaining()) {
+                            compressed = ByteBuffer.allocate(compressed.capacity() * 2)
+                                    .put(compressed.flip());
+                        }
+                        deflater.deflate(compressed);
+                    }
+                    compressed.flip();
+
+                    index.add(indexEntry(block, position, compressed.remaining(), raw.length));
+                    position += writeFully(channel, compressed);
+                }
+            } finally {
+                deflater.end();
+            }
+
+            long indexOffset = position;
+            for (var entry : index) {
+                position += writeFully(channel, entry);
+            }
+
+            var footer = ByteBuffer.allocate(16)
+                    .putInt(index.size())
+                    .putLong(indexOffset)
+                    .putInt(MAGIC)
+                    .flip();
+            writeFully(channel, footer);
+
+            // O segmento só é considerado gravado depois de ir para o disco
+            channel.force(true);
+        }
+    }
+
+    // Abre (mapeia em memória) um segmento existente
+    static ArchiveSegment open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            // O mapeamento continua válido depois que o canal é fechado
+            var data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (data.limit() < 24 || data.getInt(0) != MAGIC || data.getInt(data.limit() - 4) != MAGIC) {
+                throw new IOException("Segmento inválido: " + path);
+            }
+            int version = data.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Versão de segmento desconhecida (" + version + "): " + path);
+            }
+            int blockCount = data.getInt(data.limit() - 16);
+            return new ArchiveSegment(path, data, blockCount);
+        }
+    }
+
+    Path path() {
+        return path;
+    }
+
+    // Tweets no segmento
+    long size() {
+        return size;
+    }
+
+    int blockCount() {
+        return offsets.length;
+    }
+
+    int count(int block) {
+        return counts[block];
+    }
+
+    // O bloco pode conter o id?
+    boolean mayContainId(int block, long tweetId) {
+        return tweetId >= minIds[block] && tweetId <= maxIds[block];
+    }
+
+    // O bloco tem algum tweet anterior à chave (creationTimestamp, tweetId)?
+    boolean startsBefore(int block, Instant timestamp, long tweetId) {
+        return ArchivedTweet.compareKey(firstTimestamps[block], firstTweetIds[block], timestamp, tweetId) < 0;
+    }
+
+    // O bloco pode ter tweets do autor? (filtro de Bloom: falso positivo é possível, falso negativo não)
+    boolean mayContainAuthor(int block, UUID userId) {
+        var bloom = authorBlooms[block];
+        long hash = mix(userId);
+        for (int k = 0; k < BLOOM_HASHES; k++) {
+            int bit = bloomBit(hash, k, bloom.length * 64);
+            if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Última chave do segmento (tweet mais recente)
+    Instant lastTimestamp() {
+        return lastTimestamps[lastTimestamps.length - 1];
+    }
+
+    long lastTweetId() {
+        return lastTweetIds[lastTweetIds.length - 1];
+    }
+
+    // Descomprime um bloco (tweets em ordem crescente de chave)
+    List<ArchivedTweet> block(int block) {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice((int) offsets[block], compressedLengths[block]));
+            byte[] raw = new byte[rawLengths[block]];
+            int read = 0;
+            while (read < raw.length) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != raw.length) {
+                throw new UncheckedIOException(new IOException("Bloco truncado em " + path));
+            }
+            return decode(ByteBuffer.wrap(raw), counts[block]);
+        } catch (DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Bloco corrompido em " + path, e));
+        } finally {
+            inflater.end();
+        }
+    }
+
+    // Serializa os tweets de um bloco
+    private static byte[] encode(List<ArchivedTweet> block) {
+        int capacity = 0;
+        var usernames = new byte[block.size()][];
+        var contents = new byte[block.size()][];
+        for (int i = 0; i < block.size(); i++) {
+            var tweet = block.get(i);
+            usernames[i] = bytes(tweet.username());
+            contents[i] = bytes(tweet.content());
+            capacity += 8 + 16 + 12 + 8 + 4 + usernames[i].length + 4 + contents[i].length;
+        }
+
+        var buffer = ByteBuffer.allocate(capacity);
+        for (int i = 0; i < block.size(); i++) {
+            var tweet = block.get(i);
+            buffer.putLong(tweet.tweetId());
+            buffer.putLong(tweet.userId().getMostSignificantBits());
+            buffer.putLong(tweet.userId().getLeastSignificantBits());
+            buffer.putLong(tweet.creationTimestamp().getEpochSecond());
+            buffer.putInt(tweet.creationTimestamp().getNano());
+            buffer.putLong(tweet.likes());
+            buffer.putInt(usernames[i].length).put(usernames[i]);
+            buffer.putInt(contents[i].length).put(contents[i]);
+        }
+        return buffer.array();
+    }
+
+    // Lê os tweets de um bloco descomprimido
+    private static List<ArchivedTweet> decode(ByteBuffer buffer, int count) {
+        var tweets = new ArrayList<ArchivedTweet>(count);
+        for (int i = 0; i < count; i++) {
+            long tweetId = buffer.getLong();
+            var userId = new UUID(buffer.getLong(), buffer.getLong());
+            var timestamp = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+            long likes = buffer.getLong();
+            var username = string(buffer);
+            var content = string(buffer);
+            tweets.add(new ArchivedTweet(tweetId, userId, username, content, timestamp, likes));
+        }
+        return tweets;
+    }
+
+    // Monta a entrada do índice esparso de um bloco
+    private static ByteBuffer indexEntry(List<ArchivedTweet> block, long offset, int compressedLength, int rawLength) {
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        var authors = new HashSet<UUID>();
+        for (var tweet : block) {
+            minId = Math.min(minId, tweet.tweetId());
+            maxId = Math.max(maxId, tweet.tweetId());
+            authors.add(tweet.userId());
+        }
+
+        // Filtro dimensionado pela quantidade de autores distintos do bloco
+        var bloom = new long[Math.max(1, (authors.size() * BLOOM_BITS_PER_AUTHOR + 63) / 64)];
+        for (var author : authors) {
+            long hash = mix(author);
+            for (int k = 0; k < BLOOM_HASHES; k++) {
+                int bit = bloomBit(hash, k, bloom.length * 64);
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+        var first = block.get(0);
+        var last = block.get(block.size() - 1);
+
+        var entry = ByteBuffer.allocate(8 + 4 + 4 + 4 + 8 + 8 + 12 + 8 + 12 + 8 + 4 + bloom.length * 8)
+                .putLong(offset)
+                .putInt(compressedLength)
+                .putInt(rawLength)
+                .putInt(block.size())
+                .putLong(minId)
+                .putLong(maxId)
+                .putLong(first.creationTimestamp().getEpochSecond())
+                .putInt(first.creationTimestamp().getNano())
+                .putLong(first.tweetId())
+                .putLong(last.creationTimestamp().getEpochSecond())
+                .putInt(last.creationTimestamp().getNano())
+                .putLong(last.tweetId())
+                .putInt(bloom.length);
+        for (long word : bloom) {
+            entry.putLong(word);
+        }
+        return entry.flip();
+    }
+
+    // Posição do k-ésimo hash no filtro (double hashing: h1 + k * h2, Kirsch-Mitzenmacher)
+    private static int bloomBit(long hash, int k, int bits) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Math.floorMod(h1 + k * h2, bits);
+    }
+
+    // Espalha os bits do UUID para o filtro de Bloom
+    private static long mix(UUID userId) {
+        long h = userId.getMostSignificantBits() ^ Long.rotateLeft(userId.getLeastSignificantBits(), 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+}
@@ -0,0 +1,36 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Classe usada para representar data e hora em UTC
+import java.time.Instant;
+
+// Classe usada para representar identificadores no formato UUID
+import java.util.UUID;
+
+// Tweet guardado no arquivo morto (segmentos em disco, fora do MySQL)
+// Carrega tudo o que o feed e a timeline precisam, sem consultar o banco
+public record ArchivedTweet(
+
+        // Identificador do tweet (o mesmo que ele tinha no tb_tweets)
+        long tweetId,
+
+        // Autor
+        UUID userId,
+        String username,
+
+        // Conteúdo textual do tweet
+        String content,
+
+        // Data de criação (ordem do feed e da timeline)
+        Instant creationTimestamp,
+
+        // Likes no momento do arquivamento (o arquivo é somente leitura)
+        long likes
+) {
+
+    // Compara a posição de dois tweets na ordem do feed: (creationTimestamp, tweetId)
+    static int compareKey(Instant timestamp, long tweetId, Instant otherTimestamp, long otherTweetId) {
+        int byTime = timestamp.compareTo(otherTimestamp);
+        return byTime != 0 ? byTime : Long.compare(tweetId, otherTweetId);
+    }
+}
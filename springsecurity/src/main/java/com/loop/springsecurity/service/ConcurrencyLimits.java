@@ -0,0 +1,121 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Códigos e headers HTTP
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Exceção com status e headers HTTP (503 + Retry-After)
+import org.springframework.web.ErrorResponseException;
+
+// Utilitários
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Bulkheads com limite de concorrência adaptativo para o acesso ao banco
+// Cada classe de endpoint (auth, leitura do feed, escrita de tweets, admin) tem
+// seu próprio limitador e seu próprio teto (a fatia do pool de conexões que pode usar).
+// Assim, uma classe sobrecarregada não consome as conexões das outras.
+// Usado pelo ConcurrencyLimitFilter (requisições inteiras) e, no /feed, na busca,
+// no login e no cadastro, apenas em volta do acesso ao banco (304, respostas do cache,
+// a busca no índice e o hash BCrypt não são limitados).
+@Component
+public class ConcurrencyLimits {
+
+    // Classes de endpoint
+    public enum Bulkhead {
+        AUTH,
+        FEED_READ,
+        TWEET_WRITE,
+        ADMIN
+    }
+
+    private final Map<Bulkhead, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Bulkhead.class);
+    private final Map<Bulkhead, Counter> rejected = new EnumMap<>(Bulkhead.class);
+
+    // Desligado (app.limits.enabled=false): nada é recusado, as requisições esperam
+    // na fila do pool de conexões (usado para comparar com o módulo reativo)
+    private final boolean enabled;
+
+    public ConcurrencyLimits(
+            @Value("${app.limits.enabled:true}") boolean enabled,
+            @Value("${app.limits.auth.max:3}") int authMax,
+            @Value("${app.limits.feed-read.max:4}") int feedReadMax,
+            @Value("${app.limits.tweet-write.max:2}") int tweetWriteMax,
+            @Value("${app.limits.admin.max:1}") int adminMax,
+            @Value("${app.limits.min:1}") int minLimit,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        register(Bulkhead.AUTH, authMax, minLimit, meterRegistry);
+        register(Bulkhead.FEED_READ, feedReadMax, minLimit, meterRegistry);
+        register(Bulkhead.TWEET_WRITE, tweetWriteMax, minLimit, meterRegistry);
+        register(Bulkhead.ADMIN, adminMax, minLimit, meterRegistry);
+    }
+
+    // Cria o limitador de um bulkhead e suas métricas
+    private void register(Bulkhead bulkhead, int max, int min, MeterRegistry meterRegistry) {
+        var name = bulkhead.name().toLowerCase().replace('_', '-');
+        var limiter = new AdaptiveConcurrencyLimiter(name, max, min, max);
+        limiters.put(bulkhead, limiter);
+
+        Gauge.builder("concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .tag("bulkhead", name)
+                .register(meterRegistry);
+        rejected.put(bulkhead, Counter.builder("concurrency.rejected")
+                .tag("bulkhead", name)
+                .register(meterRegistry));
+    }
+
+    // Tenta reservar uma vaga no bulkhead; retorna false (e conta a recusa) se o limite foi atingido
+    public boolean tryAcquire(Bulkhead bulkhead) {
+        if (!enabled || limiters.get(bulkhead).tryAcquire()) {
+            return true;
+        }
+        rejected.get(bulkhead).increment();
+        return false;
+    }
+
+    // Libera a vaga e registra a latência do trecho limitado
+    public void release(Bulkhead bulkhead, long rttNanos) {
+        if (enabled) {
+            limiters.get(bulkhead).release(rttNanos);
+        }
+    }
+
+    // Executa o trecho dentro do bulkhead; acima do limite responde 503 na hora (sem fila)
+    public <T> T call(Bulkhead bulkhead, Supplier<T> action) {
+        if (!tryAcquire(bulkhead)) {
+            throw rejection();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            release(bulkhead, System.nanoTime() - start);
+        }
+    }
+
+    // 503 com Retry-After: o cliente pode tentar de novo em seguida
+    private static ErrorResponseException rejection() {
+        var exception = new ErrorResponseException(HttpStatus.SERVICE_UNAVAILABLE);
+        exception.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return exception;
+    }
+}
@@ -0,0 +1,86 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Utilitários para preencher arrays e gerar as sementes
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Count-min sketch: estrutura probabilística que estima a frequência de itens
+// usando memória constante (depth x width contadores), independente de quantos
+// itens distintos existem. A estimativa nunca é menor que o valor real;
+// o erro para cima é limitado por ~ e * total / width com probabilidade 1 - e^-depth.
+// Cada linha usa um hash de 64 bits do texto com semente própria: dois itens que
+// colidem em uma linha (ou no String.hashCode) não colidem por isso nas outras.
+// Não é thread-safe: o acesso é controlado por quem usa.
+final class CountMinSketch {
+
+    // Semente das sementes: fixa, para que as estimativas sejam reproduzíveis
+    private static final long SEED = 0x5EED5EED5EEDL;
+
+    // Multiplicador usado na mistura de cada caractere (razão áurea em 64 bits)
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    private final long[][] counters;
+    private final long[] seeds;
+    private final int mask;
+
+    // width precisa ser potência de 2 (o índice é calculado com máscara)
+    CountMinSketch(int depth, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width deve ser potência de 2");
+        }
+        this.counters = new long[depth][width];
+        this.mask = width - 1;
+
+        var random = new SplittableRandom(SEED);
+        this.seeds = new long[depth];
+        for (int row = 0; row < depth; row++) {
+            seeds[row] = random.nextLong();
+        }
+    }
+
+    // Soma count ao item e devolve a nova estimativa
+    long add(String item, long count) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < counters.length; row++) {
+            int index = index(item, row);
+            counters[row][index] += count;
+            estimate = Math.min(estimate, counters[row][index]);
+        }
+        return estimate;
+    }
+
+    // Frequência estimada do item
+    long estimate(String item) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < counters.length; row++) {
+            estimate = Math.min(estimate, counters[row][index(item, row)]);
+        }
+        return estimate;
+    }
+
+    // Zera todos os contadores (reaproveita a memória)
+    void clear() {
+        for (long[] row : counters) {
+            Arrays.fill(row, 0);
+        }
+    }
+
+    // Índice do item em uma linha: hash de 64 bits dos caracteres com a semente da linha
+    // (multiplicação por caractere + finalizador do MurmurHash3)
+    private int index(String item, int row) {
+        long h = seeds[row] ^ item.length();
+        for (int i = 0; i < item.length(); i++) {
+            h = (h ^ item.charAt(i)) * GOLDEN;
+            h = Long.rotateLeft(h, 29);
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,58 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Tipos de conteúdo
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+// Formatos em que o /feed pode ser enviado
+// JSON é o padrão; clientes móveis podem pedir CBOR ou Smile (binários, menores e
+// mais baratos de gerar/ler) pelo header Accept.
+public enum FeedEncoding {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.parseMediaType("application/cbor")),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile"));
+
+    private final MediaType mediaType;
+
+    FeedEncoding(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    // Escolhe o formato a partir do header Accept
+    // Vence o tipo suportado com maior "q"; em caso de empate, o que aparece primeiro.
+    // Sem header, header inválido ou nada suportado: JSON
+    public static FeedEncoding negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+
+        try {
+            FeedEncoding best = null;
+            double bestQuality = 0;
+
+            for (var requested : MediaType.parseMediaTypes(accept)) {
+                double quality = requested.getQualityValue();
+                if (quality <= bestQuality) {
+                    continue;
+                }
+                for (var encoding : values()) {
+                    // "*/*" e "application/*" ficam com o padrão (JSON, o primeiro)
+                    if (requested.includes(encoding.mediaType)) {
+                        best = encoding;
+                        bestQuality = quality;
+                        break;
+                    }
+                }
+            }
+            return best != null ? best : JSON;
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Estruturas concorrentes (thread-safe)
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache das respostas do /feed já serializadas (JSON, CBOR ou Smile; com ou sem gzip)
+// Guarda apenas as primeiras páginas, que concentram quase todo o tráfego.
+// Cada formato (e cada variante comprimida) é uma entrada separada: serialização
+// e compressão acontecem uma única vez por versão do feed.
+// Cada entrada é marcada com a versão do feed em que foi gerada:
+// quando um tweet é criado ou removido a versão muda e a entrada deixa de valer.
+@Component
+public class FeedResponseCache {
+
+    // Corpo pronto para envio; gzip indica se os bytes já estão comprimidos
+    public record Body(byte[] bytes, boolean gzip) {
+    }
+
+    // Chave do cache: página, tamanho de página, formato e se o cliente aceita gzip
+    private record Key(int page, int pageSize, FeedEncoding encoding, boolean acceptsGzip) {
+    }
+
+    // Valor do cache: versão do feed + corpo da resposta já codificado
+    private record Entry(long version, Body body) {
+    }
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // Total de bytes guardados no cache (limitado por maxBytes)
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    // Páginas >= maxPage não são guardadas
+    private final int maxPage;
+
+    // Tamanhos de página > maxPageSize não são guardados
+    private final int maxPageSize;
+
+    // Limite de memória ocupada pelos corpos guardados
+    private final long maxBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public FeedResponseCache(
+            @Value("${app.feed.cache.max-page:3}") int maxPage,
+            @Value("${app.feed.cache.max-page-size:50}") int maxPageSize,
+            @Value("${app.feed.cache.max-bytes:4194304}") long maxBytes,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxPage = maxPage;
+        this.maxPageSize = maxPageSize;
+        this.maxBytes = maxBytes;
+
+        this.hits = Counter.builder("feed.cache.requests")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("feed.cache.requests")
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        Gauge.builder("feed.cache.bytes", totalBytes, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    // Indica se essa página pode ser guardada no cache
+    public boolean isCacheable(int page, int pageSize) {
+        return page >= 0 && page < maxPage && pageSize > 0 && pageSize <= maxPageSize;
+    }
+
+    // Busca o corpo já serializado da página na versão informada
+    // Retorna null quando não há entrada válida (miss)
+    public Body get(int page, int pageSize, FeedEncoding encoding, boolean acceptsGzip, long version) {
+
+        // Páginas fora da faixa cacheável não contam como miss
+        if (!isCacheable(page, pageSize)) {
+            return null;
+        }
+
+        var key = new Key(page, pageSize, encoding, acceptsGzip);
+        var entry = entries.get(key);
+
+        if (entry != null && entry.version() == version) {
+            hits.increment();
+            return entry.body();
+        }
+
+        // Entrada de uma versão antiga: é removida para liberar memória
+        if (entry != null && entry.version() < version && entries.remove(key, entry)) {
+            totalBytes.addAndGet(-entry.body().bytes().length);
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    // Guarda o corpo serializado da página na versão informada
+    public void put(int page, int pageSize, FeedEncoding encoding, boolean acceptsGzip, long version, Body body) {
+
+        if (!isCacheable(page, pageSize)) {
+            return;
+        }
+
+        // Sem espaço no orçamento de memória: simplesmente não guarda
+        int length = body.bytes().length;
+        if (totalBytes.get() + length > maxBytes) {
+            return;
+        }
+
+        var key = new Key(page, pageSize, encoding, acceptsGzip);
+        var entry = new Entry(version, body);
+
+        // Substitui apenas entradas mais antigas
+        // (outra thread pode ter guardado uma versão mais nova)
+        var previous = entries.get(key);
+
+        if (previous == null) {
+            if (entries.putIfAbsent(key, entry) == null) {
+                totalBytes.addAndGet(length);
+            }
+        } else if (previous.version() < version && entries.replace(key, previous, entry)) {
+            totalBytes.addAndGet(length - previous.body().bytes().length);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Contador atômico (thread-safe, sem lock)
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Versão do feed mantida em memória
+// Todo tweet criado ou removido incrementa a versão.
+// Enquanto a versão não muda, qualquer página do feed continua igual,
+// então ela pode ser usada para gerar ETags e invalidar caches.
+// Cada instância tem o seu contador: os ETags levam um prefixo aleatório da
+// instância para que a versão N de um nó nunca seja confundida com a versão N
+// de outro atrás do load balancer (o que daria um 304 falso).
+@Component
+public class FeedVersion {
+
+    // Prefixo aleatório desta instância (muda a cada boot)
+    private final String instance = Long.toHexString(UUID.randomUUID().getMostSignificantBits() >>> 16);
+
+    // Começa com o horário do boot para que um restart nunca
+    // reutilize uma versão (e um ETag) gerada pela execução anterior
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    // Versão atual do feed
+    public long current() {
+        return version.get();
+    }
+
+    // Incrementa a versão (chamado quando o feed muda)
+    public long bump() {
+        return version.incrementAndGet();
+    }
+
+    // Gera um ETag fraco para uma página do feed na versão informada
+    // Exemplo: W/"feed-3fa85f6457-1718000000000-0-10"
+    public String etag(long version, int page, int pageSize) {
+        return "W/\"feed-" + instance + "-" + version + "-" + page + "-" + pageSize + "\"";
+    }
+
+    // ETag de uma página em um formato específico (CBOR, Smile)
+    // Formatos diferentes são representações diferentes e não podem compartilhar ETag
+    // Exemplo: W/"feed-3fa85f6457-1718000000000-0-10-cbor"
+    public String etag(long version, int page, int pageSize, FeedEncoding encoding) {
+        if (encoding == FeedEncoding.JSON) {
+            return etag(version, page, pageSize);
+        }
+        return "W/\"feed-" + instance + "-" + version + "-" + page + "-" + pageSize
+                + "-" + encoding.name().toLowerCase() + "\"";
+    }
+
+    // Verifica se o header If-None-Match contém o ETag informado
+    // Aceita "*", listas separadas por vírgula e comparação fraca (ignora o prefixo W/)
+    public static boolean matches(String ifNoneMatch, String etag) {
+
+        // Sem header: o cliente não tem nada em cache
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+
+        String expected = stripWeak(etag);
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+
+            if (tag.equals("*") || stripWeak(tag).equals(expected)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Remove o prefixo de ETag fraco (W/)
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
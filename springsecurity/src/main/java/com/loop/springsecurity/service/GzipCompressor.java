@@ -0,0 +1,126 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Utilitários
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Compressão gzip das respostas com Deflaters e buffers reaproveitados
+// Criar um Deflater aloca memória nativa (~256 KB) e um buffer de saída a cada resposta;
+// aqui ficam em um pool com um par por core, e só o resultado final é alocado.
+// Respostas menores que o limite não compensam a CPU e são enviadas sem compressão.
+@Component
+public class GzipCompressor {
+
+    // Cabeçalho gzip fixo: magic, método deflate, sem flags, sem data, SO desconhecido
+    private static final byte[] HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    // Deflater + buffer de saída reaproveitados
+    private static final class Slot {
+        private final Deflater deflater;
+        private byte[] buffer = new byte[16 * 1024];
+
+        private Slot(int level) {
+            // nowrap: deflate "cru"; o cabeçalho e o trailer gzip são escritos à mão
+            this.deflater = new Deflater(level, true);
+        }
+    }
+
+    private final ArrayBlockingQueue<Slot> pool;
+
+    // Nível de compressão (1 = mais rápido, 9 = menor)
+    private final int level;
+
+    // Tamanho mínimo da resposta para comprimir
+    private final int minBytes;
+
+    public GzipCompressor(
+            @Value("${app.compression.level:6}") int level,
+            @Value("${app.compression.min-bytes:1024}") int minBytes
+    ) {
+        this.level = level;
+        this.minBytes = minBytes;
+        this.pool = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Indica se o cliente aceita gzip (header Accept-Encoding)
+    public static boolean accepts(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (var coding : acceptEncoding.split(",")) {
+            var parts = coding.trim().split(";");
+            var name = parts[0].trim();
+            if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                continue;
+            }
+            // "gzip;q=0" recusa explicitamente
+            boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Indica se vale a pena comprimir uma resposta desse tamanho
+    public boolean worthCompressing(int length) {
+        return length >= minBytes;
+    }
+
+    // Comprime no formato gzip
+    public byte[] gzip(byte[] input) {
+        var slot = pool.poll();
+        if (slot == null) {
+            slot = new Slot(level);
+        }
+
+        try {
+            var deflater = slot.deflater;
+            deflater.reset();
+            deflater.setInput(input);
+            deflater.finish();
+
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == slot.buffer.length) {
+                    slot.buffer = Arrays.copyOf(slot.buffer, slot.buffer.length * 2);
+                }
+                length += deflater.deflate(slot.buffer, length, slot.buffer.length - length);
+            }
+
+            var crc = new CRC32();
+            crc.update(input);
+
+            // cabeçalho + dados comprimidos + trailer (CRC32 e tamanho original, little-endian)
+            var output = new byte[HEADER.length + length + 8];
+            System.arraycopy(HEADER, 0, output, 0, HEADER.length);
+            System.arraycopy(slot.buffer, 0, output, HEADER.length, length);
+            writeIntLE(output, HEADER.length + length, (int) crc.getValue());
+            writeIntLE(output, HEADER.length + length + 4, input.length);
+            return output;
+        } finally {
+            // Pool cheio: o Deflater extra é liberado
+            if (!pool.offer(slot)) {
+                slot.deflater.end();
+            }
+        }
+    }
+
+    private static void writeIntLE(byte[] target, int offset, int value) {
+        target[offset] = (byte) value;
+        target[offset + 1] = (byte) (value >>> 8);
+        target[offset + 2] = (byte) (value >>> 16);
+        target[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,276 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+// Classe usada para montar respostas HTTP
+import org.springframework.http.ResponseEntity;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Serialização do corpo (para o fingerprint)
+import tools.jackson.databind.json.JsonMapper;
+
+// Hash do corpo da requisição
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Utilitários
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Interface funcional que produz um valor
+import java.util.function.Supplier;
+
+// Respostas guardadas por Idempotency-Key
+// Um cliente que não recebeu a resposta (timeout) reenvia o POST com a mesma chave:
+// em vez de criar outro tweet/usuário (e gerar outro hash BCrypt), a resposta da
+// primeira execução é devolvida. Uma repetição que chega enquanto a primeira ainda
+// está rodando espera por ela, em vez de executar em paralelo.
+// As chaves valem por app.idempotency.ttl e a quantidade guardada é limitada.
+//
+// Chamadas anônimas (POST /users) são separadas pelo endereço do cliente: todos os
+// clientes atrás do mesmo NAT/proxy dividem o mesmo espaço de chaves. Por isso, nelas a
+// chave precisa ser um UUID (requireUuid): chaves aleatórias não colidem entre clientes.
+@Component
+public class IdempotencyStore {
+
+    // Header enviado pelo cliente
+    public static final String HEADER = "Idempotency-Key";
+
+    // Header adicionado às respostas repetidas
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Tamanho máximo da chave enviada pelo cliente
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Uma chave é única por operação e por quem chama (usuário ou IP)
+    private record Key(String operation, String caller, String idempotencyKey) {
+    }
+
+    // Execução (em andamento ou concluída) de uma chave
+    // fingerprint (SHA-256 do corpo em JSON) identifica a requisição: a mesma chave com outro
+    // corpo é um erro do cliente
+    private record Entry(CompletableFuture<ResponseEntity<?>> result, byte[] fingerprint, long expiresAt) {
+    }
+
+    // Ordem de inserção = ordem de expiração (o TTL é o mesmo para todas)
+    // O mais antigo é descartado quando o limite de entradas é atingido
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final JsonMapper jsonMapper;
+    private final long ttlMillis;
+    private final long maxWaitMillis;
+
+    private final Counter executed;
+    private final Counter replayed;
+    private final Counter coalesced;
+    private final Counter conflicts;
+
+    public IdempotencyStore(
+            @Value("${app.idempotency.ttl:24h}") Duration ttl,
+            @Value("${app.idempotency.max-entries:100000}") int maxEntries,
+            @Value("${app.idempotency.max-wait-millis:5000}") long maxWaitMillis,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.jsonMapper = jsonMapper;
+        this.ttlMillis = ttl.toMillis();
+        this.maxWaitMillis = maxWaitMillis;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.executed = counter(meterRegistry, "executed");
+        this.replayed = counter(meterRegistry, "replayed");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.conflicts = counter(meterRegistry, "conflict");
+        Gauge.builder("idempotency.entries", this, IdempotencyStore::size).register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("idempotency.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Executa a operação uma única vez por (operação, caller, chave)
+    // Sem chave: executa normalmente, sem guardar nada
+    // request: corpo da requisição (a mesma chave com outro corpo retorna 422)
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(
+            String operation,
+            String caller,
+            String idempotencyKey,
+            Object request,
+            Supplier<ResponseEntity<T>> action
+    ) {
+        if (idempotencyKey == null) {
+            return action.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key inválida");
+        }
+
+        var key = new Key(operation, caller, idempotencyKey);
+        var fingerprint = fingerprint(request);
+        var entry = new Entry(new CompletableFuture<>(), fingerprint, System.currentTimeMillis() + ttlMillis);
+
+        Entry existing;
+        synchronized (entries) {
+            existing = entries.get(key);
+            if (existing != null && existing.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                existing = null;
+            }
+            if (existing == null) {
+                entries.put(key, entry);
+            }
+        }
+
+        // Repetição: devolve (ou espera) o resultado da primeira execução
+        if (existing != null) {
+            if (!MessageDigest.isEqual(existing.fingerprint(), fingerprint)) {
+                conflicts.increment();
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                        "Idempotency-Key já usada com outra requisição");
+            }
+            if (existing.result().isDone()) {
+                replayed.increment();
+            } else {
+                coalesced.increment();
+            }
+            return replay((ResponseEntity<T>) await(existing.result()));
+        }
+
+        // Primeira execução
+        executed.increment();
+        try {
+            var response = action.get();
+            entry.result().complete(response);
+
+            // Recusa temporária (ex: 429 da cota): não é guardada, o reenvio executa de novo
+            if (retryable(response.getStatusCode())) {
+                release(key, entry);
+            }
+            return response;
+        } catch (ResponseStatusException e) {
+            // Erro do cliente (ex: username já existe): a repetição recebe o mesmo erro
+            // Erro do servidor ou 429: a chave é liberada para uma nova tentativa
+            entry.result().completeExceptionally(e);
+            if (retryable(e.getStatusCode())) {
+                release(key, entry);
+            }
+            throw e;
+        } catch (RuntimeException | Error e) {
+            entry.result().completeExceptionally(e);
+            release(key, entry);
+            throw e;
+        }
+    }
+
+    // Chamadas anônimas: a chave precisa ser um UUID (ver o comentário da classe)
+    public static void requireUuid(String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        try {
+            UUID.fromString(idempotencyKey);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key deve ser um UUID");
+        }
+    }
+
+    // SHA-256 do corpo serializado em JSON (os DTOs são records: serialização estável)
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(jsonMapper.writeValueAsBytes(request));
+        } catch (NoSuchAlgorithmException e) {
+            // Todo JDK tem SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Remove as chaves expiradas
+    // As entradas estão em ordem de expiração: para na primeira ainda válida
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-millis:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            var iterator = entries.values().iterator();
+            while (iterator.hasNext() && iterator.next().expiresAt() < now) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // Quantidade de chaves guardadas
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Respostas que não devem ser repetidas para a mesma chave
+    private static boolean retryable(HttpStatusCode status) {
+        return status.is5xxServerError() || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void release(Key key, Entry entry) {
+        synchronized (entries) {
+            entries.remove(key, entry);
+        }
+    }
+
+    // Copia a resposta guardada, marcando-a como repetida
+    private static <T> ResponseEntity<T> replay(ResponseEntity<T> original) {
+        return ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    // Espera a primeira execução por no máximo maxWaitMillis
+    private ResponseEntity<?> await(CompletableFuture<ResponseEntity<?>> result) {
+        try {
+            return result.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A primeira execução ainda não terminou: o cliente tenta de novo mais tarde
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Requisição com esta Idempotency-Key em andamento");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Acesso JDBC direto
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Verifica se existe uma transação ativa
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Utilitários
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Invalidação de caches entre instâncias por uma tabela outbox (sem broker)
+// Cada escrita que muda dados guardados em cache grava, na MESMA transação,
+// uma linha em tb_cache_invalidations (cache + chave). Se a transação for
+// desfeita, o evento também some.
+// Cada instância lê periodicamente as linhas novas pela chave primária
+// ("id > maior id já lido", barato) e chama os handlers registrados para aquele cache.
+//
+// Ids de autoincremento são reservados no insert, mas as transações podem
+// terminar fora de ordem: um id menor pode aparecer depois de um maior.
+// Por isso os buracos na sequência ficam pendentes (e são relidos) por até
+// app.outbox.gap-timeout-millis antes de serem considerados transações desfeitas.
+//
+// Atraso máximo: intervalo de leitura + duração da transação. Se a leitura
+// falhar por mais de app.outbox.max-staleness-millis, todos os caches são
+// descartados, já que não se sabe o que mudou.
+@Component
+public class InvalidationOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationOutbox.class);
+
+    // Caches conhecidos
+    public static final String FEED = "feed";
+    public static final String USERS = "users";
+    public static final String ROLES = "roles";
+
+    // Tweets apagados (chave: id do tweet)
+    public static final String TWEETS = "tweets";
+
+    // Arquivo morto (chave: id do tweet arquivado apagado, ou "*" = novos segmentos)
+    public static final String ARCHIVE = "archive";
+
+    // Chave que descarta o cache inteiro
+    public static final String ALL = "*";
+
+    // Buracos maiores que isso não são acompanhados um a um (ex: salto de autoincremento)
+    private static final int MAX_TRACKED_GAP = 1000;
+
+    // Um evento lido da tabela
+    private record Event(long id, String cache, String key, String origin, long lagMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Identifica esta instância nos eventos que ela grava
+    private final String nodeId;
+
+    private final int batchSize;
+    private final long gapTimeoutMillis;
+    private final long maxStalenessMillis;
+    private final Duration retention;
+
+    // Handlers de cada cache (chamados com a chave do evento)
+    private final Map<String, List<Consumer<String>>> handlers = new ConcurrentHashMap<>();
+
+    // Maior id já lido (-1 = ainda não iniciou)
+    private long maxSeen = -1;
+
+    // Ids ainda não vistos abaixo de maxSeen (transação em andamento) -> quando o buraco apareceu
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    // Última leitura bem-sucedida e se os caches já foram descartados por falta de leitura
+    private long lastPoll = System.currentTimeMillis();
+    private boolean flushedWhileStale;
+
+    // Atraso entre o commit do evento e a sua aplicação nesta instância
+    private final Timer lag;
+
+    // Eventos aplicados por cache
+    private final Map<String, Counter> applied = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public InvalidationOutbox(
+            JdbcTemplate jdbcTemplate,
+            FeedVersion feedVersion,
+            @Value("${app.outbox.node-id:}") String nodeId,
+            @Value("${app.outbox.batch-size:500}") int batchSize,
+            @Value("${app.outbox.gap-timeout-millis:10000}") long gapTimeoutMillis,
+            @Value("${app.outbox.max-staleness-millis:5000}") long maxStalenessMillis,
+            @Value("${app.outbox.retention:1h}") Duration retention,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.batchSize = batchSize;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.retention = retention;
+        this.meterRegistry = meterRegistry;
+
+        // Qualquer mudança no feed de outra instância invalida ETags e o cache de respostas
+        register(FEED, key -> feedVersion.bump());
+
+        this.lag = Timer.builder("outbox.propagation.lag").register(meterRegistry);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    // Registra um handler para os eventos de um cache
+    // Os handlers rodam dentro do poll(), um evento de cada vez: devem ser baratos
+    // (trabalho com IO ou banco é só anotado e feito em lote fora daqui)
+    public void register(String cache, Consumer<String> handler) {
+        handlers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    // Grava um evento na transação atual (obrigatória: o evento só existe se a escrita existir)
+    public void append(String cache, String key) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Evento de invalidação fora de uma transação");
+        }
+        jdbcTemplate.update(
+                """
+                insert into tb_cache_invalidations (cache_name, cache_key, origin, created_at)
+                values (?, ?, ?, current_timestamp(3))
+                """,
+                cache, key, nodeId
+        );
+    }
+
+    // Grava vários eventos do mesmo cache na transação atual (um batch só)
+    public void appendAll(String cache, Collection<String> keys) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Evento de invalidação fora de uma transação");
+        }
+        jdbcTemplate.batchUpdate(
+                """
+                insert into tb_cache_invalidations (cache_name, cache_key, origin, created_at)
+                values (?, ?, ?, current_timestamp(3))
+                """,
+                keys,
+                keys.size(),
+                (statement, key) -> {
+                    statement.setString(1, cache);
+                    statement.setString(2, key);
+                    statement.setString(3, nodeId);
+                }
+        );
+    }
+
+    // Lê os eventos novos e descarta as entradas correspondentes
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-millis:500}")
+    public synchronized void poll() {
+        try {
+            // Primeira leitura: começa do fim (caches vazios não têm o que invalidar)
+            if (maxSeen < 0) {
+                maxSeen = jdbcTemplate.queryForObject(
+                        "select coalesce(max(id), 0) from tb_cache_invalidations", Long.class);
+            }
+
+            long now = System.currentTimeMillis();
+
+            // Buracos anteriores: transações que terminaram depois das seguintes
+            if (!gaps.isEmpty()) {
+                for (var event : read("id in (" + "?,".repeat(gaps.size() - 1) + "?)", gaps.keySet().toArray())) {
+                    gaps.remove(event.id());
+                    apply(event);
+                }
+            }
+
+            // Eventos novos, em lotes
+            List<Event> events;
+            do {
+                events = read("id > ? order by id limit ?", maxSeen, batchSize);
+                for (var event : events) {
+                    trackGaps(event.id(), now);
+                    maxSeen = event.id();
+                    apply(event);
+                }
+            } while (events.size() == batchSize);
+
+            // Buracos antigos demais: transações desfeitas (o id nunca vai aparecer)
+            gaps.values().removeIf(since -> now - since >= gapTimeoutMillis);
+
+            lastPoll = System.currentTimeMillis();
+            flushedWhileStale = false;
+        } catch (RuntimeException e) {
+            log.warn("Falha ao ler os eventos de invalidação", e);
+            flushIfStale();
+        }
+    }
+
+    // Lê eventos com o filtro informado (o atraso é calculado no relógio do banco)
+    private List<Event> read(String where, Object... args) {
+        return jdbcTemplate.query(
+                """
+                select id, cache_name, cache_key, origin,
+                       timestampdiff(microsecond, created_at, current_timestamp(3)) as lag_micros
+                from tb_cache_invalidations
+                where\s""" + where,
+                (rs, row) -> new Event(
+                        rs.getLong("id"),
+                        rs.getString("cache_name"),
+                        rs.getString("cache_key"),
+                        rs.getString("origin"),
+                        rs.getLong("lag_micros") / 1000
+                ),
+                args
+        );
+    }
+
+    // Ids entre o maior já lido e o novo ainda podem aparecer (transações em andamento)
+    // O total acompanhado é limitado: além disso, o buraco é tratado como transação desfeita
+    private void trackGaps(long id, long now) {
+        if (id - maxSeen - 1 + gaps.size() > MAX_TRACKED_GAP) {
+            return;
+        }
+        for (long missing = maxSeen + 1; missing < id; missing++) {
+            gaps.put(missing, now);
+        }
+    }
+
+    // Eventos gravados por esta instância já foram aplicados localmente
+    private void apply(Event event) {
+        if (nodeId.equals(event.origin())) {
+            return;
+        }
+
+        var cacheHandlers = handlers.get(event.cache());
+        if (cacheHandlers != null) {
+            for (var handler : cacheHandlers) {
+                call(handler, event.cache(), event.key());
+            }
+        }
+
+        lag.record(Duration.ofMillis(Math.max(0, event.lagMillis())));
+        applied.computeIfAbsent(event.cache(), cache -> Counter.builder("outbox.events.applied")
+                .tag("cache", cache)
+                .register(meterRegistry)).increment();
+    }
+
+    // Sem conseguir ler por mais que o atraso máximo: descarta todos os caches uma vez
+    private void flushIfStale() {
+        if (flushedWhileStale || System.currentTimeMillis() - lastPoll < maxStalenessMillis) {
+            return;
+        }
+        log.warn("Eventos de invalidação sem leitura há mais de {} ms: descartando todos os caches", maxStalenessMillis);
+        for (var entry : handlers.entrySet()) {
+            for (var handler : entry.getValue()) {
+                call(handler, entry.getKey(), ALL);
+            }
+        }
+        flushedWhileStale = true;
+    }
+
+    // Uma falha em um handler não impede os demais nem interrompe a leitura:
+    // o evento já foi lido e não é reaplicado
+    private static void call(Consumer<String> handler, String cache, String key) {
+        try {
+            handler.accept(key);
+        } catch (RuntimeException e) {
+            log.error("Falha ao aplicar o evento de invalidação {}:{}", cache, key, e);
+        }
+    }
+
+    // Remove os eventos mais antigos que a retenção (em lotes pequenos)
+    @Scheduled(fixedDelayString = "${app.outbox.cleanup-interval-millis:60000}")
+    public void cleanup() {
+        try {
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(
+                        """
+                        delete from tb_cache_invalidations
+                        where created_at < timestampadd(second, ?, current_timestamp(3))
+                        limit 1000
+                        """,
+                        -retention.toSeconds()
+                );
+            } while (deleted == 1000);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao limpar os eventos de invalidação", e);
+        }
+    }
+}
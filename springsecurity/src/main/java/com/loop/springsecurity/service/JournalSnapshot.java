@@ -0,0 +1,251 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Utilitários de IO
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Um snapshot do journal de tweets (imutável depois de escrito)
+// Guarda o índice de busca já montado: cada termo com a sua posting list
+// (blocos compactados, como estão em memória) e os tombstones.
+// Restaurar não tokeniza nenhum tweet: os blocos são copiados do arquivo para as listas.
+//
+// Formato:
+//   [magic][versão][sequência do primeiro journal que NÃO está no snapshot]
+//   [marca do banco: epoch millis até onde o índice já foi conciliado com o tb_tweets]
+//   registros: [tipo (byte)][tamanho (int)][dados]
+//     termo:     [tamanho do termo (short)][termo UTF-8][posting list (PostingList.writeTo)]
+//     tombstone: [tweetId (long)][conteúdo conhecido (byte)][conteúdo UTF-8]
+//   [quantidade de registros][magic]
+//
+// O arquivo é lido via MappedByteBuffer, em janelas, sem copiar para o heap.
+final class JournalSnapshot {
+
+    // Identifica o formato do arquivo ("TWSN")
+    private static final int MAGIC = 0x5457534E;
+    private static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int FOOTER_SIZE = 12;
+
+    // Cabeçalho de um registro: tipo + tamanho
+    private static final int RECORD_HEADER = 5;
+
+    // Tipos de registro
+    private static final byte TERM = 1;
+    private static final byte TOMBSTONE = 2;
+
+    // Tamanho máximo mapeado de uma vez (um registro maior é mapeado sozinho)
+    private static final long WINDOW = 256L * 1024 * 1024;
+
+    // Recebe os registros durante a leitura
+    interface Visitor {
+
+        // Termo do índice e a sua posting list
+        void term(String token, PostingList list);
+
+        // Tweet apagado (tombstone), ainda não expurgado
+        // content: conteúdo do tweet, quando conhecido (senão null)
+        void deleted(long tweetId, String content);
+    }
+
+    private JournalSnapshot() {
+    }
+
+    // Cabeçalho do snapshot
+    // journalSequence: primeiro journal que deve ser aplicado por cima do snapshot
+    // dbMark: epoch millis até onde o conteúdo já foi conciliado com o banco
+    record Header(long journalSequence, long dbMark) {
+    }
+
+    static Header header(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return header(channel, path);
+        }
+    }
+
+    private static Header header(FileChannel channel, Path path) throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Snapshot inválido: " + path);
+        }
+        return new Header(header.getLong(), header.getLong());
+    }
+
+    // Lê todos os registros do snapshot; retorna a quantidade lida
+    static long read(Path path, Visitor visitor) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            header(channel, path);
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Snapshot inválido: " + path);
+            }
+
+            var footer = channel.map(FileChannel.MapMode.READ_ONLY, size - FOOTER_SIZE, FOOTER_SIZE);
+            long expected = footer.getLong();
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Snapshot incompleto: " + path);
+            }
+
+            long end = size - FOOTER_SIZE;
+            long position = HEADER_SIZE;
+            long count = 0;
+            long window = WINDOW;
+
+            // Mapeia janelas de até WINDOW bytes; um registro que cruza o fim
+            // da janela é lido no começo da próxima
+            while (position < end) {
+                var data = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(window, end - position));
+                window = WINDOW;
+
+                while (data.remaining() >= RECORD_HEADER) {
+                    int start = data.position();
+                    int length = data.getInt(start + 1);
+                    if (length < 0 || data.remaining() < RECORD_HEADER + length) {
+                        break;
+                    }
+
+                    byte type = data.get(start);
+                    var record = data.slice(start + RECORD_HEADER, length);
+                    switch (type) {
+                        case TERM -> {
+                            var token = new byte[record.getShort()];
+                            record.get(token);
+                            visitor.term(new String(token, StandardCharsets.UTF_8), PostingList.readFrom(record));
+                        }
+                        case TOMBSTONE -> {
+                            long tweetId = record.getLong();
+                            boolean known = record.get() != 0;
+                            var content = new byte[record.remaining()];
+                            record.get(content);
+                            visitor.deleted(tweetId, known ? new String(content, StandardCharsets.UTF_8) : null);
+                        }
+                        default -> throw new IOException("Registro desconhecido no snapshot: " + path);
+                    }
+
+                    data.position(start + RECORD_HEADER + length);
+                    count++;
+                }
+
+                if (data.position() == 0) {
+                    // Registro maior que a janela: a próxima mapeia o registro inteiro
+                    long needed = data.remaining() >= RECORD_HEADER ? RECORD_HEADER + (long) data.getInt(1) : -1;
+                    if (needed <= data.capacity() || position + needed > end) {
+                        throw new IOException("Registro corrompido no snapshot: " + path);
+                    }
+                    window = needed;
+                    continue;
+                }
+                position += data.position();
+            }
+
+            if (count != expected) {
+                throw new IOException("Snapshot com " + count + " registros, esperado " + expected + ": " + path);
+            }
+            return count;
+        }
+    }
+
+    // Escreve um novo snapshot em um arquivo temporário
+    // commit() grava o rodapé, faz fsync e renomeia: o snapshot é visível inteiro ou não existe
+    static final class Writer implements AutoCloseable {
+
+        private final Path target;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        private long count;
+        private boolean committed;
+
+        Writer(Path target, long journalSequence, long dbMark) throws IOException {
+            this.target = target;
+            this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(journalSequence).putLong(dbMark);
+        }
+
+        // Grava um termo e a sua posting list
+        void term(String token, PostingList list) throws IOException {
+            byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+            var out = record(TERM, Short.BYTES + bytes.length + list.serializedSize());
+            out.putShort((short) bytes.length).put(bytes);
+            list.writeTo(out);
+            finish(out);
+        }
+
+        // Grava um tombstone (content: null se desconhecido)
+        void deleted(long tweetId, String content) throws IOException {
+            byte[] bytes = content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+            var out = record(TOMBSTONE, Long.BYTES + 1 + bytes.length);
+            out.putLong(tweetId).put((byte) (content != null ? 1 : 0)).put(bytes);
+            finish(out);
+        }
+
+        void commit() throws IOException {
+            if (buffer.remaining() < FOOTER_SIZE) {
+                flush();
+            }
+            buffer.putLong(count).putInt(MAGIC);
+            flush();
+
+            channel.force(true);
+            channel.close();
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        long count() {
+            return count;
+        }
+
+        // Snapshot abandonado (erro no meio): descarta o arquivo temporário
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        // Começa um registro no buffer (ou, se for maior que o buffer, em um buffer próprio)
+        private ByteBuffer record(byte type, int length) throws IOException {
+            if (buffer.remaining() < RECORD_HEADER + length) {
+                flush();
+            }
+            var out = buffer.remaining() >= RECORD_HEADER + length
+                    ? buffer
+                    : ByteBuffer.allocate(RECORD_HEADER + length);
+            return out.put(type).putInt(length);
+        }
+
+        private void finish(ByteBuffer out) throws IOException {
+            if (out != buffer) {
+                writeFully(out.flip());
+            }
+            count++;
+        }
+
+        private void flush() throws IOException {
+            writeFully(buffer.flip());
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer data) throws IOException {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+    }
+}
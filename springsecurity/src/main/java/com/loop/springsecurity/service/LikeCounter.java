@@ -0,0 +1,344 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Acesso JDBC direto (batch)
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Controle de transação programático
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Utilitários
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+// Contador de likes agregado em memória
+// Um tweet viral receberia milhares de "update tb_tweets set likes = likes + 1"
+// por segundo na mesma linha (todas disputando o mesmo lock no MySQL).
+// Aqui cada like:
+// - passa por um filtro de duplicados em memória (LRU com tamanho fixo)
+// - soma 1 no contador de pendentes do tweet (LongAdder: um tweet viral não
+//   serializa os likes no lock da entrada do mapa)
+// - entra numa fila de pares (tweet, usuário) pendentes
+// Um job periódico grava os pares com "insert ignore" em lote (tb_tweet_likes
+// garante 1 like por usuário no banco) e aplica um único
+// "likes = likes + N" por tweet, também em lote.
+@Component
+public class LikeCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(LikeCounter.class);
+
+    // Quantidade de segmentos do filtro de duplicados (reduz a disputa pelo lock)
+    private static final int DEDUPE_STRIPES = 64;
+
+    // Um like pendente
+    private record Like(long tweetId, UUID userId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FeedVersion feedVersion;
+    private final InvalidationOutbox outbox;
+
+    // Likes ainda não gravados, por tweet
+    // O flush subtrai os gravados com add(-n) e remove as entradas zeradas
+    private final ConcurrentHashMap<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // Protege a remoção das entradas zeradas (escrita, só no flush)
+    // O like não bloqueia: usa leitura otimista e, se uma remoção rodou junto,
+    // confere se o contador incrementado ainda está no mapa
+    private final StampedLock removal = new StampedLock();
+
+    // Pares pendentes (gravados em tb_tweet_likes no próximo flush)
+    private final ConcurrentLinkedQueue<Like> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    // Likes recentes, para recusar duplicados sem ir ao banco
+    private final RecentLikes recent;
+
+    // Limite de pares pendentes (acima disso o like é recusado com 503)
+    private final int maxPending;
+
+    // Pares por batch no flush
+    private final int batchSize;
+
+    private final Counter duplicates;
+
+    public LikeCounter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            FeedVersion feedVersion,
+            InvalidationOutbox outbox,
+            @Value("${app.likes.dedupe-capacity:200000}") int dedupeCapacity,
+            @Value("${app.likes.max-pending:100000}") int maxPending,
+            @Value("${app.likes.batch-size:1000}") int batchSize,
+            MeterRegistry meterRegistry
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.feedVersion = feedVersion;
+        this.outbox = outbox;
+        this.recent = new RecentLikes(dedupeCapacity);
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+
+        this.duplicates = Counter.builder("likes.duplicates").register(meterRegistry);
+        Gauge.builder("likes.pending", queued, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Registra um like; retorna false se o usuário já curtiu o tweet recentemente
+    public boolean like(long tweetId, UUID userId) {
+        var like = new Like(tweetId, userId);
+
+        if (!recent.add(like)) {
+            duplicates.increment();
+            return false;
+        }
+
+        // Flush atrasado (banco lento): não acumula memória indefinidamente
+        if (queued.incrementAndGet() > maxPending) {
+            queued.decrementAndGet();
+            recent.remove(like);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        increment(tweetId);
+        queue.add(like);
+        return true;
+    }
+
+    // Soma 1 nos likes pendentes do tweet
+    private void increment(long tweetId) {
+        long stamp = removal.tryOptimisticRead();
+        var adder = pending.computeIfAbsent(tweetId, id -> new LongAdder());
+        adder.increment();
+        if (removal.validate(stamp)) {
+            return;
+        }
+
+        // Uma remoção de entradas zeradas rodou junto: espera ela terminar
+        // Se o contador incrementado saiu do mapa, o incremento se perdeu com ele
+        stamp = removal.readLock();
+        try {
+            if (pending.get(tweetId) != adder) {
+                pending.computeIfAbsent(tweetId, id -> new LongAdder()).increment();
+            }
+        } finally {
+            removal.unlockRead(stamp);
+        }
+    }
+
+    // Indica se o tweet tem likes pendentes (ou seja, existia há pouco)
+    public boolean isKnown(long tweetId) {
+        return pending.containsKey(tweetId);
+    }
+
+    // Likes do tweet: valor gravado no banco + likes ainda pendentes em memória
+    public long count(long tweetId, long persisted) {
+        var adder = pending.get(tweetId);
+        return adder == null ? persisted : persisted + adder.sum();
+    }
+
+    // Descarta os likes pendentes de um tweet expurgado
+    // (as linhas de tb_tweet_likes são removidas pelo TweetPurger)
+    public void forget(long tweetId) {
+        pending.remove(tweetId);
+    }
+
+    // Grava os likes pendentes em lote
+    @Scheduled(fixedDelayString = "${app.likes.flush-interval-millis:1000}")
+    public void flush() {
+        boolean changed = false;
+
+        while (!queue.isEmpty()) {
+
+            // Retira um lote da fila
+            var batch = new ArrayList<Like>(batchSize);
+            Like like;
+            while (batch.size() < batchSize && (like = queue.poll()) != null) {
+                batch.add(like);
+            }
+            queued.addAndGet(-batch.size());
+
+            try {
+                changed |= transactionTemplate.execute(status -> write(batch));
+            } catch (RuntimeException e) {
+                // Banco indisponível: devolve o lote para a fila e tenta no próximo ciclo
+                log.warn("Falha ao gravar {} likes; nova tentativa no próximo flush", batch.size(), e);
+                queue.addAll(batch);
+                queued.addAndGet(batch.size());
+                break;
+            }
+
+            // Gravados: deixam de ser pendentes
+            var written = new HashMap<Long, Long>();
+            for (var item : batch) {
+                written.merge(item.tweetId(), 1L, Long::sum);
+            }
+            written.forEach((tweetId, count) -> {
+                var adder = pending.get(tweetId);
+                if (adder != null) {
+                    adder.add(-count);
+                }
+            });
+            removeZeroed(written.keySet());
+        }
+
+        // Os contadores do feed mudaram: invalida os ETags e o cache de respostas
+        if (changed) {
+            feedVersion.bump();
+        }
+    }
+
+    // Remove as entradas que chegaram a zero (só remove se ainda for o mesmo contador)
+    // Um like que incrementar a entrada durante a remoção refaz o incremento (ver increment)
+    private void removeZeroed(Collection<Long> tweetIds) {
+        long stamp = removal.writeLock();
+        try {
+            for (var tweetId : tweetIds) {
+                var adder = pending.get(tweetId);
+                if (adder != null && adder.sum() == 0) {
+                    pending.remove(tweetId, adder);
+                }
+            }
+        } finally {
+            removal.unlockWrite(stamp);
+        }
+    }
+
+    // Grava um lote: insere os pares e soma os likes realmente novos em cada tweet
+    private boolean write(List<Like> batch) {
+
+        // "insert ignore": pares já existentes (duplicados que saíram do LRU) são ignorados
+        // O select garante que o tweet ainda existe e não foi apagado
+        // (likes de tweets apagados são descartados)
+        int[][] inserted = jdbcTemplate.batchUpdate(
+                """
+                insert ignore into tb_tweet_likes (tweet_id, user_id)
+                select tweet_id, ? from tb_tweets where tweet_id = ? and deleted = false
+                """,
+                batch,
+                batch.size(),
+                (statement, like) -> {
+                    statement.setBytes(1, toBytes(like.userId()));
+                    statement.setLong(2, like.tweetId());
+                }
+        );
+
+        // Likes novos por tweet (coalescidos: um update por tweet, não por like)
+        // Cada contagem é 1 (inserido) ou 0 (ignorado); por isso a URL JDBC não deve
+        // usar rewriteBatchedStatements, que troca as contagens por SUCCESS_NO_INFO
+        var deltas = new HashMap<Long, Long>();
+        int index = 0;
+        for (int[] chunk : inserted) {
+            for (int rows : chunk) {
+                if (rows > 0) {
+                    deltas.merge(batch.get(index).tweetId(), 1L, Long::sum);
+                }
+                index++;
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return false;
+        }
+
+        var updates = new ArrayList<>(deltas.entrySet());
+        jdbcTemplate.batchUpdate(
+                "update tb_tweets set likes = likes + ? where tweet_id = ?",
+                updates,
+                updates.size(),
+                (statement, delta) -> {
+                    statement.setLong(1, delta.getValue());
+                    statement.setLong(2, delta.getKey());
+                }
+        );
+
+        // Contadores do feed mudaram: avisa as outras instâncias na mesma transação
+        outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+        return true;
+    }
+
+    // O Hibernate grava UUID no MySQL como binary(16) (bits mais significativos primeiro)
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    // Conjunto LRU de likes recentes com tamanho fixo, dividido em segmentos
+    // Cada segmento tem seu próprio lock; o mais antigo é descartado quando enche.
+    // Um duplicado que já saiu do LRU ainda é barrado pelo "insert ignore" no flush.
+    private static final class RecentLikes {
+
+        private final Map<Like, Boolean>[] stripes;
+
+        @SuppressWarnings("unchecked")
+        RecentLikes(int capacity) {
+            int perStripe = Math.max(1, capacity / DEDUPE_STRIPES);
+            stripes = new Map[DEDUPE_STRIPES];
+            for (int i = 0; i < DEDUPE_STRIPES; i++) {
+                stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Like, Boolean> eldest) {
+                        return size() > perStripe;
+                    }
+                };
+            }
+        }
+
+        private Map<Like, Boolean> stripe(Like like) {
+            return stripes[(like.hashCode() & 0x7fffffff) % DEDUPE_STRIPES];
+        }
+
+        // Retorna false se o like já estava no conjunto
+        boolean add(Like like) {
+            var stripe = stripe(like);
+            synchronized (stripe) {
+                return stripe.put(like, Boolean.TRUE) == null;
+            }
+        }
+
+        void remove(Like like) {
+            var stripe = stripe(like);
+            synchronized (stripe) {
+                stripe.remove(like);
+            }
+        }
+    }
+}
@@ -0,0 +1,516 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Utilitário para copiar e ordenar arrays
+import java.util.Arrays;
+
+// Leitura e escrita no snapshot do journal
+import java.nio.ByteBuffer;
+
+// Lista de ids de tweets (posting list) de um termo do índice de busca
+// Os ids ficam ordenados de forma crescente e compactados em blocos:
+// - blocos fechados: primeiro id + diferenças (deltas) codificadas em varint
+// - bloco aberto (tail): ids ainda não compactados, recebe os novos tweets
+// Um id de tweet ocupa em média 1 a 3 bytes em vez de 8 (long) ou 16+ (Long).
+// Ids fora de ordem (reconstrução concorrendo com tweets novos) e remoções não
+// mexem nos blocos: vão para dois arrays ordenados pequenos (added/removed),
+// combinados na leitura e incorporados aos blocos só quando passam de 1/8 da lista.
+// Não é thread-safe: o acesso é controlado pelo TweetSearchIndex.
+final class PostingList {
+
+    // Quantidade de ids por bloco
+    static final int BLOCK_SIZE = 128;
+
+    // Tamanho mínimo dos buffers added/removed antes de recompactar a lista
+    private static final int MIN_PENDING = 64;
+
+    private static final long[] EMPTY = new long[0];
+
+    // Primeiro id de cada bloco fechado (usado na busca binária)
+    private long[] blockFirst = new long[0];
+
+    // Quantidade de ids em cada bloco fechado
+    private int[] blockCount = new int[0];
+
+    // Deltas de cada bloco fechado, em varint
+    private byte[][] blockData = new byte[0][];
+
+    // Quantidade de blocos fechados em uso
+    private int blocks;
+
+    // Bloco aberto, ainda não compactado (alocado sob demanda)
+    private long[] tail;
+    private int tailSize;
+
+    // Total de ids nos blocos + tail
+    private int compactSize;
+
+    // Ids adicionados fora de ordem, ainda fora dos blocos (ordenados)
+    private long[] added = EMPTY;
+    private int addedSize;
+
+    // Ids removidos que ainda estão nos blocos (ordenados)
+    private long[] removed = EMPTY;
+    private int removedSize;
+
+    int size() {
+        return compactSize + addedSize - removedSize;
+    }
+
+    // Maior id dos blocos + tail (ou -1 se vazios)
+    private long compactLastId() {
+        if (tailSize > 0) {
+            return tail[tailSize - 1];
+        }
+        if (blocks > 0) {
+            long[] ids = new long[BLOCK_SIZE];
+            int count = decode(blocks - 1, ids);
+            return ids[count - 1];
+        }
+        return -1;
+    }
+
+    // Adiciona um id
+    // Caminho rápido: id maior que todos (tweets novos chegam em ordem crescente)
+    void add(long id) {
+
+        if ((tailSize > 0 ? id > tail[tailSize - 1] : id > compactLastId())
+                && (addedSize == 0 || id > added[addedSize - 1])) {
+            if (tail == null) {
+                tail = new long[BLOCK_SIZE];
+            }
+            tail[tailSize++] = id;
+            compactSize++;
+
+            // Bloco aberto cheio: compacta
+            if (tailSize == BLOCK_SIZE) {
+                seal(tail, tailSize);
+                tailSize = 0;
+            }
+            return;
+        }
+
+        // Removido antes e ainda presente nos blocos: basta desfazer a remoção
+        int position = Arrays.binarySearch(removed, 0, removedSize, id);
+        if (position >= 0) {
+            removedSize = delete(removed, removedSize, position);
+            return;
+        }
+
+        // Caminho lento (id fora de ordem, ex: durante a reconstrução): vai para added
+        if (compactContains(id, new long[BLOCK_SIZE])) {
+            return;
+        }
+        position = Arrays.binarySearch(added, 0, addedSize, id);
+        if (position >= 0) {
+            return;
+        }
+        added = insert(added, addedSize, -position - 1, id);
+        addedSize++;
+        compactIfNeeded();
+    }
+
+    // Remove um id (os blocos só são reescritos quando removed cresce)
+    void remove(long id) {
+        int position = Arrays.binarySearch(added, 0, addedSize, id);
+        if (position >= 0) {
+            addedSize = delete(added, addedSize, position);
+            return;
+        }
+
+        if (!compactContains(id, new long[BLOCK_SIZE])) {
+            return;
+        }
+        position = Arrays.binarySearch(removed, 0, removedSize, id);
+        if (position >= 0) {
+            return;
+        }
+        removed = insert(removed, removedSize, -position - 1, id);
+        removedSize++;
+        compactIfNeeded();
+    }
+
+    // Todos os ids da lista em ordem crescente
+    long[] toArray() {
+        long[] compact = new long[compactSize];
+        long[] ids = new long[BLOCK_SIZE];
+        int offset = 0;
+
+        for (int block = 0; block < blocks; block++) {
+            int count = decode(block, ids);
+            System.arraycopy(ids, 0, compact, offset, count);
+            offset += count;
+        }
+
+        if (tailSize > 0) {
+            System.arraycopy(tail, 0, compact, offset, tailSize);
+        }
+
+        if (addedSize == 0 && removedSize == 0) {
+            return compact;
+        }
+
+        // Junta os blocos (menos os removidos) com os adicionados fora de ordem
+        long[] all = new long[size()];
+        int i = 0;
+        int a = 0;
+        int r = 0;
+        int out = 0;
+        while (i < compact.length || a < addedSize) {
+            if (a == addedSize || (i < compact.length && compact[i] < added[a])) {
+                long id = compact[i++];
+                while (r < removedSize && removed[r] < id) {
+                    r++;
+                }
+                if (r < removedSize && removed[r] == id) {
+                    continue;
+                }
+                all[out++] = id;
+            } else {
+                all[out++] = added[a++];
+            }
+        }
+        return all;
+    }
+
+    // Cópia para o snapshot do journal (feita sob o lock de leitura do índice)
+    // Um bloco fechado nunca é alterado depois de criado: só os arrays externos são copiados
+    PostingList copy() {
+        var copy = new PostingList();
+        copy.blockFirst = Arrays.copyOf(blockFirst, blocks);
+        copy.blockCount = Arrays.copyOf(blockCount, blocks);
+        copy.blockData = Arrays.copyOf(blockData, blocks);
+        copy.blocks = blocks;
+        copy.tail = tail == null ? null : tail.clone();
+        copy.tailSize = tailSize;
+        copy.compactSize = compactSize;
+        copy.added = Arrays.copyOf(added, addedSize);
+        copy.addedSize = addedSize;
+        copy.removed = Arrays.copyOf(removed, removedSize);
+        copy.removedSize = removedSize;
+        return copy;
+    }
+
+    // Tamanho da lista gravada por writeTo()
+    int serializedSize() {
+        int size = Integer.BYTES;
+        for (int block = 0; block < blocks; block++) {
+            size += Long.BYTES + 2 * Integer.BYTES + blockData[block].length;
+        }
+        return size + 3 * Integer.BYTES + (tailSize + addedSize + removedSize) * Long.BYTES;
+    }
+
+    // Grava a lista como está em memória (blocos já compactados, sem decodificar):
+    // [blocos][por bloco: primeiro id, quantidade, tamanho, deltas][tail][added][removed]
+    void writeTo(ByteBuffer out) {
+        out.putInt(blocks);
+        for (int block = 0; block < blocks; block++) {
+            out.putLong(blockFirst[block]).putInt(blockCount[block]).putInt(blockData[block].length);
+            out.put(blockData[block]);
+        }
+        putIds(out, tail, tailSize);
+        putIds(out, added, addedSize);
+        putIds(out, removed, removedSize);
+    }
+
+    // Lê uma lista gravada por writeTo()
+    static PostingList readFrom(ByteBuffer in) {
+        var list = new PostingList();
+
+        int blocks = in.getInt();
+        list.blockFirst = new long[blocks];
+        list.blockCount = new int[blocks];
+        list.blockData = new byte[blocks][];
+        for (int block = 0; block < blocks; block++) {
+            list.blockFirst[block] = in.getLong();
+            list.blockCount[block] = in.getInt();
+            list.blockData[block] = new byte[in.getInt()];
+            in.get(list.blockData[block]);
+            list.compactSize += list.blockCount[block];
+        }
+        list.blocks = blocks;
+
+        list.tailSize = in.getInt();
+        if (list.tailSize > 0) {
+            list.tail = new long[BLOCK_SIZE];
+            getIds(in, list.tail, list.tailSize);
+        }
+        list.compactSize += list.tailSize;
+
+        list.addedSize = in.getInt();
+        list.added = getIds(in, new long[list.addedSize], list.addedSize);
+        list.removedSize = in.getInt();
+        list.removed = getIds(in, new long[list.removedSize], list.removedSize);
+        return list;
+    }
+
+    private static void putIds(ByteBuffer out, long[] ids, int size) {
+        out.putInt(size);
+        for (int i = 0; i < size; i++) {
+            out.putLong(ids[i]);
+        }
+    }
+
+    private static long[] getIds(ByteBuffer in, long[] ids, int size) {
+        for (int i = 0; i < size; i++) {
+            ids[i] = in.getLong();
+        }
+        return ids;
+    }
+
+    // Cria um leitor que percorre a lista do maior para o menor id
+    Reader reader() {
+        return new Reader();
+    }
+
+    // Incorpora added/removed aos blocos quando passam de 1/8 da lista
+    // Custo O(n), mas amortizado sobre pelo menos n/8 operações
+    private void compactIfNeeded() {
+        if (addedSize + removedSize > Math.max(MIN_PENDING, compactSize / 8)) {
+            rebuild(toArray());
+        }
+    }
+
+    // Recria toda a lista a partir de ids ordenados
+    private void rebuild(long[] ids) {
+        blockFirst = new long[0];
+        blockCount = new int[0];
+        blockData = new byte[0][];
+        blocks = 0;
+        tail = null;
+        tailSize = 0;
+        added = EMPTY;
+        addedSize = 0;
+        removed = EMPTY;
+        removedSize = 0;
+
+        int full = ids.length - ids.length % BLOCK_SIZE;
+        for (int offset = 0; offset < full; offset += BLOCK_SIZE) {
+            seal(Arrays.copyOfRange(ids, offset, offset + BLOCK_SIZE), BLOCK_SIZE);
+        }
+
+        for (int i = full; i < ids.length; i++) {
+            if (tail == null) {
+                tail = new long[BLOCK_SIZE];
+            }
+            tail[tailSize++] = ids[i];
+        }
+
+        compactSize = ids.length;
+    }
+
+    // Verifica se o id está nos blocos + tail (buffer: área para decodificar um bloco)
+    private boolean compactContains(long id, long[] buffer) {
+        if (tailSize > 0 && id >= tail[0]) {
+            return Arrays.binarySearch(tail, 0, tailSize, id) >= 0;
+        }
+        int target = blockOf(id);
+        if (target < 0) {
+            return false;
+        }
+        return Arrays.binarySearch(buffer, 0, decode(target, buffer), id) >= 0;
+    }
+
+    // Último bloco fechado cujo primeiro id é <= id (ou -1)
+    private int blockOf(long id) {
+        int position = Arrays.binarySearch(blockFirst, 0, blocks, id);
+        return position >= 0 ? position : -position - 2;
+    }
+
+    // Insere um id em um array ordenado (cresce o array se necessário)
+    private static long[] insert(long[] ids, int size, int position, long id) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, Math.max(8, size * 2));
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        return ids;
+    }
+
+    // Remove a posição de um array ordenado; retorna o novo tamanho
+    private static int delete(long[] ids, int size, int position) {
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        return size - 1;
+    }
+
+    // Compacta ids ordenados em um novo bloco fechado
+    private void seal(long[] ids, int count) {
+
+        if (blocks == blockFirst.length) {
+            int capacity = Math.max(4, blocks * 2);
+            blockFirst = Arrays.copyOf(blockFirst, capacity);
+            blockCount = Arrays.copyOf(blockCount, capacity);
+            blockData = Arrays.copyOf(blockData, capacity);
+        }
+
+        // Pior caso: 10 bytes por delta
+        byte[] buffer = new byte[count * 10];
+        int length = 0;
+        for (int i = 1; i < count; i++) {
+            length = writeVarint(buffer, length, ids[i] - ids[i - 1]);
+        }
+
+        blockFirst[blocks] = ids[0];
+        blockCount[blocks] = count;
+        blockData[blocks] = Arrays.copyOf(buffer, length);
+        blocks++;
+    }
+
+    // Decodifica um bloco fechado; retorna a quantidade de ids
+    private int decode(int block, long[] out) {
+        byte[] data = blockData[block];
+        long value = blockFirst[block];
+        int count = blockCount[block];
+        out[0] = value;
+
+        int position = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            out[i] = value;
+        }
+        return count;
+    }
+
+    // Escreve um long positivo em varint (7 bits por byte)
+    private static int writeVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    // Leitor de uma posting list durante uma consulta
+    // Mantém o último bloco decodificado, já que as consultas
+    // percorrem os ids do maior para o menor
+    // Combina os blocos (pulando os removidos) com os adicionados fora de ordem
+    final class Reader {
+
+        // Próximo id dos blocos ainda não carregado
+        private static final long UNLOADED = -2;
+
+        private final long[] decoded = new long[BLOCK_SIZE];
+        private int decodedBlock = -1;
+        private int decodedCount;
+
+        // Posição da iteração decrescente: bloco atual (blocks = tail) e índice dentro dele
+        private int block = blocks;
+        private int index = tailSize;
+
+        // Próximo id dos blocos já lido (ou UNLOADED / -1 quando acabou)
+        private long compactNext = UNLOADED;
+
+        // Quantidade de ids de added ainda não devolvidos
+        private int addedIndex = addedSize;
+
+        // Posiciona o leitor para devolver apenas ids menores que beforeId
+        void seekBefore(long beforeId) {
+            block = blocks;
+            index = tailSize;
+            compactNext = UNLOADED;
+
+            int position = Arrays.binarySearch(added, 0, addedSize, beforeId);
+            addedIndex = position >= 0 ? position : -position - 1;
+
+            while (true) {
+                long[] ids = load(block);
+                int count = block == blocks ? tailSize : decodedCount;
+
+                // Procura o primeiro id >= beforeId dentro do bloco atual
+                position = Arrays.binarySearch(ids, 0, count, beforeId);
+                index = position >= 0 ? position : -position - 1;
+
+                // Algum id do bloco é menor que beforeId, ou não há mais blocos
+                if (index > 0 || block == 0) {
+                    return;
+                }
+                block--;
+            }
+        }
+
+        // Próximo id em ordem decrescente, ou -1 quando acabou
+        long next() {
+            if (compactNext == UNLOADED) {
+                compactNext = nextCompact();
+            }
+
+            long fromAdded = addedIndex > 0 ? added[addedIndex - 1] : -1;
+            if (fromAdded > compactNext) {
+                addedIndex--;
+                return fromAdded;
+            }
+
+            long id = compactNext;
+            if (id != -1) {
+                compactNext = UNLOADED;
+            }
+            return id;
+        }
+
+        // Verifica se o id está na lista
+        boolean contains(long id) {
+            if (addedSize > 0 && Arrays.binarySearch(added, 0, addedSize, id) >= 0) {
+                return true;
+            }
+            if (removedSize > 0 && Arrays.binarySearch(removed, 0, removedSize, id) >= 0) {
+                return false;
+            }
+
+            if (tailSize > 0 && id >= tail[0]) {
+                return Arrays.binarySearch(tail, 0, tailSize, id) >= 0;
+            }
+
+            int target = blockOf(id);
+            if (target < 0) {
+                return false;
+            }
+
+            if (decodedBlock != target) {
+                decodedCount = decode(target, decoded);
+                decodedBlock = target;
+            }
+            return Arrays.binarySearch(decoded, 0, decodedCount, id) >= 0;
+        }
+
+        // Próximo id dos blocos + tail em ordem decrescente, pulando os removidos
+        private long nextCompact() {
+            while (true) {
+                while (index == 0) {
+                    if (block == 0) {
+                        return -1;
+                    }
+                    block--;
+                    load(block);
+                    index = decodedCount;
+                }
+
+                long[] ids = block == blocks ? tail : decoded;
+                long id = ids[--index];
+                if (removedSize == 0 || Arrays.binarySearch(removed, 0, removedSize, id) < 0) {
+                    return id;
+                }
+            }
+        }
+
+        // Carrega o bloco informado (blocks = tail)
+        private long[] load(int target) {
+            if (target == blocks) {
+                return tail == null ? decoded : tail;
+            }
+            if (decodedBlock != target) {
+                decodedCount = decode(target, decoded);
+                decodedBlock = target;
+            }
+            return decoded;
+        }
+    }
+}
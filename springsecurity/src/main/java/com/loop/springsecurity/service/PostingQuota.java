@@ -0,0 +1,182 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Roles da aplicação (os limites são por role)
+import com.loop.springsecurity.entities.Role;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Utilitários
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cota de tweets por usuário (token bucket) no POST /tweets
+// Cada usuário tem um balde com até "burst" fichas, reabastecido a "per-minute"
+// fichas por minuto; cada tweet consome uma ficha. Os limites dependem da role.
+//
+// O estado de cada balde é um único long, atualizado com CAS (sem locks):
+//   [instante do último reabastecimento (44 bits, ms)][fichas (20 bits, em milésimos)]
+// Uma verificação não aloca nada quando o balde já existe.
+// Baldes ociosos (cheios há mais de app.quota.idle-millis) são descartados
+// periodicamente; o mapa tem um limite de tamanho.
+@Component
+public class PostingQuota {
+
+    // Bits do estado usados pelas fichas (em milésimos de ficha)
+    private static final int TOKEN_BITS = 20;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    // Uma ficha = 1000 milésimos
+    private static final long SCALE = 1000;
+
+    // Intervalo mínimo entre duas varreduras feitas por newBucket com o mapa cheio
+    // (a varredura percorre todos os baldes: não pode rodar a cada usuário novo)
+    private static final long FULL_EVICTION_GAP_MILLIS = 1000;
+
+    // Limite de uma role: capacidade e reabastecimento
+    private record Limit(long capacity, long perMinute) {
+    }
+
+    // Limites por role
+    private final Map<Role.Values, Limit> limits = new EnumMap<>(Role.Values.class);
+
+    // Balde de cada usuário
+    private final ConcurrentHashMap<UUID, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    // Quantidade máxima de baldes em memória
+    private final int maxBuckets;
+
+    // Tempo sem reabastecer depois do qual um balde é descartado
+    private final long idleMillis;
+
+    // Base dos instantes guardados no estado (cabem em 44 bits)
+    private final long epoch = System.currentTimeMillis();
+
+    // Instante (relativo a epoch) da última varredura feita com o mapa cheio
+    private final AtomicLong lastFullEviction = new AtomicLong(-FULL_EVICTION_GAP_MILLIS);
+
+    private final Map<Role.Values, Counter> rejected = new EnumMap<>(Role.Values.class);
+
+    public PostingQuota(
+            @Value("${app.quota.basic.per-minute:30}") long basicPerMinute,
+            @Value("${app.quota.basic.burst:10}") long basicBurst,
+            @Value("${app.quota.admin.per-minute:600}") long adminPerMinute,
+            @Value("${app.quota.admin.burst:100}") long adminBurst,
+            @Value("${app.quota.max-buckets:100000}") int maxBuckets,
+            @Value("${app.quota.idle-millis:600000}") long idleMillis,
+            MeterRegistry meterRegistry
+    ) {
+        limits.put(Role.Values.BASIC, limit(basicBurst, basicPerMinute));
+        limits.put(Role.Values.ADMIN, limit(adminBurst, adminPerMinute));
+        this.maxBuckets = maxBuckets;
+        this.idleMillis = idleMillis;
+
+        for (var role : Role.Values.values()) {
+            rejected.put(role, Counter.builder("quota.rejected")
+                    .tag("role", role.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("quota.buckets", buckets, Map::size).register(meterRegistry);
+    }
+
+    private static Limit limit(long burst, long perMinute) {
+        if (burst < 1 || burst * SCALE > TOKEN_MASK || perMinute < 1) {
+            throw new IllegalArgumentException("Cota inválida: burst entre 1 e " + TOKEN_MASK / SCALE
+                    + " e per-minute maior que zero");
+        }
+        return new Limit(burst * SCALE, perMinute);
+    }
+
+    // Consome uma ficha do usuário
+    // Retorna 0 se o tweet pode ser criado, ou os milissegundos até a próxima ficha
+    public long tryAcquire(UUID userId, Role.Values role) {
+        var limit = limits.get(role);
+        long now = System.currentTimeMillis() - epoch;
+
+        var bucket = buckets.get(userId);
+        if (bucket == null) {
+            bucket = newBucket(userId, limit, now);
+            if (bucket == null) {
+                rejected.get(role).increment();
+                return 1000;
+            }
+        }
+
+        while (true) {
+            long state = bucket.get();
+            long last = state >>> TOKEN_BITS;
+            long tokens = state & TOKEN_MASK;
+
+            // Reabastece pelo tempo decorrido (perMinute / 60 milésimos de ficha por ms)
+            // Se nem um milésimo foi gerado, o instante não avança (não perde a fração)
+            long added = (now - last) * limit.perMinute() / 60;
+            if (added > 0) {
+                tokens = Math.min(limit.capacity(), tokens + added);
+                last = now;
+            }
+            // Limite menor que o saldo (ex: usuário deixou de ser ADMIN)
+            tokens = Math.min(limit.capacity(), tokens);
+
+            if (tokens < SCALE) {
+                rejected.get(role).increment();
+                return Math.max(1, (SCALE - tokens) * 60 / limit.perMinute());
+            }
+
+            if (bucket.compareAndSet(state, last << TOKEN_BITS | (tokens - SCALE))) {
+                return 0;
+            }
+        }
+    }
+
+    // Cria o balde (cheio) do usuário
+    // Mapa cheio: descarta os ociosos (no máximo uma varredura por FULL_EVICTION_GAP_MILLIS,
+    // feita por uma única thread); se continuar cheio, retorna null (o tweet é recusado)
+    private AtomicLong newBucket(UUID userId, Limit limit, long now) {
+        if (buckets.size() >= maxBuckets) {
+            long last = lastFullEviction.get();
+            if (now - last >= FULL_EVICTION_GAP_MILLIS && lastFullEviction.compareAndSet(last, now)) {
+                evictIdle();
+            }
+            if (buckets.size() >= maxBuckets) {
+                return null;
+            }
+        }
+        var created = new AtomicLong(now << TOKEN_BITS | limit.capacity());
+        var existing = buckets.putIfAbsent(userId, created);
+        return existing != null ? existing : created;
+    }
+
+    // Descarta os baldes sem reabastecimento há mais de idleMillis
+    // (com idleMillis maior que o tempo para encher, o balde já estaria cheio:
+    // descartá-lo não muda nada para o usuário)
+    @Scheduled(fixedDelayString = "${app.quota.evict-interval-millis:60000}")
+    public void evictIdle() {
+        long now = System.currentTimeMillis() - epoch;
+        for (var entry : buckets.entrySet()) {
+            long last = entry.getValue().get() >>> TOKEN_BITS;
+            if (now - last > idleMillis) {
+                buckets.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Quantidade de baldes em memória
+    public int size() {
+        return buckets.size();
+    }
+}
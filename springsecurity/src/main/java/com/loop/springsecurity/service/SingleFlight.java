@@ -0,0 +1,114 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Estruturas concorrentes (thread-safe)
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Interface funcional que produz um valor
+import java.util.function.Supplier;
+
+// Coalescência de requisições idênticas ("single-flight")
+// Quando várias requisições concorrentes pedem a mesma chave, apenas a primeira
+// (a "líder") executa a consulta; as outras esperam e recebem o mesmo resultado.
+// Não existe lock global: cada chave tem seu próprio CompletableFuture,
+// e a espera das seguidoras é limitada por um timeout.
+@Component
+public class SingleFlight {
+
+    // Consultas em andamento, por chave
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Tempo máximo que uma requisição espera pela consulta da líder
+    private final long maxWaitMillis;
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(
+            @Value("${app.singleflight.max-wait-millis:2000}") long maxWaitMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.maxWaitMillis = maxWaitMillis;
+
+        this.leaders = Counter.builder("singleflight.requests")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("singleflight.requests")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("singleflight.requests")
+                .tag("result", "timeout")
+                .register(meterRegistry);
+    }
+
+    // Executa o loader uma única vez por chave entre as chamadas concorrentes
+    // A chave deve identificar completamente a consulta (ex: versão + página)
+    @SuppressWarnings("unchecked")
+    public <V> V execute(Object key, Supplier<V> loader) {
+
+        var future = new CompletableFuture<Object>();
+        var existing = inFlight.putIfAbsent(key, future);
+
+        // Já existe uma consulta idêntica em andamento: espera por ela
+        if (existing != null) {
+            coalesced.increment();
+            return (V) await(existing);
+        }
+
+        // Esta requisição é a líder: executa a consulta
+        leaders.increment();
+
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            // As seguidoras recebem o mesmo erro
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            // A próxima requisição para essa chave faz uma nova consulta
+            inFlight.remove(key, future);
+        }
+    }
+
+    // Espera o resultado da líder por no máximo maxWaitMillis
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Espera limitada: melhor recusar do que acumular threads presas
+            timeouts.increment();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Estruturas de dados
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Trending de hashtags e menções calculado em memória, de forma incremental
+// Cada janela (5 minutos, 1 hora, 1 dia) é dividida em buckets de tempo.
+// Cada bucket guarda um count-min sketch (contagem aproximada de todas as tags)
+// e um heap com as tags mais frequentes do bucket (candidatas ao top-K).
+// A memória é constante, independente de quantas tags distintas aparecem,
+// e nenhuma consulta agregada é feita no banco.
+@Component
+public class TrendingTags {
+
+    // Dimensões do count-min sketch de cada bucket
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 2048;
+
+    // Quantidade de candidatas mantidas no heap de cada bucket
+    private static final int CANDIDATES_PER_BUCKET = 64;
+
+    // Tipo de tag extraída do conteúdo do tweet
+    public enum Type {
+        HASHTAG('#'),
+        MENTION('@');
+
+        private final char prefix;
+
+        Type(char prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    // Janelas disponíveis: duração total e quantidade de buckets
+    public enum Window {
+        FIVE_MINUTES("5m", 60_000L, 5),
+        HOUR("1h", 300_000L, 12),
+        DAY("1d", 3_600_000L, 24);
+
+        private final String label;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(String label, long bucketMillis, int buckets) {
+            this.label = label;
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        // Converte "5m", "1h" ou "1d" na janela correspondente
+        public static Window fromLabel(String label) {
+            for (var window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Janela inválida: " + label);
+        }
+    }
+
+    // Uma tag e sua contagem estimada
+    public record Trend(String tag, long count) {
+    }
+
+    // Buckets de cada combinação de tipo e janela
+    private final Map<Type, Map<Window, Bucket[]>> buckets = new HashMap<>();
+
+    public TrendingTags() {
+        for (var type : Type.values()) {
+            var byWindow = new HashMap<Window, Bucket[]>();
+            for (var window : Window.values()) {
+                var ring = new Bucket[window.buckets];
+                for (int i = 0; i < ring.length; i++) {
+                    ring[i] = new Bucket();
+                }
+                byWindow.put(window, ring);
+            }
+            buckets.put(type, byWindow);
+        }
+    }
+
+    // Extrai hashtags e menções do conteúdo de um tweet e contabiliza
+    // Custo: alguns incrementos de contadores por tag (microssegundos)
+    public void record(String content) {
+        record(content, System.currentTimeMillis());
+    }
+
+    void record(String content, long now) {
+        if (content == null) {
+            return;
+        }
+
+        for (var type : Type.values()) {
+            for (var tag : extract(content, type.prefix)) {
+                for (var window : Window.values()) {
+                    var ring = buckets.get(type).get(window);
+                    long epoch = now / window.bucketMillis;
+                    ring[(int) (epoch % ring.length)].add(epoch, tag);
+                }
+            }
+        }
+    }
+
+    // Top-K tags do tipo informado na janela
+    public List<Trend> top(Type type, Window window, int k) {
+        return top(type, window, k, System.currentTimeMillis());
+    }
+
+    List<Trend> top(Type type, Window window, int k, long now) {
+        var ring = buckets.get(type).get(window);
+        long currentEpoch = now / window.bucketMillis;
+
+        // Buckets que ainda pertencem à janela
+        var valid = new ArrayList<Bucket>(ring.length);
+        var candidates = new HashSet<String>();
+        for (var bucket : ring) {
+            synchronized (bucket) {
+                if (bucket.epoch > currentEpoch - ring.length && bucket.epoch <= currentEpoch) {
+                    valid.add(bucket);
+                    for (var candidate : bucket.heap) {
+                        candidates.add(candidate.tag);
+                    }
+                }
+            }
+        }
+
+        // Contagem da janela = soma das estimativas de cada bucket válido
+        var trends = new ArrayList<Trend>(candidates.size());
+        for (var tag : candidates) {
+            long total = 0;
+            for (var bucket : valid) {
+                synchronized (bucket) {
+                    total += bucket.sketch.estimate(tag);
+                }
+            }
+            trends.add(new Trend(tag, total));
+        }
+
+        trends.sort(Comparator.comparingLong(Trend::count).reversed().thenComparing(Trend::tag));
+        return trends.size() > k ? trends.subList(0, k) : trends;
+    }
+
+    // Extrai as tags com o prefixo informado (ex: "#java", "@joao")
+    // Tags são normalizadas para minúsculas, sem o prefixo
+    static List<String> extract(String content, char prefix) {
+        var tags = new ArrayList<String>(2);
+        int length = content.length();
+
+        for (int i = 0; i < length; i++) {
+            if (content.charAt(i) != prefix) {
+                continue;
+            }
+
+            // O prefixo precisa iniciar uma palavra (evita e-mails como a@b.com)
+            if (i > 0 && isTagChar(content.charAt(i - 1))) {
+                continue;
+            }
+
+            int end = i + 1;
+            while (end < length && isTagChar(content.charAt(end))) {
+                end++;
+            }
+
+            if (end > i + 1) {
+                tags.add(content.substring(i + 1, end).toLowerCase(Locale.ROOT));
+            }
+            i = end - 1;
+        }
+        return tags;
+    }
+
+    private static boolean isTagChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    // Bucket de tempo: sketch com a contagem de todas as tags + heap de candidatas
+    private static final class Bucket {
+
+        // Índice do período de tempo deste bucket (now / bucketMillis)
+        private long epoch = -1;
+
+        private final CountMinSketch sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+
+        // Min-heap das candidatas: a raiz é a menos frequente (primeira a sair)
+        private final PriorityQueue<Candidate> heap =
+                new PriorityQueue<>(CANDIDATES_PER_BUCKET, Comparator.comparingLong(candidate -> candidate.count));
+
+        // Tag -> candidata no heap
+        private final Map<String, Candidate> inHeap = new HashMap<>();
+
+        synchronized void add(long epoch, String tag) {
+
+            // O bucket pertence a um período antigo: reaproveita para o período atual
+            if (this.epoch != epoch) {
+                this.epoch = epoch;
+                sketch.clear();
+                heap.clear();
+                inHeap.clear();
+            }
+
+            long estimate = sketch.add(tag, 1);
+
+            var candidate = inHeap.get(tag);
+            if (candidate != null) {
+                // Atualiza a contagem e reposiciona no heap
+                heap.remove(candidate);
+                candidate.count = estimate;
+                heap.add(candidate);
+                return;
+            }
+
+            if (heap.size() < CANDIDATES_PER_BUCKET) {
+                candidate = new Candidate(tag, estimate);
+                heap.add(candidate);
+                inHeap.put(tag, candidate);
+                return;
+            }
+
+            // Heap cheio: substitui a menos frequente se a nova tag for mais frequente
+            var weakest = heap.peek();
+            if (weakest != null && estimate > weakest.count) {
+                heap.poll();
+                inHeap.remove(weakest.tag);
+
+                candidate = new Candidate(tag, estimate);
+                heap.add(candidate);
+                inHeap.put(tag, candidate);
+            }
+        }
+    }
+
+    // Tag candidata ao top-K de um bucket
+    private static final class Candidate {
+
+        private final String tag;
+        private long count;
+
+        private Candidate(String tag, long count) {
+            this.tag = tag;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,451 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Executados quando o Spring cria/destrói o bean
+import jakarta.annotation.PostConstruct;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Acesso JDBC direto
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Utilitários de IO
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Utilitários
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Arquivo morto dos tweets antigos (camada fria, fora do MySQL)
+// Os tweets mais velhos que app.archive.max-age são movidos pelo TweetArchiver para
+// segmentos comprimidos em disco (ArchiveSegment), somente leitura e mapeados em memória.
+// Os segmentos ficam em ordem cronológica: cada novo segmento só tem tweets mais novos
+// que os anteriores. O /feed e a timeline continuam neles quando passam do fim do tb_tweets.
+//
+// Com várias instâncias, só uma grava segmentos; as outras abrem os novos quando recebem
+// o evento do outbox (o TweetArchiver o grava junto com o delete das linhas) e, por
+// garantia, a cada app.archive.refresh-interval-millis.
+//
+// Os segmentos são imutáveis: um tweet arquivado apagado (DELETE ou moderação) vira
+// uma linha em tb_archive_tombstones. O conjunto inteiro fica em memória e é filtrado
+// em todas as leituras; o índice esparso guarda quantos apagados há em cada bloco,
+// para a paginação do feed continuar pulando blocos sem descomprimir.
+@Component
+public class TweetArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetArchive.class);
+
+    // Chave (posição na ordem do feed) do tweet mais recente do arquivo
+    public record Key(Instant creationTimestamp, long tweetId) {
+    }
+
+    // Diretório dos segmentos
+    private final Path directory;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InvalidationOutbox outbox;
+
+    // Esta instância grava segmentos (app.archive.enabled): só ela descarta os temporários
+    private final boolean writer;
+
+    // Segmentos do mais antigo para o mais novo (lista imutável, trocada a cada append)
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    // Tweets arquivados apagados (tb_archive_tombstones)
+    private volatile Set<Long> tombstones = Set.of();
+
+    // Apagados de um segmento: por bloco e no total
+    private record Dead(int[] perBlock, int total) {
+    }
+
+    // Apagados de cada segmento, e o total encontrado nos segmentos abertos
+    private volatile Map<ArchiveSegment, Dead> deadPerSegment = Map.of();
+    private volatile long deadCount;
+
+    // Eventos do outbox ainda não aplicados: segmentos novos e tweets arquivados apagados
+    private volatile boolean refreshRequested;
+    private final Set<Long> pendingTombstones = ConcurrentHashMap.newKeySet();
+
+    public TweetArchive(
+            @Value("${app.archive.dir:archive}") String directory,
+            @Value("${app.archive.enabled:false}") boolean writer,
+            JdbcTemplate jdbcTemplate,
+            InvalidationOutbox outbox
+    ) {
+        this.directory = Path.of(directory);
+        this.writer = writer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.outbox = outbox;
+
+        // Outra instância gravou um segmento ("*") ou apagou um tweet arquivado (id)
+        // O handler roda dentro do poll do outbox: só anota, e applyPending() aplica em lote
+        outbox.register(InvalidationOutbox.ARCHIVE, key -> {
+            if (InvalidationOutbox.ALL.equals(key)) {
+                refreshRequested = true;
+            } else {
+                pendingTombstones.add(Long.parseLong(key));
+            }
+        });
+    }
+
+    // Abre os segmentos já existentes
+    @PostConstruct
+    public void open() throws IOException {
+        if (writer && Files.isDirectory(directory)) {
+
+            // Segmento pela metade (queda durante a escrita): descartado, os tweets continuam no banco
+            try (var temporary = Files.newDirectoryStream(directory, "*.tmp")) {
+                for (var path : temporary) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        refresh();
+        log.info("Arquivo morto: {} segmentos, {} tweets", segments.size(), size());
+    }
+
+    // Abre os segmentos novos (gravados por outra instância) e relê os tweets apagados
+    @Scheduled(
+            initialDelayString = "${app.archive.refresh-interval-millis:60000}",
+            fixedDelayString = "${app.archive.refresh-interval-millis:60000}"
+    )
+    public synchronized void refresh() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        var known = new HashSet<Path>();
+        for (var segment : segments) {
+            known.add(segment.path().getFileName());
+        }
+
+        var fresh = new ArrayList<ArchiveSegment>();
+        try (var files = Files.newDirectoryStream(directory, "segment-*.seg")) {
+            for (var path : files) {
+                if (!known.contains(path.getFileName())) {
+                    fresh.add(ArchiveSegment.open(path));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Falha ao abrir os segmentos novos do arquivo morto; nova tentativa no próximo ciclo", e);
+            return;
+        }
+
+        // O nome tem o número do segmento com zeros à esquerda: ordem alfabética = cronológica
+        var opened = new ArrayList<>(segments);
+        opened.addAll(fresh);
+        opened.sort((a, b) -> a.path().getFileName().toString().compareTo(b.path().getFileName().toString()));
+
+        // Sem segmentos não há o que esconder (e o banco pode ainda não ter a tabela)
+        var loaded = tombstones;
+        if (!opened.isEmpty()) {
+            try {
+                loaded = new HashSet<>(jdbcTemplate.queryForList(
+                        "select tweet_id from tb_archive_tombstones", Long.class));
+                loaded.addAll(tombstones);
+            } catch (DataAccessException e) {
+                log.warn("Falha ao ler os tweets arquivados apagados; nova tentativa no próximo ciclo", e);
+            }
+        }
+
+        publish(opened, fresh, loaded);
+    }
+
+    // Aplica os eventos anotados pelo handler do outbox
+    // Vários tombstones viram uma única troca de estado (cópia do conjunto + contagem por bloco)
+    @Scheduled(
+            initialDelayString = "${app.archive.apply-interval-millis:1000}",
+            fixedDelayString = "${app.archive.apply-interval-millis:1000}"
+    )
+    public void applyPending() {
+        if (refreshRequested) {
+            refreshRequested = false;
+            refresh();
+        }
+        if (!pendingTombstones.isEmpty()) {
+            var ids = new ArrayList<>(pendingTombstones);
+            tombstone(ids);
+            ids.forEach(pendingTombstones::remove);
+        }
+    }
+
+    // Grava um novo segmento (tweets em ordem crescente de chave, todos mais novos que o arquivo)
+    public synchronized void append(List<ArchivedTweet> tweets) {
+        if (tweets.isEmpty()) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+
+            var name = "segment-%010d.seg".formatted(segments.size());
+            var temporary = directory.resolve(name + ".tmp");
+            var target = directory.resolve(name);
+
+            // Escreve em um arquivo temporário e renomeia: um segmento é visível inteiro ou não existe
+            ArchiveSegment.write(temporary, tweets);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+            var segment = ArchiveSegment.open(target);
+            var updated = new ArrayList<>(segments);
+            updated.add(segment);
+            publish(updated, List.of(segment), tombstones);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Registra tweets arquivados como apagados (na transação atual, junto com o evento do outbox)
+    // Depois do commit, o chamador aplica localmente com tombstone()
+    public void recordDeleted(Collection<Long> tweetIds) {
+        if (tweetIds.isEmpty()) {
+            return;
+        }
+        var ids = List.copyOf(tweetIds);
+        jdbcTemplate.batchUpdate(
+                "insert ignore into tb_archive_tombstones (tweet_id, created_at) values (?, current_timestamp(3))",
+                ids,
+                ids.size(),
+                (statement, id) -> statement.setLong(1, id)
+        );
+        outbox.appendAll(InvalidationOutbox.ARCHIVE, ids.stream().map(String::valueOf).toList());
+    }
+
+    // Esconde tweets arquivados apagados (nesta instância)
+    public synchronized void tombstone(Collection<Long> tweetIds) {
+        var updated = new HashSet<>(tombstones);
+        if (updated.addAll(tweetIds)) {
+            publish(segments, List.of(), updated);
+        }
+    }
+
+    // Indica se o tweet arquivado foi apagado
+    public boolean isDeleted(long tweetId) {
+        return tombstones.contains(tweetId);
+    }
+
+    // Troca o estado visível: segmentos, tweets apagados e apagados por bloco
+    // Segmentos novos são contados contra todos os apagados; os já abertos, só contra os novos
+    private void publish(List<ArchiveSegment> opened, List<ArchiveSegment> fresh, Set<Long> updated) {
+        var added = new HashSet<>(updated);
+        added.removeAll(tombstones);
+
+        var dead = new IdentityHashMap<ArchiveSegment, Dead>(deadPerSegment);
+        long total = 0;
+        for (var segment : opened) {
+            var ids = fresh.contains(segment) ? updated : added;
+            var current = dead.get(segment);
+            if (current == null || !ids.isEmpty()) {
+                var counts = current == null ? new int[segment.blockCount()] : current.perBlock().clone();
+                int sum = current == null ? 0 : current.total();
+                if (!ids.isEmpty()) {
+                    sum += countDead(segment, ids, counts);
+                }
+                current = new Dead(counts, sum);
+                dead.put(segment, current);
+            }
+            total += current.total();
+        }
+
+        // Ordem das escritas: quem lê os segmentos novos já encontra os contadores deles
+        tombstones = Set.copyOf(updated);
+        deadPerSegment = dead;
+        deadCount = total;
+        segments = List.copyOf(opened);
+    }
+
+    // Soma em counts os apagados de cada bloco (só descomprime blocos cujo intervalo de ids os contém)
+    // Retorna quantos foram encontrados no segmento
+    private static int countDead(ArchiveSegment segment, Set<Long> ids, int[] counts) {
+        int found = 0;
+        for (int b = 0; b < segment.blockCount(); b++) {
+            boolean candidate = false;
+            for (var id : ids) {
+                if (segment.mayContainId(b, id)) {
+                    candidate = true;
+                    break;
+                }
+            }
+            if (!candidate) {
+                continue;
+            }
+            for (var tweet : segment.block(b)) {
+                if (ids.contains(tweet.tweetId())) {
+                    counts[b]++;
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    // Quantidade de tweets arquivados (sem os apagados)
+    public long size() {
+        long size = 0;
+        for (var segment : segments) {
+            size += segment.size();
+        }
+        return size - deadCount;
+    }
+
+    // Tweet mais recente do arquivo (null se vazio)
+    public Key lastKey() {
+        var current = segments;
+        if (current.isEmpty()) {
+            return null;
+        }
+        var last = current.get(current.size() - 1);
+        return new Key(last.lastTimestamp(), last.lastTweetId());
+    }
+
+    // Página do feed dentro do arquivo: pula "offset" tweets a partir do mais recente
+    // Blocos inteiros são pulados pelo índice esparso (menos os apagados), sem descomprimir
+    public List<ArchivedTweet> newest(long offset, int limit) {
+        var result = new ArrayList<ArchivedTweet>(limit);
+        long skip = offset;
+
+        var current = segments;
+        var deleted = tombstones;
+        var dead = deadPerSegment;
+        for (int s = current.size() - 1; s >= 0 && result.size() < limit; s--) {
+            var segment = current.get(s);
+            var segmentDead = dead.get(segment);
+
+            long segmentLive = segment.size() - (segmentDead == null ? 0 : segmentDead.total());
+            if (skip >= segmentLive) {
+                skip -= segmentLive;
+                continue;
+            }
+
+            for (int b = segment.blockCount() - 1; b >= 0 && result.size() < limit; b--) {
+                int live = segment.count(b) - (segmentDead == null ? 0 : segmentDead.perBlock()[b]);
+                if (skip >= live) {
+                    skip -= live;
+                    continue;
+                }
+
+                var block = segment.block(b);
+                for (int i = block.size() - 1; i >= 0 && result.size() < limit; i--) {
+                    var tweet = block.get(i);
+                    if (deleted.contains(tweet.tweetId())) {
+                        continue;
+                    }
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    result.add(tweet);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Timeline de um usuário dentro do arquivo: tweets anteriores à chave informada
+    // (timestamp null = a partir do mais recente)
+    // Blocos sem o autor são pulados pelo filtro de Bloom do índice esparso
+    public List<ArchivedTweet> userTweetsBefore(UUID userId, Instant timestamp, Long tweetId, int limit) {
+        var result = new ArrayList<ArchivedTweet>(limit);
+
+        var current = segments;
+        var deleted = tombstones;
+        for (int s = current.size() - 1; s >= 0 && result.size() < limit; s--) {
+            var segment = current.get(s);
+
+            for (int b = segment.blockCount() - 1; b >= 0 && result.size() < limit; b--) {
+                if (timestamp != null && !segment.startsBefore(b, timestamp, tweetId)) {
+                    continue;
+                }
+                if (!segment.mayContainAuthor(b, userId)) {
+                    continue;
+                }
+
+                var block = segment.block(b);
+                for (int i = block.size() - 1; i >= 0 && result.size() < limit; i--) {
+                    var tweet = block.get(i);
+                    if (!tweet.userId().equals(userId) || deleted.contains(tweet.tweetId())) {
+                        continue;
+                    }
+                    if (timestamp != null && ArchivedTweet.compareKey(
+                            tweet.creationTimestamp(), tweet.tweetId(), timestamp, tweetId) >= 0) {
+                        continue;
+                    }
+                    result.add(tweet);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Busca tweets arquivados pelo id, sem os apagados (busca, DELETE e moderação)
+    public Map<Long, ArchivedTweet> findByIds(Collection<Long> tweetIds) {
+        var result = new HashMap<Long, ArchivedTweet>();
+        if (tweetIds.isEmpty()) {
+            return result;
+        }
+
+        var deleted = tombstones;
+        for (var segment : segments) {
+            for (int b = 0; b < segment.blockCount(); b++) {
+                boolean candidate = false;
+                for (var id : tweetIds) {
+                    if (segment.mayContainId(b, id)) {
+                        candidate = true;
+                        break;
+                    }
+                }
+                if (!candidate) {
+                    continue;
+                }
+
+                for (var tweet : segment.block(b)) {
+                    if (tweetIds.contains(tweet.tweetId()) && !deleted.contains(tweet.tweetId())) {
+                        result.put(tweet.tweetId(), tweet);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    // Percorre todos os tweets arquivados, sem os apagados (usado para reconstruir o índice de busca)
+    public void forEach(Consumer<ArchivedTweet> consumer) {
+        var deleted = tombstones;
+        for (var segment : segments) {
+            for (int b = 0; b < segment.blockCount(); b++) {
+                for (var tweet : segment.block(b)) {
+                    if (!deleted.contains(tweet.tweetId())) {
+                        consumer.accept(tweet);
+                    }
+                }
+            }
+        }
+    }
+}
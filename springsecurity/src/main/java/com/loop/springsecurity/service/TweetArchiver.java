@@ -0,0 +1,247 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Executado quando o Spring destrói o bean
+import jakarta.annotation.PreDestroy;
+
+// Entidade Tweet
+import com.loop.springsecurity.entities.Tweet;
+
+// Repositório de tweets
+import com.loop.springsecurity.repository.TweetRepository;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Cria o bean apenas quando o arquivamento está ligado
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+// Classe usada para criar requisições de paginação
+import org.springframework.data.domain.PageRequest;
+
+// Acesso JDBC direto
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+// Evento publicado quando a aplicação está pronta para receber requisições
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+
+// Anotações do Spring
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Controle de transação programático
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Utilitários
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Move os tweets antigos do tb_tweets para o arquivo morto (TweetArchive)
+// A cada execução lê lotes dos tweets mais velhos que app.archive.max-age
+// (pelo índice deleted, creation_timestamp), grava cada lote como um segmento
+// e só então apaga as linhas (e seus likes) do banco.
+// Assim o tb_tweets e seus índices guardam apenas a parte "quente" do histórico.
+//
+// Os segmentos ficam no disco local: com várias instâncias, ligue o arquivamento
+// em apenas uma e compartilhe o diretório (volume) com as demais. O delete grava
+// um evento no outbox para as outras instâncias abrirem o segmento novo.
+//
+// Um tweet apagado (tombstone) entre a leitura do lote e o delete continua no banco
+// para o TweetPurger, e vira um tombstone do arquivo (o segmento já o contém).
+//
+// Roda em uma thread própria de prioridade mínima, e não no agendador compartilhado
+// dos @Scheduled: uma execução longa não atrasa o outbox, o flush dos likes etc.
+@Component
+@ConditionalOnProperty(name = "app.archive.enabled", havingValue = "true")
+public class TweetArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetArchiver.class);
+
+    private final TweetRepository tweetRepository;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TweetArchive archive;
+    private final LikeCounter likeCounter;
+    private final FeedVersion feedVersion;
+    private final InvalidationOutbox outbox;
+
+    // Idade a partir da qual um tweet vai para o arquivo
+    private final Duration maxAge;
+
+    // Tweets por lote (um segmento por lote)
+    private final int batchSize;
+
+    // Lotes por execução (limita o trabalho de cada ciclo)
+    private final int maxBatches;
+
+    // Intervalo entre execuções
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "tweet-archiver");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public TweetArchiver(
+            TweetRepository tweetRepository,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TweetArchive archive,
+            LikeCounter likeCounter,
+            FeedVersion feedVersion,
+            InvalidationOutbox outbox,
+            @Value("${app.archive.max-age:365d}") Duration maxAge,
+            @Value("${app.archive.batch-size:10000}") int batchSize,
+            @Value("${app.archive.max-batches:20}") int maxBatches,
+            @Value("${app.archive.interval-millis:3600000}") long intervalMillis
+    ) {
+        this.tweetRepository = tweetRepository;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.archive = archive;
+        this.likeCounter = likeCounter;
+        this.feedVersion = feedVersion;
+        this.outbox = outbox;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.intervalMillis = intervalMillis;
+    }
+
+    // Começa a arquivar periodicamente depois que a aplicação subiu
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::archiveOldTweets, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Encerra a thread quando a aplicação é desligada
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Executa o arquivamento (uma rodada)
+    public void archiveOldTweets() {
+        long archived = 0;
+
+        try {
+            // Termina um arquivamento interrompido: tweets já gravados em segmento saem do banco
+            removeAlreadyArchived();
+
+            var cutoff = Instant.now().minus(maxAge);
+
+            for (int i = 0; i < maxBatches; i++) {
+                var tweets = tweetRepository.findArchivable(cutoff, PageRequest.of(0, batchSize));
+                if (tweets.isEmpty()) {
+                    break;
+                }
+
+                // 1) grava o segmento (fsync + rename atômico)
+                archive.append(tweets.stream().map(this::toArchived).toList());
+
+                // 2) remove do banco
+                remove(tweets.stream().map(Tweet::getTweetId).toList());
+
+                archived += tweets.size();
+                if (tweets.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha ao arquivar tweets antigos", e);
+        }
+
+        if (archived > 0) {
+
+            // O total do feed não mudou, mas as páginas profundas agora vêm do arquivo
+            feedVersion.bump();
+            log.info("Tweets arquivados: {} (total no arquivo: {})", archived, archive.size());
+        }
+    }
+
+    // Remove do banco os tweets que já estão no arquivo
+    private void removeAlreadyArchived() {
+        var last = archive.lastKey();
+        if (last == null) {
+            return;
+        }
+
+        List<Long> ids;
+        while (!(ids = tweetRepository.findArchivedIds(
+                false, last.creationTimestamp(), last.tweetId(), PageRequest.of(0, batchSize))).isEmpty()) {
+            remove(ids);
+        }
+
+        // Arquivados e apagados antes do delete: ficam para o TweetPurger,
+        // mas o segmento já os contém (precisam de tombstone no arquivo)
+        var deleted = new ArrayList<Long>();
+        for (var id : tweetRepository.findArchivedIds(
+                true, last.creationTimestamp(), last.tweetId(), PageRequest.of(0, batchSize))) {
+            if (!archive.isDeleted(id)) {
+                deleted.add(id);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> archive.recordDeleted(deleted));
+            archive.tombstone(deleted);
+        }
+    }
+
+    // Apaga do banco, em uma transação, os tweets (e likes) já gravados no arquivo
+    // As linhas ficam travadas (for update) entre a leitura do deleted e o delete:
+    // um DELETE concorrente espera e depois encontra o tweet só no arquivo
+    private void remove(List<Long> ids) {
+        var params = Map.of("ids", ids);
+        var deleted = transactionTemplate.execute(status -> {
+            var live = new ArrayList<Long>();
+            var tombstoned = new ArrayList<Long>();
+            namedJdbcTemplate.query(
+                    "select tweet_id, deleted from tb_tweets where tweet_id in (:ids) for update",
+                    params,
+                    rs -> {
+                        (rs.getBoolean("deleted") ? tombstoned : live).add(rs.getLong("tweet_id"));
+                    }
+            );
+
+            if (!live.isEmpty()) {
+                var liveParams = Map.of("ids", live);
+                namedJdbcTemplate.update("delete from tb_tweet_likes where tweet_id in (:ids)", liveParams);
+                namedJdbcTemplate.update("delete from tb_tweets where tweet_id in (:ids)", liveParams);
+            }
+            archive.recordDeleted(tombstoned);
+
+            // As outras instâncias abrem o segmento novo e descartam as páginas do feed
+            outbox.append(InvalidationOutbox.ARCHIVE, InvalidationOutbox.ALL);
+            outbox.append(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+            return tombstoned;
+        });
+
+        archive.tombstone(deleted);
+        ids.forEach(likeCounter::forget);
+    }
+
+    // Converte a linha do banco para o formato do arquivo
+    // Os likes pendentes em memória entram no valor arquivado
+    private ArchivedTweet toArchived(Tweet tweet) {
+        return new ArchivedTweet(
+                tweet.getTweetId(),
+                tweet.getUser().getUserID(),
+                tweet.getUser().getUsername(),
+                tweet.getContent(),
+                tweet.getCreationTimestamp(),
+                likeCounter.count(tweet.getTweetId(), tweet.getLikes())
+        );
+    }
+}
@@ -0,0 +1,307 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// DTO enviado para os clientes conectados no stream
+import com.loop.springsecurity.controller.dto.FeedItemDto;
+
+// Repositório usado para reenviar tweets antigos (resume)
+import com.loop.springsecurity.repository.TweetRepository;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Executado quando o Spring destrói o bean
+import jakarta.annotation.PreDestroy;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Emissor de Server-Sent Events do Spring MVC
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Utilitários de IO e coleções
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+// Estruturas concorrentes (thread-safe)
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Broadcaster único (em memória) dos novos tweets para o endpoint /feed/stream
+// - cada assinante tem um buffer limitado de eventos pendentes
+// - o envio é feito por um pool pequeno de threads, nunca pela thread que criou o tweet
+// - assinantes lentos (buffer cheio) são desconectados
+// - conexões ociosas não ocupam threads (SseEmitter usa request assíncrono)
+//   e custam apenas o objeto do assinante + o emitter
+@Component
+public class TweetBroadcaster {
+
+    // Quantidade máxima de tweets reenviados quando o cliente retoma o stream
+    private static final int MAX_REPLAY = 100;
+
+    // Assinantes conectados
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Últimos tweets publicados (usados para retomar o stream sem ir ao banco)
+    private final ArrayDeque<FeedItemDto> recent = new ArrayDeque<>();
+
+    // Threads responsáveis por escrever os eventos nas conexões
+    private final ExecutorService sender;
+
+    private final TweetRepository tweetRepository;
+
+    // Tamanho do buffer de eventos pendentes por assinante
+    private final int bufferSize;
+
+    // Quantidade de tweets recentes mantidos em memória
+    private final int recentSize;
+
+    // Tempo de vida de uma conexão (o cliente reconecta com Last-Event-ID)
+    private final long timeoutMillis;
+
+    private final Counter dropped;
+
+    public TweetBroadcaster(
+            TweetRepository tweetRepository,
+            InvalidationOutbox outbox,
+            @Value("${app.feed.stream.buffer-size:32}") int bufferSize,
+            @Value("${app.feed.stream.recent-size:256}") int recentSize,
+            @Value("${app.feed.stream.timeout-millis:1800000}") long timeoutMillis,
+            @Value("${app.feed.stream.sender-threads:2}") int senderThreads,
+            MeterRegistry meterRegistry
+    ) {
+        this.tweetRepository = tweetRepository;
+        this.bufferSize = bufferSize;
+        this.recentSize = recentSize;
+        this.timeoutMillis = timeoutMillis;
+
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            var thread = new Thread(runnable, "feed-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.dropped = Counter.builder("feed.stream.dropped")
+                .description("Assinantes desconectados por estarem lentos")
+                .register(meterRegistry);
+
+        Gauge.builder("feed.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+
+        // Tweets apagados em outras instâncias saem dos recentes
+        // (sem leitura do outbox por muito tempo: descarta todos e o replay vai ao banco)
+        outbox.register(InvalidationOutbox.TWEETS, key -> {
+            if (InvalidationOutbox.ALL.equals(key)) {
+                synchronized (recent) {
+                    recent.clear();
+                }
+            } else {
+                forget(Long.parseLong(key));
+            }
+        });
+    }
+
+    // Registra um novo assinante
+    // lastId (opcional): último tweet recebido pelo cliente; os posteriores são reenviados
+    public SseEmitter subscribe(Long lastId) {
+        return subscribe(lastId, new SseEmitter(timeoutMillis));
+    }
+
+    // Registra um assinante em um emitter já criado (os testes usam um emitter próprio)
+    SseEmitter subscribe(Long lastId, SseEmitter emitter) {
+
+        var subscriber = new Subscriber(emitter);
+
+        // Remove o assinante quando a conexão termina
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        // Enquanto o replay acontece nenhum envio ao vivo é agendado
+        subscriber.sending.set(true);
+
+        // Registra antes do replay para não perder tweets publicados no meio do caminho
+        subscribers.add(subscriber);
+
+        if (lastId != null) {
+            for (var item : replay(lastId)) {
+                if (!subscriber.send(item)) {
+                    subscribers.remove(subscriber);
+                    return emitter;
+                }
+                subscriber.replayedUpTo = item.tweetId();
+            }
+        }
+
+        // Libera os envios ao vivo (e envia o que chegou durante o replay)
+        subscriber.sending.set(false);
+        schedule(subscriber);
+
+        return emitter;
+    }
+
+    // Publica um novo tweet para todos os assinantes
+    public void publish(FeedItemDto item) {
+
+        synchronized (recent) {
+            if (recent.size() == recentSize) {
+                recent.removeFirst();
+            }
+            recent.addLast(item);
+        }
+
+        for (var subscriber : subscribers) {
+
+            // Buffer cheio: o cliente não está acompanhando, é desconectado
+            if (!subscriber.offer(item, bufferSize)) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+                dropped.increment();
+                continue;
+            }
+
+            schedule(subscriber);
+        }
+    }
+
+    // Remove um tweet apagado dos recentes (não é mais reenviado no replay)
+    // Se ele era o mais antigo, o replay a partir de um id anterior passa a ir ao banco,
+    // que também ignora os tweets apagados
+    public void forget(long tweetId) {
+        synchronized (recent) {
+            recent.removeIf(item -> item.tweetId() == tweetId);
+        }
+    }
+
+    // Agenda o envio dos eventos pendentes (no máximo um envio por assinante por vez)
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.pending.isEmpty() && subscriber.sending.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Envia todos os eventos pendentes de um assinante
+    private void drain(Subscriber subscriber) {
+        try {
+            FeedItemDto item;
+            while ((item = subscriber.poll()) != null) {
+
+                // Já enviado pelo replay
+                if (item.tweetId() <= subscriber.replayedUpTo) {
+                    continue;
+                }
+
+                if (!subscriber.send(item)) {
+                    subscribers.remove(subscriber);
+                    return;
+                }
+            }
+        } finally {
+            subscriber.sending.set(false);
+        }
+
+        // Algum evento pode ter chegado entre o último poll e a liberação do flag
+        schedule(subscriber);
+    }
+
+    // Tweets posteriores a lastId, em ordem crescente de id
+    private List<FeedItemDto> replay(long lastId) {
+
+        synchronized (recent) {
+            // Se o tweet informado ainda está na memória, o replay não vai ao banco
+            if (!recent.isEmpty() && recent.peekFirst().tweetId() <= lastId) {
+                var items = new ArrayList<FeedItemDto>();
+                for (var item : recent) {
+                    if (item.tweetId() > lastId) {
+                        items.add(item);
+                    }
+                }
+                return items.size() > MAX_REPLAY
+                        ? items.subList(items.size() - MAX_REPLAY, items.size())
+                        : items;
+            }
+        }
+
+        // Caso contrário busca no banco (limitado a MAX_REPLAY tweets)
+        return tweetRepository.findTop100ByTweetIdGreaterThanAndDeletedFalseOrderByTweetIdAsc(lastId)
+                .stream()
+                .map(tweet -> new FeedItemDto(
+                        tweet.getTweetId(),
+                        tweet.getContent(),
+                        tweet.getUser().getUsername(),
+                        tweet.getLikes()
+                ))
+                .toList();
+    }
+
+    // Encerra as threads de envio quando a aplicação é desligada
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    // Um cliente conectado no stream
+    // Mantido o menor possível: conexões ociosas só custam estes campos
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Eventos ainda não enviados (fila sem lock, tamanho controlado por size)
+        private final ConcurrentLinkedQueue<FeedItemDto> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        // Indica se existe um envio em andamento para este assinante
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        // Maior id enviado pelo replay (evita duplicar tweets que chegaram ao vivo durante o replay)
+        private volatile long replayedUpTo;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // Coloca o evento no buffer; retorna false se o buffer está cheio
+        private boolean offer(FeedItemDto item, int bufferSize) {
+            if (size.incrementAndGet() > bufferSize) {
+                return false;
+            }
+            pending.offer(item);
+            return true;
+        }
+
+        private FeedItemDto poll() {
+            var item = pending.poll();
+            if (item != null) {
+                size.decrementAndGet();
+            }
+            return item;
+        }
+
+        // Escreve o evento na conexão; retorna false se a conexão caiu
+        private boolean send(FeedItemDto item) {
+
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(item.tweetId()))
+                        .name("tweet")
+                        .data(item));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Executados quando o Spring cria/destrói o bean
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Métricas (Micrometer)
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Marca a classe como um componente gerenciado pelo Spring
+import org.springframework.stereotype.Component;
+
+// Utilitários de IO
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Utilitários
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Journal local (append-only) dos eventos de tweets
+// Cada tweet criado, apagado (tombstone) ou expurgado vira um registro binário
+// curto no fim de um arquivo journal-N.log. O fsync é feito em lote, a cada
+// app.journal.fsync-interval-millis, e não a cada registro.
+// Periodicamente o índice de busca já montado é gravado em um snapshot
+// (JournalSnapshot: posting lists compactadas e tombstones), e os journals
+// anteriores a ele são apagados.
+// Na subida, o índice é restaurado do snapshot mais recente (mapeado em memória,
+// sem tokenizar nenhum tweet) e só os journals posteriores a ele são reaplicados,
+// sem varrer o tb_tweets.
+// Cada snapshot guarda também a marca do banco (dbMark): o instante até onde o
+// índice já tinha sido conciliado com o tb_tweets. Depois da restauração, o índice
+// confere no banco só o que mudou a partir dessa marca (TweetSearchIndex.reconcile).
+//
+// Formato de um registro do journal:
+//   [tamanho (int)][crc32 (int)][tipo (byte)][tweetId (long)][conteúdo UTF-8]
+// Um registro com crc inválido (queda durante a escrita) encerra a leitura do arquivo.
+//
+// O fsync e a compactação rodam cada um em sua própria thread, e não no agendador
+// compartilhado dos @Scheduled: o fsync não fica na fila atrás de um job lento
+// (nem de uma compactação), o que aumentaria a janela de registros sem fsync.
+@Component
+public class TweetJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetJournal.class);
+
+    // Tipos de registro
+    private static final byte CREATED = 1;
+    private static final byte DELETED = 2;
+    private static final byte PURGED = 3;
+
+    // Tamanho + crc
+    private static final int RECORD_HEADER = 8;
+
+    // Recebe o snapshot (termos e tombstones) e depois os eventos dos journals posteriores
+    // Nos journals, deleted() não traz o conteúdo (null)
+    interface Listener extends JournalSnapshot.Visitor {
+
+        // Tweet criado
+        void created(long tweetId, String content);
+
+        // Tweet expurgado (removido de vez)
+        void purged(long tweetId, String content);
+    }
+
+    // Estado gravado nos snapshots (o índice de busca)
+    // Deve conter tudo o que foi aplicado antes da troca de journal que precede a gravação:
+    // cada evento é aplicado em memória antes de ir para o journal
+    interface Source {
+        void write(JournalSnapshot.Writer writer) throws IOException;
+    }
+
+    // Liga/desliga o journal (desligado: o índice é reconstruído pelo banco)
+    private final boolean enabled;
+
+    // Diretório dos journals e snapshots (local a cada instância)
+    private final Path directory;
+
+    // Tamanho mínimo do journal atual para gerar um novo snapshot
+    private final long snapshotMinBytes;
+
+    // Journal aberto para escrita e sua sequência
+    private FileChannel channel;
+    private long sequence;
+    private long written;
+
+    // Há registros escritos ainda sem fsync
+    private boolean dirty;
+
+    // Buffer e CRC reaproveitados (acesso sob o lock do journal)
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private final CRC32 crc = new CRC32();
+
+    // Impede que a compactação apague arquivos durante a restauração (e vice-versa)
+    private final Object snapshotLock = new Object();
+
+    // Estado gravado nos snapshots; null até o índice ser restaurado ou reconstruído
+    private volatile Source source;
+
+    // Marca do banco (epoch millis) já refletida no journal; -1 = ainda desconhecida
+    // Gravada no próximo snapshot
+    private volatile long dbMark = -1;
+
+    private final Counter appends;
+    private final Timer fsyncs;
+
+    // Intervalos do fsync em lote e da compactação
+    private final long fsyncIntervalMillis;
+    private final long snapshotIntervalMillis;
+
+    // Threads do fsync e da compactação (criadas em open(), se o journal está ligado)
+    private ScheduledExecutorService fsyncExecutor;
+    private ScheduledExecutorService snapshotExecutor;
+
+    public TweetJournal(
+            @Value("${app.journal.enabled:true}") boolean enabled,
+            @Value("${app.journal.dir:journal}") String directory,
+            @Value("${app.journal.snapshot-min-bytes:1048576}") long snapshotMinBytes,
+            @Value("${app.journal.fsync-interval-millis:200}") long fsyncIntervalMillis,
+            @Value("${app.journal.snapshot-interval-millis:600000}") long snapshotIntervalMillis,
+            MeterRegistry meterRegistry
+    ) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.snapshotMinBytes = snapshotMinBytes;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+
+        this.appends = Counter.builder("journal.appends").register(meterRegistry);
+        this.fsyncs = Timer.builder("journal.fsync").register(meterRegistry);
+    }
+
+    // Abre um journal novo (os anteriores ficam somente leitura até a próxima compactação)
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+
+        // Snapshot pela metade (queda durante a escrita): descartado
+        try (var temporary = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (var path : temporary) {
+                Files.delete(path);
+            }
+        }
+
+        long next = 0;
+        for (long journal : sequences("journal-", ".log")) {
+            next = Math.max(next, journal + 1);
+        }
+        for (long snapshot : sequences("snapshot-", ".snap")) {
+            next = Math.max(next, snapshot);
+        }
+
+        synchronized (this) {
+            openJournal(next);
+        }
+
+        fsyncExecutor = singleThread("journal-fsync", Thread.NORM_PRIORITY);
+        fsyncExecutor.scheduleWithFixedDelay(this::sync,
+                fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+
+        snapshotExecutor = singleThread("journal-snapshot", Thread.MIN_PRIORITY);
+        snapshotExecutor.scheduleWithFixedDelay(this::snapshot,
+                snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static ScheduledExecutorService singleThread(String name, int priority) {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            var thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Registra um tweet criado
+    public void created(long tweetId, String content) {
+        append(CREATED, tweetId, content);
+    }
+
+    // Registra um tweet apagado (tombstone)
+    public void deleted(long tweetId) {
+        append(DELETED, tweetId, null);
+    }
+
+    // Registra um tweet expurgado (o conteúdo é usado para tirá-lo do índice na restauração)
+    public void purged(long tweetId, String content) {
+        append(PURGED, tweetId, content);
+    }
+
+    // Escreve um registro no fim do journal atual (sem fsync)
+    // Uma falha de escrita não derruba a requisição: o banco continua sendo a fonte da verdade
+    private synchronized void append(byte type, long tweetId, String content) {
+        if (channel == null) {
+            return;
+        }
+
+        byte[] bytes = content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+        int payload = 1 + 8 + bytes.length;
+
+        if (buffer.capacity() < RECORD_HEADER + payload) {
+            buffer = ByteBuffer.allocate(RECORD_HEADER + payload);
+        }
+        buffer.clear();
+        buffer.position(RECORD_HEADER);
+        buffer.put(type).putLong(tweetId).put(bytes);
+
+        crc.reset();
+        crc.update(buffer.array(), RECORD_HEADER, payload);
+        buffer.putInt(0, payload).putInt(4, (int) crc.getValue());
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            written += RECORD_HEADER + payload;
+            dirty = true;
+            appends.increment();
+        } catch (IOException e) {
+            log.error("Falha ao escrever no journal {}", sequence, e);
+        }
+    }
+
+    // fsync em lote: um único force() cobre todos os registros escritos desde o anterior
+    // Feito fora do lock, para não segurar as escritas durante o fsync
+    // Roda a cada app.journal.fsync-interval-millis (thread journal-fsync)
+    public void sync() {
+        FileChannel current;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            current = channel;
+            dirty = false;
+        }
+
+        try {
+            fsyncs.record(() -> {
+                try {
+                    current.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Canal fechado por uma troca de journal (que já fez o fsync)
+            if (!(e.getCause() instanceof ClosedChannelException)) {
+                log.error("Falha no fsync do journal", e.getCause());
+            }
+        }
+    }
+
+    // Registra que o índice foi conciliado com o banco até o instante informado
+    // Só deve ser chamado depois que as diferenças encontradas foram escritas no journal
+    public void markReconciled(long mark) {
+        dbMark = mark;
+    }
+
+    // Marca da última conciliação (-1 se ainda não houve nenhuma)
+    public long reconciledMark() {
+        return dbMark;
+    }
+
+    // Restaura o estado: snapshot mais recente + journals posteriores
+    // Retorna a marca do banco gravada no snapshot, ou -1 se ainda não existe snapshot
+    // (nesse caso o índice precisa ser reconstruído pelo banco e registrado com register())
+    // Um snapshot ilegível (corrompido ou de outro formato) é descartado: vale como nenhum
+    public long restore(Listener listener) {
+        if (!enabled) {
+            return -1;
+        }
+
+        synchronized (snapshotLock) {
+            Path snapshot;
+            try {
+                snapshot = latestSnapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (snapshot == null) {
+                return -1;
+            }
+
+            long start = System.currentTimeMillis();
+            JournalSnapshot.Header header;
+            long count;
+            try {
+                header = JournalSnapshot.header(snapshot);
+                count = JournalSnapshot.read(snapshot, listener);
+            } catch (IOException e) {
+                log.error("Snapshot do journal ilegível, descartado: {}", snapshot, e);
+                discard(snapshot);
+                return -1;
+            }
+
+            // Só a cauda: journals gravados depois do snapshot (o atual começou nesta subida)
+            long replayed = 0;
+            long current = currentSequence();
+            try {
+                for (long journal : sequences("journal-", ".log")) {
+                    if (journal < header.journalSequence() || journal >= current) {
+                        continue;
+                    }
+                    replayed += readJournal(journal, (type, tweetId, content) -> {
+                        switch (type) {
+                            case CREATED -> listener.created(tweetId, content);
+                            case DELETED -> listener.deleted(tweetId, null);
+                            case PURGED -> listener.purged(tweetId, content);
+                            default -> {
+                            }
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            if (dbMark < 0) {
+                dbMark = header.dbMark();
+            }
+
+            log.info("Journal restaurado: {} registros do snapshot + {} eventos em {} ms",
+                    count, replayed, System.currentTimeMillis() - start);
+            return header.dbMark();
+        }
+    }
+
+    private static void discard(Path snapshot) {
+        try {
+            Files.deleteIfExists(snapshot);
+        } catch (IOException e) {
+            log.warn("Falha ao apagar o snapshot {}", snapshot, e);
+        }
+    }
+
+    // Registra o estado gravado nos snapshots, depois da restauração/reconstrução
+    // Na primeira subida (sem snapshot) o primeiro é gravado já (snapshot())
+    void register(Source source) {
+        this.source = source;
+    }
+
+    // Grava um novo snapshot do estado e apaga o anterior e os journals que ele cobre
+    // Sem snapshot anterior grava sempre; depois, só se há journals fechados
+    // ou o atual passou de snapshot-min-bytes
+    // Roda a cada app.journal.snapshot-interval-millis (thread journal-snapshot)
+    public void snapshot() {
+        var source = this.source;
+        if (!enabled || source == null) {
+            return;
+        }
+
+        synchronized (snapshotLock) {
+            try {
+                var previous = latestSnapshot();
+                long mark = dbMark;
+
+                if (previous != null) {
+                    var header = JournalSnapshot.header(previous);
+                    long from = header.journalSequence();
+                    boolean closedJournals = sequences("journal-", ".log").stream()
+                            .anyMatch(journal -> journal >= from && journal < currentSequence());
+                    if (!closedJournals && currentWritten() < snapshotMinBytes) {
+                        return;
+                    }
+                    if (mark < 0) {
+                        mark = header.dbMark();
+                    }
+                }
+
+                // A marca é lida antes da troca de journal, e o estado é lido depois dela:
+                // tudo o que foi para os journals anteriores (inclusive o que a conciliação
+                // escreveu até a marca) já estava aplicado em memória
+                long until = roll();
+                write(source, until, mark);
+
+                // O novo snapshot substitui o anterior e os journals que ele cobre
+                if (previous != null) {
+                    Files.deleteIfExists(previous);
+                }
+                deleteJournalsBefore(until);
+            } catch (IOException e) {
+                log.error("Falha ao gerar o snapshot do journal", e);
+            }
+        }
+    }
+
+    private void write(Source source, long until, long mark) throws IOException {
+        long start = System.currentTimeMillis();
+        try (var writer = new JournalSnapshot.Writer(snapshotPath(until), until, mark)) {
+            source.write(writer);
+            writer.commit();
+            log.info("Snapshot do journal {}: {} registros em {} ms",
+                    until, writer.count(), System.currentTimeMillis() - start);
+        }
+    }
+
+    // Fecha o journal atual (com fsync) e abre o próximo; retorna a sequência do novo
+    private synchronized long roll() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        openJournal(sequence + 1);
+        return sequence;
+    }
+
+    private void openJournal(long next) throws IOException {
+        channel = FileChannel.open(journalPath(next),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        sequence = next;
+        written = channel.size();
+        dirty = false;
+    }
+
+    private synchronized long currentSequence() {
+        return sequence;
+    }
+
+    private synchronized long currentWritten() {
+        return written;
+    }
+
+    // Para as threads e faz o último fsync
+    // Uma compactação em andamento termina antes (ela troca o journal aberto)
+    @PreDestroy
+    public void close() throws IOException {
+        if (fsyncExecutor != null) {
+            fsyncExecutor.shutdown();
+            snapshotExecutor.shutdown();
+        }
+        synchronized (snapshotLock) {
+            closeChannel();
+        }
+    }
+
+    private synchronized void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // Recebe os registros de um journal
+    private interface RecordVisitor {
+        void visit(byte type, long tweetId, String content);
+    }
+
+    // Lê os registros válidos de um journal; retorna a quantidade lida
+    private long readJournal(long journal, RecordVisitor visitor) throws IOException {
+        var path = journalPath(journal);
+        try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (file.size() == 0) {
+                return 0;
+            }
+
+            // Journals fechados são pequenos (limitados pelo intervalo de snapshot)
+            var data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+            var check = new CRC32();
+            long count = 0;
+
+            while (data.remaining() >= RECORD_HEADER) {
+                int payload = data.getInt(data.position());
+                int expected = data.getInt(data.position() + 4);
+                if (payload < 9 || data.remaining() < RECORD_HEADER + payload) {
+                    break;
+                }
+
+                var record = data.slice(data.position() + RECORD_HEADER, payload);
+                check.reset();
+                check.update(record.duplicate());
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+
+                byte type = record.get();
+                long tweetId = record.getLong();
+                var content = new byte[record.remaining()];
+                record.get(content);
+                visitor.visit(type, tweetId, new String(content, StandardCharsets.UTF_8));
+
+                data.position(data.position() + RECORD_HEADER + payload);
+                count++;
+            }
+
+            if (data.hasRemaining()) {
+                log.warn("Journal {} truncado: {} bytes finais ignorados", journal, data.remaining());
+            }
+            return count;
+        }
+    }
+
+    private Path latestSnapshot() throws IOException {
+        long latest = -1;
+        for (long snapshot : sequences("snapshot-", ".snap")) {
+            latest = Math.max(latest, snapshot);
+        }
+        return latest < 0 ? null : snapshotPath(latest);
+    }
+
+    private void deleteJournalsBefore(long until) throws IOException {
+        for (long journal : sequences("journal-", ".log")) {
+            if (journal < until) {
+                Files.deleteIfExists(journalPath(journal));
+            }
+        }
+    }
+
+    // Sequências dos arquivos com o prefixo/sufixo informados
+    private List<Long> sequences(String prefix, String suffix) throws IOException {
+        var result = new ArrayList<Long>();
+        try (var files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+            for (var path : files) {
+                var name = path.getFileName().toString();
+                result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+            }
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private Path journalPath(long journal) {
+        return directory.resolve("journal-%016d.log".formatted(journal));
+    }
+
+    private Path snapshotPath(long journal) {
+        return directory.resolve("snapshot-%016d.snap".formatted(journal));
+    }
+}
@@ -0,0 +1,163 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Executado quando o Spring destrói o bean
+import jakarta.annotation.PreDestroy;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Evento publicado quando a aplicação está pronta para receber requisições
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+
+// Anotações do Spring
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Acesso JDBC direto
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+// Controle de transação programático
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Utilitários
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Expurgo em segundo plano dos tweets apagados (tombstone)
+// O DELETE /tweets/{id} e a moderação só marcam deleted = true; aqui as linhas
+// marcadas são removidas de verdade (junto com seus likes), em lotes pequenos
+// e com pausa entre eles, para que os locks no tb_tweets durem pouco e o
+// expurgo não dispute o banco com as requisições.
+// Roda em uma thread própria de prioridade mínima.
+@Component
+public class TweetPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetPurger.class);
+
+    // Um tweet apagado a expurgar
+    private record Tombstone(long tweetId, String content) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TweetSearchIndex searchIndex;
+    private final LikeCounter likeCounter;
+    private final TweetJournal journal;
+
+    // Linhas removidas por lote
+    private final int batchSize;
+
+    // Pausa entre lotes e intervalo entre execuções
+    private final long pauseMillis;
+    private final long intervalMillis;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "tweet-purger");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    public TweetPurger(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            TweetSearchIndex searchIndex,
+            LikeCounter likeCounter,
+            TweetJournal journal,
+            @Value("${app.purge.batch-size:200}") int batchSize,
+            @Value("${app.purge.pause-millis:100}") long pauseMillis,
+            @Value("${app.purge.interval-millis:30000}") long intervalMillis
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+        this.likeCounter = likeCounter;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.intervalMillis = intervalMillis;
+    }
+
+    // Começa a expurgar depois que a aplicação subiu
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.scheduleWithFixedDelay(this::purge, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Expurga lotes até não haver mais tweets apagados
+    void purge() {
+        long total = 0;
+
+        try {
+            while (true) {
+                int purged = purgeBatch();
+                total += purged;
+
+                if (purged < batchSize) {
+                    break;
+                }
+
+                // Dá espaço para as requisições entre um lote e outro
+                Thread.sleep(pauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao expurgar tweets apagados", e);
+        }
+
+        if (total > 0) {
+            log.info("Tweets apagados expurgados: {}", total);
+        }
+    }
+
+    // Remove um lote de tweets apagados e seus likes
+    private int purgeBatch() {
+        var tombstones = jdbcTemplate.query(
+                "select tweet_id, content from tb_tweets where deleted = true limit ?",
+                (rs, row) -> new Tombstone(rs.getLong("tweet_id"), rs.getString("content")),
+                batchSize
+        );
+
+        if (tombstones.isEmpty()) {
+            return 0;
+        }
+
+        var ids = tombstones.stream().map(Tombstone::tweetId).toList();
+
+        transactionTemplate.executeWithoutResult(status -> delete(ids));
+
+        // Só depois do commit: tira os tweets do índice de busca e da memória dos likes
+        for (var tombstone : tombstones) {
+            searchIndex.remove(tombstone.tweetId(), tombstone.content());
+            likeCounter.forget(tombstone.tweetId());
+            journal.purged(tombstone.tweetId(), tombstone.content());
+        }
+
+        return tombstones.size();
+    }
+
+    private void delete(List<Long> ids) {
+        var params = Map.of("ids", ids);
+        namedJdbcTemplate.update("delete from tb_tweet_likes where tweet_id in (:ids)", params);
+        namedJdbcTemplate.update("delete from tb_tweets where tweet_id in (:ids) and deleted = true", params);
+    }
+
+    // Encerra a thread quando a aplicação é desligada
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,628 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// Repositório usado para reconstruir o índice a partir do banco
+import com.loop.springsecurity.repository.TweetRepository;
+import com.loop.springsecurity.repository.TweetSummary;
+import com.loop.springsecurity.repository.TweetText;
+
+// Logger da aplicação
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Evento publicado quando a aplicação está pronta para receber requisições
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+
+// Anotações do Spring
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Classe usada para criar requisições de paginação
+import org.springframework.data.domain.PageRequest;
+
+// Exceção de acesso ao banco
+import org.springframework.dao.DataAccessException;
+
+// Execução periódica
+import org.springframework.scheduling.annotation.Scheduled;
+
+// Datas e durações
+import java.time.Duration;
+import java.time.Instant;
+
+// Utilitários de IO (snapshot do journal)
+import java.io.IOException;
+
+// Utilitários de texto e coleções
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Lock de leitura/escrita
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Índice invertido em memória para a busca de tweets (/tweets/search)
+// Para cada termo guarda a lista de ids dos tweets que o contêm (PostingList),
+// ordenada por id e compactada. É atualizado a cada tweet criado/removido
+// e restaurado pelo TweetJournal quando a aplicação sobe: as posting lists vêm prontas
+// do snapshot e só os eventos posteriores a ele são reaplicados (na primeira subida,
+// é reconstruído a partir do banco e grava o primeiro snapshot).
+// O banco continua sendo a fonte da verdade: a partir da marca gravada no snapshot
+// e depois periodicamente, reconcile() confere o tb_tweets e traz para o índice
+// (e para o journal) o que mudou fora desta instância ou se perdeu numa queda:
+// tweets criados, apagados e expurgados por outras instâncias.
+// As consultas são AND entre os termos e devolvem os tweets mais recentes primeiro
+// (os ids são gerados em sequência, então id maior = tweet mais novo).
+@Component
+public class TweetSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TweetSearchIndex.class);
+
+    // Termos muito longos não são indexados (provavelmente links ou lixo)
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    // Espera máxima entre as tentativas de reconstrução
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 60_000;
+
+    // Ids por consulta "in (...)" na conciliação e na leitura dos tweets apagados
+    private static final int ID_BATCH = 1000;
+
+    // Termos copiados por vez (sob o lock de leitura) na gravação do snapshot
+    private static final int SNAPSHOT_BATCH = 1000;
+
+    // Resultado de uma busca: ids (mais recente primeiro) e cursor da próxima página
+    public record SearchPage(long[] tweetIds, Long nextCursor) {
+    }
+
+    // Termo -> lista de ids de tweets
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    // Tweets apagados (tombstone) que ainda estão nas posting lists
+    // São ignorados na busca até o TweetPurger expurgá-los e chamar remove()
+    private final Set<Long> tombstones = ConcurrentHashMap.newKeySet();
+
+    // Conteúdo dos tweets com tombstone, quando conhecido
+    // Com ele, um tweet expurgado por outra instância sai das posting lists (reconcile)
+    // Sem ele (o tweet foi expurgado antes que esta instância lesse o conteúdo),
+    // o id fica nas posting lists, escondido pelo tombstone
+    private final Map<Long, String> tombstonedContent = new ConcurrentHashMap<>();
+
+    // Tweets apagados cujo conteúdo ainda não foi lido do banco (outbox, DELETE local,
+    // tombstones restaurados sem conteúdo): lidos em lote por tombstonePending()
+    private final Set<Long> pendingDeleted = ConcurrentHashMap.newKeySet();
+
+    // Leituras (buscas) concorrentes; escritas exclusivas e curtas
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TweetRepository tweetRepository;
+
+    // Tweets antigos, fora do banco (também entram no índice)
+    private final TweetArchive archive;
+
+    // Journal local: restaura o índice sem varrer o banco
+    private final TweetJournal journal;
+
+    // Quantidade de tweets lidos do banco por lote na reconstrução
+    private final int rebuildBatchSize;
+
+    // Folga da conciliação: tweets criados até esse tempo antes da marca são conferidos
+    // de novo (transações longas que fazem commit fora de ordem, relógios diferentes
+    // entre as instâncias; o creation_timestamp vem do relógio de quem criou)
+    private final Duration reconcileMargin;
+
+    // Indica se a reconstrução inicial terminou
+    private volatile boolean ready;
+
+    public TweetSearchIndex(
+            TweetRepository tweetRepository,
+            TweetArchive archive,
+            TweetJournal journal,
+            InvalidationOutbox outbox,
+            @Value("${app.search.rebuild-batch-size:5000}") int rebuildBatchSize,
+            @Value("${app.search.reconcile-margin:5m}") Duration reconcileMargin
+    ) {
+        this.tweetRepository = tweetRepository;
+        this.archive = archive;
+        this.journal = journal;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.reconcileMargin = reconcileMargin;
+
+        // Tweets apagados em outras instâncias: só anota o id (o handler roda dentro do
+        // poll do outbox); o tombstone e o conteúdo vêm no próximo tombstonePending()
+        // Sem leitura do outbox por muito tempo (ALL): fica para a próxima conciliação
+        outbox.register(InvalidationOutbox.TWEETS, key -> {
+            if (!InvalidationOutbox.ALL.equals(key)) {
+                pendingDeleted.add(Long.parseLong(key));
+            }
+        });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Indexa um tweet
+    public void add(long tweetId, String content) {
+        var tokens = tokenize(content);
+
+        lock.writeLock().lock();
+        try {
+            for (var token : tokens) {
+                postings.computeIfAbsent(token, key -> new PostingList()).add(tweetId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Esconde um tweet apagado da busca (sem tocar nas posting lists)
+    public void tombstone(long tweetId) {
+        tombstone(tweetId, null);
+    }
+
+    // Idem, guardando o conteúdo para o expurgo
+    // Conteúdo desconhecido (null): lido do banco no próximo tombstonePending()
+    private void tombstone(long tweetId, String content) {
+        tombstones.add(tweetId);
+        if (content != null) {
+            tombstonedContent.put(tweetId, content);
+        } else if (!tombstonedContent.containsKey(tweetId)) {
+            pendingDeleted.add(tweetId);
+        }
+    }
+
+    // Termo restaurado do snapshot: a lista lida substitui a do índice
+    // Tweets indexados enquanto a restauração não chegava ao termo são mantidos
+    private void restore(String token, PostingList list) {
+        lock.writeLock().lock();
+        try {
+            var live = postings.put(token, list);
+            if (live != null) {
+                for (long tweetId : live.toArray()) {
+                    list.add(tweetId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Indica se o tweet já está nas posting lists
+    // Basta conferir o primeiro termo: add() e remove() tratam todos os termos juntos
+    private boolean indexed(long tweetId, String content) {
+        var tokens = tokenize(content);
+        if (tokens.isEmpty()) {
+            return true;
+        }
+
+        lock.readLock().lock();
+        try {
+            var list = postings.get(tokens.iterator().next());
+            return list != null && list.reader().contains(tweetId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Remove um tweet do índice (usa o conteúdo para saber em quais termos ele está)
+    public void remove(long tweetId, String content) {
+        var tokens = tokenize(content);
+
+        lock.writeLock().lock();
+        try {
+            for (var token : tokens) {
+                var list = postings.get(token);
+                if (list == null) {
+                    continue;
+                }
+                list.remove(tweetId);
+                if (list.size() == 0) {
+                    postings.remove(token);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        tombstones.remove(tweetId);
+        tombstonedContent.remove(tweetId);
+        pendingDeleted.remove(tweetId);
+    }
+
+    // Busca os tweets que contêm TODOS os termos da consulta
+    // cursor (opcional): devolve apenas tweets com id menor que ele (próxima página)
+    public SearchPage search(String query, Long cursor, int limit) {
+
+        var tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return new SearchPage(new long[0], null);
+        }
+
+        lock.readLock().lock();
+        try {
+            // Posting lists dos termos, da menor para a maior
+            var lists = new ArrayList<PostingList>(tokens.size());
+            for (var token : tokens) {
+                var list = postings.get(token);
+
+                // Algum termo não aparece em nenhum tweet: resultado vazio
+                if (list == null) {
+                    return new SearchPage(new long[0], null);
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+
+            // Percorre a menor lista do id mais novo para o mais antigo
+            // e confere se cada id está nas demais listas
+            var driver = lists.get(0).reader();
+            driver.seekBefore(cursor != null ? cursor : Long.MAX_VALUE);
+
+            var others = new PostingList.Reader[lists.size() - 1];
+            for (int i = 1; i < lists.size(); i++) {
+                others[i - 1] = lists.get(i).reader();
+            }
+
+            long[] found = new long[limit];
+            int count = 0;
+            long id;
+
+            candidates:
+            while (count < limit && (id = driver.next()) != -1) {
+                if (tombstones.contains(id)) {
+                    continue;
+                }
+                for (var other : others) {
+                    if (!other.contains(id)) {
+                        continue candidates;
+                    }
+                }
+                found[count++] = id;
+            }
+
+            // Página cheia: pode haver mais resultados a partir do último id
+            Long nextCursor = count == limit ? found[count - 1] : null;
+            return new SearchPage(Arrays.copyOf(found, count), nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reconstrói o índice quando a aplicação sobe
+    // Roda em uma thread separada para não atrasar o boot;
+    // tweets criados enquanto isso são indexados normalmente por add()
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        var thread = new Thread(this::rebuildWithRetry, "search-index-rebuild");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    // Uma falha (ex: banco fora do ar na subida) não deixa a busca em 503 até o restart:
+    // tenta de novo com espera crescente (1 s, 2 s, 4 s... até 1 min)
+    // Refazer é seguro: add() e tombstone() ignoram o que já está no índice
+    private void rebuildWithRetry() {
+        long backoff = 1000;
+        while (true) {
+            try {
+                rebuild();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Falha ao reconstruir o índice de busca, nova tentativa em {} ms", backoff, e);
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+        }
+    }
+
+    // Com snapshot do journal: restaura dele e concilia com o banco a partir da marca
+    // gravada no snapshot (o que se perdeu numa queda antes do fsync ou mudou em outra instância)
+    // Sem snapshot (primeira subida): lê todos os tweets e grava o primeiro snapshot
+    void rebuild() {
+        long start = System.currentTimeMillis();
+
+        long mark = journal.restore(new TweetJournal.Listener() {
+            @Override
+            public void term(String token, PostingList list) {
+                restore(token, list);
+            }
+
+            @Override
+            public void created(long tweetId, String content) {
+                add(tweetId, content);
+            }
+
+            @Override
+            public void deleted(long tweetId, String content) {
+                tombstone(tweetId, content);
+            }
+
+            @Override
+            public void purged(long tweetId, String content) {
+                remove(tweetId, content);
+            }
+        });
+
+        if (mark >= 0) {
+            long changes = reconcile(mark);
+            ready = true;
+            journal.register(this::writeSnapshot);
+            log.info("Índice de busca restaurado do journal em {} ms ({} diferenças com o banco)",
+                    System.currentTimeMillis() - start, changes);
+            return;
+        }
+
+        // Os arquivados vêm primeiro, direto dos segmentos em disco
+        var archived = new long[1];
+        archive.forEach(tweet -> {
+            add(tweet.tweetId(), tweet.content());
+            archived[0]++;
+        });
+
+        long total = archived[0] + scan();
+
+        // O banco foi lido inteiro a partir de "start" (com a folga da conciliação)
+        journal.markReconciled(start);
+        ready = true;
+        log.info("Índice de busca reconstruído: {} tweets em {} ms",
+                total, System.currentTimeMillis() - start);
+
+        journal.register(this::writeSnapshot);
+        journal.snapshot();
+    }
+
+    // Grava o índice no snapshot do journal (chamado pelo TweetJournal depois da troca de journal)
+    // As posting lists são copiadas em lotes sob o lock de leitura (cópia rasa: os blocos
+    // fechados não mudam) e gravadas fora dele, sem segurar a indexação dos tweets novos
+    // Termos criados depois da cópia das chaves vêm de eventos que estão no journal novo
+    private void writeSnapshot(JournalSnapshot.Writer writer) throws IOException {
+        List<String> tokens;
+        lock.readLock().lock();
+        try {
+            tokens = new ArrayList<>(postings.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        var copies = new PostingList[SNAPSHOT_BATCH];
+        for (int i = 0; i < tokens.size(); i += SNAPSHOT_BATCH) {
+            var batch = tokens.subList(i, Math.min(i + SNAPSHOT_BATCH, tokens.size()));
+
+            lock.readLock().lock();
+            try {
+                for (int j = 0; j < batch.size(); j++) {
+                    var list = postings.get(batch.get(j));
+                    copies[j] = list != null ? list.copy() : null;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            for (int j = 0; j < batch.size(); j++) {
+                if (copies[j] != null && copies[j].size() > 0) {
+                    writer.term(batch.get(j), copies[j]);
+                }
+                copies[j] = null;
+            }
+        }
+
+        for (long tweetId : tombstones) {
+            writer.deleted(tweetId, tombstonedContent.get(tweetId));
+        }
+    }
+
+    // Conciliação periódica com o banco (só depois da restauração/reconstrução inicial)
+    @Scheduled(
+            initialDelayString = "${app.search.reconcile-interval-millis:60000}",
+            fixedDelayString = "${app.search.reconcile-interval-millis:60000}"
+    )
+    public void reconcilePeriodically() {
+        if (!ready) {
+            return;
+        }
+        try {
+            long changes = reconcile(-1);
+            if (changes > 0) {
+                log.info("Índice de busca conciliado com o banco: {} diferenças", changes);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Falha ao conciliar o índice de busca com o banco", e);
+        }
+    }
+
+    // Confere o tb_tweets a partir da marca (epoch millis; -1 = a última conciliação)
+    // e aplica no índice e no journal o que estiver diferente:
+    // 1) tweets criados desde a marca (menos a folga) que ainda não estão no índice
+    //    (ids de outra instância ou commits fora de ordem, que a varredura por id perdia)
+    // 2) tweets apagados (deleted = true) ainda sem tombstone
+    // 3) tweets com tombstone que não existem mais no banco (expurgados): saem das posting lists
+    // As consultas rodam fora de transação somente leitura: vão ao primário, não à réplica
+    // Retorna a quantidade de diferenças aplicadas
+    synchronized long reconcile(long since) {
+        long startedAt = System.currentTimeMillis();
+        long changes = 0;
+
+        if (since < 0) {
+            since = journal.reconciledMark();
+        }
+
+        // 1) Criados: keyset por (creation_timestamp, tweet_id), usa o índice (deleted, creation_timestamp)
+        var timestamp = Instant.ofEpochMilli(Math.max(0, since)).minus(reconcileMargin);
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<TweetSummary> batch = tweetRepository.findTextCreatedAfter(
+                    timestamp, afterId, PageRequest.of(0, rebuildBatchSize));
+
+            for (var tweet : batch) {
+                if (!indexed(tweet.tweetId(), tweet.content())) {
+                    add(tweet.tweetId(), tweet.content());
+                    journal.created(tweet.tweetId(), tweet.content());
+                    changes++;
+                }
+            }
+
+            if (batch.size() < rebuildBatchSize) {
+                break;
+            }
+            var last = batch.get(batch.size() - 1);
+            timestamp = last.creationTimestamp();
+            afterId = last.tweetId();
+        }
+
+        // 2) Apagados: poucos (o TweetPurger os expurga em seguida)
+        afterId = 0;
+        while (true) {
+            var batch = tweetRepository.findDeletedText(afterId, PageRequest.of(0, rebuildBatchSize));
+            changes += tombstoneAll(batch);
+
+            if (batch.size() < rebuildBatchSize) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).tweetId();
+        }
+
+        // 3) Expurgados: tombstones com conteúdo conhecido cuja linha já não existe
+        var known = new ArrayList<>(tombstonedContent.keySet());
+        for (int i = 0; i < known.size(); i += ID_BATCH) {
+            var ids = known.subList(i, Math.min(i + ID_BATCH, known.size()));
+            var existing = new HashSet<>(tweetRepository.findExistingIds(ids));
+
+            for (long tweetId : ids) {
+                var content = tombstonedContent.get(tweetId);
+                if (existing.contains(tweetId) || content == null) {
+                    continue;
+                }
+                remove(tweetId, content);
+                journal.purged(tweetId, content);
+                changes++;
+            }
+        }
+
+        journal.markReconciled(startedAt);
+        return changes;
+    }
+
+    // Lê do banco, em lote, o conteúdo dos tweets apagados anotados em pendingDeleted
+    // e aplica o tombstone (índice + journal) aos que ainda não o tinham
+    // Fora do poll do outbox: uma consulta por lote, e não uma por evento
+    // Banco fora do ar: os ids ficam para a próxima execução
+    @Scheduled(
+            initialDelayString = "${app.search.deleted-interval-millis:1000}",
+            fixedDelayString = "${app.search.deleted-interval-millis:1000}"
+    )
+    public void tombstonePending() {
+        if (!ready || pendingDeleted.isEmpty()) {
+            return;
+        }
+
+        var ids = new ArrayList<>(pendingDeleted);
+        try {
+            for (int i = 0; i < ids.size(); i += ID_BATCH) {
+                var batch = ids.subList(i, Math.min(i + ID_BATCH, ids.size()));
+                tombstoneAll(tweetRepository.findText(batch));
+
+                // Sem linha no banco (já expurgado): o conteúdo não pode mais ser lido
+                batch.forEach(pendingDeleted::remove);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Falha ao ler {} tweets apagados para o índice de busca", ids.size(), e);
+        }
+    }
+
+    // Aplica o tombstone (índice + journal) aos tweets apagados que ainda não o tinham
+    // Guarda o conteúdo de todos, para o expurgo; retorna a quantidade de novos tombstones
+    private long tombstoneAll(List<TweetText> deleted) {
+        long changes = 0;
+        for (var tweet : deleted) {
+            long tweetId = tweet.tweetId();
+            boolean known = tombstones.contains(tweetId);
+
+            // Fora do índice (ex: criado e apagado antes da conciliação): nada a esconder
+            if (!known && !indexed(tweetId, tweet.content())) {
+                continue;
+            }
+
+            tombstone(tweetId, tweet.content());
+            if (!known) {
+                journal.deleted(tweetId);
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    // Lê do banco todos os tweets em lotes (keyset por id) e indexa; retorna a quantidade lida
+    private long scan() {
+        long total = 0;
+        long afterId = 0;
+
+        while (true) {
+            var batch = tweetRepository.findTextAfter(afterId, PageRequest.of(0, rebuildBatchSize));
+            if (batch.isEmpty()) {
+                return total;
+            }
+
+            for (var tweet : batch) {
+                add(tweet.tweetId(), tweet.content());
+            }
+
+            afterId = batch.get(batch.size() - 1).tweetId();
+            total += batch.size();
+        }
+    }
+
+    // Quebra o texto em termos: minúsculas, sem acentos, apenas letras e dígitos
+    // Exemplo: "Olá, #Mundo!" -> [ola, mundo]
+    static Set<String> tokenize(String text) {
+        var tokens = new LinkedHashSet<String>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        var normalized = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        var current = new StringBuilder();
+
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+
+            // Marcas de acento (separadas pelo NFD) são ignoradas
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+
+            if (Character.isLetterOrDigit(c)) {
+                current.append(c);
+            } else {
+                addToken(tokens, current);
+            }
+        }
+        addToken(tokens, current);
+
+        return tokens;
+    }
+
+    private static void addToken(Set<String> tokens, StringBuilder current) {
+        if (current.length() > 0 && current.length() <= MAX_TOKEN_LENGTH) {
+            tokens.add(current.toString());
+        }
+        current.setLength(0);
+    }
+}
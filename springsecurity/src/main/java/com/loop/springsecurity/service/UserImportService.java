@@ -0,0 +1,353 @@
+// Define o pacote de serviços da aplicação
+package com.loop.springsecurity.service;
+
+// DTOs usados na importação
+import com.loop.springsecurity.controller.dto.CreateUserDto;
+import com.loop.springsecurity.controller.dto.ImportErrorDto;
+import com.loop.springsecurity.controller.dto.ImportReportDto;
+
+// Entidade Role (a role BASIC é atribuída a todos os usuários importados)
+import com.loop.springsecurity.entities.Role;
+
+// Repositório de roles
+import com.loop.springsecurity.repository.RoleRepository;
+
+// Executado quando o Spring destrói o bean
+import jakarta.annotation.PreDestroy;
+
+// Permite ler propriedades do application.properties
+import org.springframework.beans.factory.annotation.Value;
+
+// Exceções de acesso a dados do Spring
+import org.springframework.dao.DataAccessException;
+
+// Enum com códigos HTTP
+import org.springframework.http.HttpStatus;
+
+// Acesso JDBC direto (inserts em lote)
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+// Encoder de senha (ver PasswordHashingConfig)
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Marca a classe como um serviço gerenciado pelo Spring
+import org.springframework.stereotype.Service;
+
+// Controle de transação programático
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Exceção usada para retornar erros HTTP automaticamente
+import org.springframework.web.server.ResponseStatusException;
+
+// Serializador JSON (usado para ler as linhas NDJSON)
+import tools.jackson.databind.json.JsonMapper;
+
+// Utilitários de IO e coleções
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Pool fork-join usado para gerar os hashes em paralelo
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Importação em massa de usuários (NDJSON ou CSV)
+// - o arquivo é lido como stream, em lotes, sem carregar tudo em memória
+// - a role BASIC é buscada uma única vez
+// - os hashes BCrypt de cada lote são gerados em paralelo (um worker por core)
+// - usuários e tb_users_roles são inseridos com INSERTs de várias linhas
+// - linhas inválidas são reportadas sem interromper a importação
+@Service
+public class UserImportService {
+
+    // Formatos aceitos
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    // Quantidade máxima de erros detalhados no relatório
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Linhas por INSERT (bem abaixo do limite de 65535 parâmetros do MySQL)
+    private static final int ROWS_PER_STATEMENT = 500;
+
+    // Uma linha lida do arquivo
+    private record Row(long line, String username, String password) {
+    }
+
+    // Uma linha pronta para inserir (senha já criptografada)
+    private record EncodedRow(long line, UUID userId, String username, String hash) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final JsonMapper jsonMapper;
+
+    // Pool dedicado para os hashes (não disputa com o commonPool da JVM)
+    private final ForkJoinPool hashingPool;
+
+    // Linhas por lote (hash em paralelo + um batch de insert)
+    private final int batchSize;
+
+    public UserImportService(
+            RoleRepository roleRepository,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            PasswordEncoder passwordEncoder,
+            JsonMapper jsonMapper,
+            @Value("${app.import.batch-size:1000}") int batchSize
+    ) {
+        this.roleRepository = roleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.jsonMapper = jsonMapper;
+        this.batchSize = batchSize;
+        this.hashingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Importa os usuários do stream e devolve o relatório
+    public ImportReportDto importUsers(InputStream input, Format format) throws IOException {
+
+        // A role BASIC é resolvida uma única vez para toda a importação
+        Role basicRole = roleRepository
+                .findByName(Role.Values.BASIC.name())
+                .orElseThrow(() ->
+                        new ResponseStatusException(
+                                HttpStatus.INTERNAL_SERVER_ERROR,
+                                "Role BASIC não encontrada"
+                        )
+                );
+
+        var report = new Report();
+        var batch = new ArrayList<Row>(batchSize);
+
+        try (var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            long lineNumber = 0;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                // Cabeçalho opcional do CSV
+                if (format == Format.CSV && lineNumber == 1 && line.trim().equalsIgnoreCase("username,password")) {
+                    continue;
+                }
+
+                report.processed++;
+
+                var row = parse(lineNumber, line, format, report);
+                if (row == null) {
+                    continue;
+                }
+
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(batch, basicRole.getRoleId(), report);
+                    batch.clear();
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            importBatch(batch, basicRole.getRoleId(), report);
+        }
+
+        return new ImportReportDto(report.processed, report.imported, report.failed, report.errors);
+    }
+
+    // Converte uma linha do arquivo; linhas inválidas vão para o relatório
+    private Row parse(long lineNumber, String line, Format format, Report report) {
+        try {
+            String username;
+            String password;
+
+            if (format == Format.NDJSON) {
+                var dto = jsonMapper.readValue(line, CreateUserDto.class);
+                username = dto.username();
+                password = dto.password();
+            } else {
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    report.fail(lineNumber, null, "Linha CSV sem separador");
+                    return null;
+                }
+                username = line.substring(0, comma).trim();
+                password = line.substring(comma + 1);
+            }
+
+            if (username == null || username.isBlank() || password == null || password.isEmpty()) {
+                report.fail(lineNumber, username, "Username e password são obrigatórios");
+                return null;
+            }
+
+            return new Row(lineNumber, username, password);
+        } catch (RuntimeException e) {
+            report.fail(lineNumber, null, "Linha inválida");
+            return null;
+        }
+    }
+
+    // Importa um lote: remove duplicados, gera os hashes em paralelo e insere em batch
+    private void importBatch(List<Row> batch, long basicRoleId, Report report) {
+
+        // Usernames que já existem no banco (uma única consulta por lote)
+        var usernames = batch.stream().map(Row::username).toList();
+        var existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "select username from tb_users where username in (:usernames)",
+                Map.of("usernames", usernames),
+                String.class
+        ));
+
+        var accepted = new ArrayList<Row>(batch.size());
+        var seen = new HashSet<String>();
+        for (var row : batch) {
+            if (existing.contains(row.username())) {
+                report.fail(row.line(), row.username(), "Username já existe");
+            } else if (!seen.add(row.username())) {
+                report.fail(row.line(), row.username(), "Username repetido no arquivo");
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // Hashes BCrypt em paralelo: é a etapa mais cara (CPU-bound)
+        var encoded = encode(accepted);
+
+        try {
+            // INSERTs de várias linhas em tb_users e tb_users_roles, na mesma transação
+            transactionTemplate.executeWithoutResult(status -> insert(encoded, basicRoleId));
+            report.imported += encoded.size();
+        } catch (DataAccessException e) {
+            // O lote falhou (ex: username criado em paralelo): insere linha a linha
+            // para importar as válidas e reportar apenas as que falharem
+            for (var row : encoded) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(row), basicRoleId));
+                    report.imported++;
+                } catch (DataAccessException rowError) {
+                    report.fail(row.line(), row.username(), "Falha ao inserir");
+                }
+            }
+        }
+    }
+
+    // Gera os hashes do lote em paralelo no pool dedicado
+    private List<EncodedRow> encode(List<Row> rows) {
+        try {
+            return hashingPool.submit(() -> rows.parallelStream()
+                    .map(row -> new EncodedRow(
+                            row.line(),
+                            UUID.randomUUID(),
+                            row.username(),
+                            passwordEncoder.encode(row.password())
+                    ))
+                    .toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Insere os usuários e suas roles com INSERTs de várias linhas
+    // A URL do banco não liga rewriteBatchedStatements (o LikeCounter depende do
+    // resultado por linha do batch), então um batchUpdate do Connector/J seria uma
+    // ida ao banco por linha. Aqui cada statement leva até ROWS_PER_STATEMENT linhas.
+    private void insert(List<EncodedRow> rows, long basicRoleId) {
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            var chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+
+            jdbcTemplate.update(
+                    "insert into tb_users (user_id, username, password) values " + placeholders(chunk.size(), 3),
+                    statement -> {
+                        int index = 1;
+                        for (var row : chunk) {
+                            statement.setBytes(index++, toBytes(row.userId()));
+                            statement.setString(index++, row.username());
+                            statement.setString(index++, row.hash());
+                        }
+                    }
+            );
+
+            jdbcTemplate.update(
+                    "insert into tb_users_roles (user_id, role_id) values " + placeholders(chunk.size(), 2),
+                    statement -> {
+                        int index = 1;
+                        for (var row : chunk) {
+                            statement.setBytes(index++, toBytes(row.userId()));
+                            statement.setLong(index++, basicRoleId);
+                        }
+                    }
+            );
+        }
+    }
+
+    // "(?, ?), (?, ?), ..." para a quantidade de linhas e colunas informada
+    private static String placeholders(int rows, int columns) {
+        var row = "(" + "?, ".repeat(columns - 1) + "?)";
+        var sql = new StringBuilder(rows * (row.length() + 2));
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(row);
+        }
+        return sql.toString();
+    }
+
+    // O Hibernate grava UUID no MySQL como binary(16) (bits mais significativos primeiro)
+    private static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    // Encerra o pool quando a aplicação é desligada
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdown();
+    }
+
+    // Acumulador do relatório da importação
+    private static final class Report {
+
+        private long processed;
+        private long imported;
+        private long failed;
+        private final List<ImportErrorDto> errors = new ArrayList<>();
+
+        private void fail(long line, String username, String reason) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportErrorDto(line, username, reason));
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.loop.springsecurity.config;
+
+import com.loop.springsecurity.service.AdaptiveConcurrencyLimiter;
+import com.loop.springsecurity.service.ConcurrencyLimits;
+import com.loop.springsecurity.service.ConcurrencyLimits.Bulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.ErrorResponseException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// Um permit por bulkhead
+	private final ConcurrencyLimits limits = new ConcurrencyLimits(true, 1, 1, 1, 1, 1, meterRegistry);
+
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limits);
+
+	@Test
+	void classifiesEndpoints() {
+		assertEquals(Bulkhead.ADMIN, ConcurrencyLimitFilter.classify("GET", "/users"));
+		assertEquals(Bulkhead.ADMIN, ConcurrencyLimitFilter.classify("POST", "/users/import"));
+		assertEquals(Bulkhead.ADMIN, ConcurrencyLimitFilter.classify("POST", "/tweets/moderation"));
+		assertEquals(Bulkhead.TWEET_WRITE, ConcurrencyLimitFilter.classify("POST", "/tweets"));
+		assertEquals(Bulkhead.TWEET_WRITE, ConcurrencyLimitFilter.classify("DELETE", "/tweets/7"));
+		assertEquals(Bulkhead.FEED_READ, ConcurrencyLimitFilter.classify("GET", "/users/42/tweets"));
+
+		// Limitados no controller (só o acesso ao banco) ou respondidos da memória
+		assertNull(ConcurrencyLimitFilter.classify("POST", "/login"));
+		assertNull(ConcurrencyLimitFilter.classify("POST", "/users"));
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/feed"));
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/feed/stream"));
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/tweets/search"));
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/trends"));
+
+		// Health e métricas nunca são recusados
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/actuator/health"));
+		assertNull(ConcurrencyLimitFilter.classify("GET", "/actuator/metrics"));
+	}
+
+	@Test
+	void rejectsAboveLimitWithRetryAfter() throws Exception {
+		assertTrue(limits.tryAcquire(Bulkhead.ADMIN));
+
+		var response = new MockHttpServletResponse();
+		var chain = new MockFilterChain();
+		filter.doFilter(new MockHttpServletRequest("POST", "/users/import"), response, chain);
+
+		assertEquals(503, response.getStatus());
+		assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+		assertNull(chain.getRequest());
+		assertEquals(1.0, meterRegistry.get("concurrency.rejected").tag("bulkhead", "admin").counter().count());
+
+		// Liberada a vaga, a próxima passa
+		limits.release(Bulkhead.ADMIN, 1_000_000);
+		chain = new MockFilterChain();
+		filter.doFilter(new MockHttpServletRequest("POST", "/users/import"), new MockHttpServletResponse(), chain);
+		assertNotNull(chain.getRequest());
+	}
+
+	// Uma importação longa ocupando o bulkhead de admin não derruba o health check
+	@Test
+	void actuatorIsNeverLimited() throws Exception {
+		assertTrue(limits.tryAcquire(Bulkhead.ADMIN));
+
+		var response = new MockHttpServletResponse();
+		var chain = new MockFilterChain();
+		filter.doFilter(new MockHttpServletRequest("GET", "/actuator/health"), response, chain);
+
+		assertEquals(200, response.getStatus());
+		assertNotNull(chain.getRequest());
+	}
+
+	// Trecho limitado dentro do controller (consulta do /feed)
+	@Test
+	void callRejectsWith503WhenFull() {
+		assertEquals("ok", limits.call(Bulkhead.FEED_READ, () -> "ok"));
+
+		assertTrue(limits.tryAcquire(Bulkhead.FEED_READ));
+		var rejected = assertThrows(ErrorResponseException.class, () -> limits.call(Bulkhead.FEED_READ, () -> "ok"));
+		assertEquals(503, rejected.getStatusCode().value());
+		assertEquals("1", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+	}
+
+	// Latência subindo acima da latência sem carga (fila no banco): o limite cai
+	@Test
+	void limitShrinksWhenLatencyGrows() {
+		var limiter = new AdaptiveConcurrencyLimiter("test", 10, 1, 10);
+
+		for (int i = 0; i < 20; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(1_000_000);
+		}
+		assertEquals(10, limiter.limit());
+
+		for (int i = 0; i < 100; i++) {
+			assertTrue(limiter.tryAcquire());
+			limiter.release(20_000_000);
+		}
+		assertTrue(limiter.limit() < 5, "limite " + limiter.limit());
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.loop.springsecurity.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtConversionTests {
+
+	private static final int CONVERSIONS = 200_000;
+
+	private final UUID userId = UUID.randomUUID();
+
+	private final Jwt jwt = Jwt.withTokenValue("token")
+			.header("alg", "RS256")
+			.issuer("mybackend")
+			.subject(userId.toString())
+			.claim("scope", "ADMIN BASIC")
+			.issuedAt(Instant.now())
+			.expiresAt(Instant.now().plusSeconds(300))
+			.build();
+
+	// Mesmos SCOPE_* do conversor padrão; a lista é reaproveitada entre requisições
+	@Test
+	void convertsWithInternedAuthorities() {
+		var converter = new InternedJwtAuthenticationConverter();
+
+		var first = converter.convert(jwt);
+		var second = converter.convert(jwt);
+
+		assertEquals(userId, first.userId());
+		assertEquals(userId.toString(), first.getName());
+		assertTrue(first.isAdmin());
+		assertEquals(scopes(new JwtAuthenticationConverter().convert(jwt).getAuthorities()), scopes(first.getAuthorities()));
+		assertSame(first.getAuthorities(), second.getAuthorities());
+	}
+
+	// Autenticação reconstruída pelo Spring Security (toBuilder) continua com o tipo e o id do usuário
+	@Test
+	void rebuiltAuthenticationKeepsType() {
+		var token = new InternedJwtAuthenticationConverter().convert(jwt);
+
+		var rebuilt = token.toBuilder()
+				.authorities(authorities -> authorities.add(new SimpleGrantedAuthority("FACTOR_BEARER")))
+				.build();
+
+		var user = assertInstanceOf(UserAuthenticationToken.class, rebuilt);
+		assertEquals(userId, user.userId());
+		assertTrue(user.isAdmin());
+		assertTrue(user.isAuthenticated());
+		assertEquals(token.getAuthorities().size() + 1, user.getAuthorities().size());
+	}
+
+	// Lixo gerado por conversão: conversor padrão x conversor com authorities reaproveitadas
+	// Medido: ~980 bytes no padrão, 80 no conversor da aplicação (token + UUID)
+	@Test
+	void allocatesLessThanDefaultConverter() {
+		long defaultBytes = bytesPerConversion(new JwtAuthenticationConverter());
+		long internedBytes = bytesPerConversion(new InternedJwtAuthenticationConverter());
+
+		assertTrue(internedBytes * 4 < defaultBytes, internedBytes + " * 4 >= " + defaultBytes);
+	}
+
+	private static Set<String> scopes(Collection<? extends GrantedAuthority> authorities) {
+		return authorities.stream()
+				.map(GrantedAuthority::getAuthority)
+				.filter(authority -> authority.startsWith("SCOPE_"))
+				.collect(Collectors.toSet());
+	}
+
+	private long bytesPerConversion(Converter<Jwt, ? extends AbstractAuthenticationToken> converter) {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		// Aquecimento (JIT)
+		for (int i = 0; i < CONVERSIONS; i++) {
+			converter.convert(jwt);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CONVERSIONS; i++) {
+			converter.convert(jwt);
+		}
+		return (threads.getThreadAllocatedBytes(thread) - before) / CONVERSIONS;
+	}
+
+}
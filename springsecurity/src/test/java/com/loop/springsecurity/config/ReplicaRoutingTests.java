@@ -0,0 +1,192 @@
+package com.loop.springsecurity.config;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Dois bancos H2 em memória fazem o papel de primário e réplica
+class ReplicaRoutingTests {
+
+	private DataSource primary;
+	private DataSource replica;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		primary = h2("primary");
+		replica = h2("replica");
+
+		try (var connection = replica.getConnection(); var statement = connection.createStatement()) {
+			statement.execute("create table if not exists replica_lag (seconds int)");
+			statement.execute("delete from replica_lag");
+			statement.execute("insert into replica_lag values (0)");
+		}
+
+		// Mesma tabela nos dois bancos, com conteúdo diferente
+		for (var dataSource : List.of(primary, replica)) {
+			try (var connection = dataSource.getConnection(); var statement = connection.createStatement()) {
+				statement.execute("create table if not exists tb_routing_marker (id bigint primary key, source varchar(16))");
+				statement.execute("delete from tb_routing_marker");
+				statement.execute("insert into tb_routing_marker values (1, database())");
+			}
+		}
+	}
+
+	// Até a primeira verificação a réplica não é usada
+	@Test
+	void replicaUnusedBeforeFirstCheck() throws SQLException {
+		var monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag", 5);
+		var routing = ReplicaDataSourceConfig.routingDataSource(primary, replica, monitor);
+
+		assertFalse(monitor.isReplicaUsable());
+		assertEquals("PRIMARY", databaseName(routing, true));
+	}
+
+	// Caminho real da aplicação: repositório JPA com @Transactional(readOnly = true)
+	// (o padrão das leituras do Spring Data) vai para a réplica; a escrita vai para o primário
+	@Test
+	void readOnlyRepositoryCallsGoToReplica() throws SQLException {
+		var monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag", 5);
+		monitor.check();
+		var routing = ReplicaDataSourceConfig.routingDataSource(primary, replica, monitor);
+
+		try (var context = new AnnotationConfigApplicationContext()) {
+			context.registerBean(DataSource.class, () -> routing);
+			context.register(JpaConfig.class);
+			context.refresh();
+			var repository = context.getBean(MarkerRepository.class);
+
+			assertEquals(List.of("REPLICA"), repository.findAll().stream().map(Marker::getSource).toList());
+
+			repository.save(new Marker(2L, "written"));
+		}
+
+		try (var connection = primary.getConnection(); var statement = connection.createStatement();
+			 var result = statement.executeQuery("select count(*) from tb_routing_marker")) {
+			result.next();
+			assertEquals(2, result.getInt(1));
+		}
+	}
+
+	@Test
+	void readOnlyConnectionsGoToReplica() throws SQLException {
+		var monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag", 5);
+		monitor.check();
+		var routing = ReplicaDataSourceConfig.routingDataSource(primary, replica, monitor);
+
+		assertEquals("REPLICA", databaseName(routing, true));
+		assertEquals("PRIMARY", databaseName(routing, false));
+	}
+
+	@Test
+	void laggingReplicaFallsBackToPrimary() throws SQLException {
+		var monitor = new ReplicaLagMonitor(replica, "select seconds from replica_lag", 5);
+		var routing = ReplicaDataSourceConfig.routingDataSource(primary, replica, monitor);
+
+		try (var connection = replica.getConnection(); var statement = connection.createStatement()) {
+			statement.execute("update replica_lag set seconds = 60");
+		}
+		monitor.check();
+
+		assertFalse(monitor.isReplicaUsable());
+		assertEquals("PRIMARY", databaseName(routing, true));
+
+		try (var connection = replica.getConnection(); var statement = connection.createStatement()) {
+			statement.execute("update replica_lag set seconds = 1");
+		}
+		monitor.check();
+
+		assertTrue(monitor.isReplicaUsable());
+		assertEquals("REPLICA", databaseName(routing, true));
+	}
+
+	private static String databaseName(DataSource dataSource, boolean readOnly) throws SQLException {
+		try (var connection = dataSource.getConnection()) {
+			connection.setReadOnly(readOnly);
+			try (var statement = connection.createStatement();
+				 var result = statement.executeQuery("select database()")) {
+				result.next();
+				return result.getString(1);
+			}
+		}
+	}
+
+	@Configuration
+	@EnableTransactionManagement
+	@EnableJpaRepositories(
+			basePackageClasses = ReplicaRoutingTests.class,
+			considerNestedRepositories = true,
+			includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = MarkerRepository.class))
+	static class JpaConfig {
+
+		@Bean
+		LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			var factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(dataSource);
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			factory.setManagedTypes(PersistenceManagedTypes.of(Marker.class.getName()));
+			return factory;
+		}
+
+		@Bean
+		JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+	}
+
+	interface MarkerRepository extends JpaRepository<Marker, Long> {
+	}
+
+	@Entity
+	@Table(name = "tb_routing_marker")
+	static class Marker {
+
+		@Id
+		private Long id;
+
+		private String source;
+
+		protected Marker() {
+		}
+
+		Marker(Long id, String source) {
+			this.id = id;
+			this.source = source;
+		}
+
+		String getSource() {
+			return source;
+		}
+	}
+
+	private static DataSource h2(String name) {
+		var dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		return dataSource;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.loop.springsecurity.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.web.DefaultSecurityFilterChain;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+import org.springframework.security.web.util.matcher.AnyRequestMatcher;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.UUID;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserAuthenticationArgumentResolverTests {
+
+	@RestController
+	static class WhoAmIController {
+
+		@GetMapping("/whoami")
+		public String whoAmI(@CurrentUser UserAuthenticationToken token) {
+			return token.userId() + " " + token.isAdmin();
+		}
+	}
+
+	// Só o filtro que carrega o contexto de segurança (onde o jwt() grava a autenticação)
+	private final FilterChainProxy securityFilterChain = new FilterChainProxy(new DefaultSecurityFilterChain(
+			AnyRequestMatcher.INSTANCE,
+			new SecurityContextHolderFilter(new HttpSessionSecurityContextRepository())));
+
+	private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new WhoAmIController())
+			.setCustomArgumentResolvers(new UserAuthenticationArgumentResolver())
+			.apply(springSecurity(securityFilterChain))
+			.build();
+
+	// Autenticação criada pelo jwt() do spring-security-test (um JwtAuthenticationToken comum)
+	@Test
+	void resolvesJwtAuthentication() throws Exception {
+		var userId = UUID.randomUUID();
+
+		mockMvc.perform(get("/whoami")
+						.with(jwt().jwt(token -> token.subject(userId.toString()).claim("scope", "ADMIN BASIC"))))
+				.andExpect(status().isOk())
+				.andExpect(content().string(userId + " true"));
+	}
+
+	@Test
+	void resolvesBasicUser() throws Exception {
+		var userId = UUID.randomUUID();
+
+		mockMvc.perform(get("/whoami")
+						.with(jwt().jwt(token -> token.subject(userId.toString()).claim("scope", "BASIC"))))
+				.andExpect(status().isOk())
+				.andExpect(content().string(userId + " false"));
+	}
+
+}
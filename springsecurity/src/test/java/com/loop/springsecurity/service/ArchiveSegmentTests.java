@@ -0,0 +1,135 @@
+package com.loop.springsecurity.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTests {
+
+	private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	// write -> open -> block(): mesmos tweets, na mesma ordem, blocos de BLOCK_SIZE
+	@Test
+	void roundTrip() throws IOException {
+		var authors = authors(20, new Random(1));
+		var tweets = tweets(2 * ArchiveSegment.BLOCK_SIZE + 88, authors, new Random(2));
+		var path = directory.resolve("segment.seg");
+
+		ArchiveSegment.write(path, tweets);
+		var segment = ArchiveSegment.open(path);
+
+		assertEquals(tweets.size(), segment.size());
+		assertEquals(3, segment.blockCount());
+		var read = new ArrayList<ArchivedTweet>();
+		for (int b = 0; b < segment.blockCount(); b++) {
+			var block = segment.block(b);
+			assertEquals(segment.count(b), block.size());
+			read.addAll(block);
+		}
+		assertEquals(tweets, read);
+
+		var last = tweets.get(tweets.size() - 1);
+		assertEquals(last.creationTimestamp(), segment.lastTimestamp());
+		assertEquals(last.tweetId(), segment.lastTweetId());
+
+		// Intervalos de id e chaves do índice esparso
+		var second = tweets.get(ArchiveSegment.BLOCK_SIZE);
+		assertTrue(segment.mayContainId(1, second.tweetId()));
+		assertFalse(segment.mayContainId(0, second.tweetId()));
+		assertFalse(segment.startsBefore(1, second.creationTimestamp(), second.tweetId()));
+		assertTrue(segment.startsBefore(1, second.creationTimestamp(), second.tweetId() + 1));
+	}
+
+	// Filtro de Bloom dos autores: nenhum falso negativo e poucos falsos positivos
+	@Test
+	void authorBloomFilter() throws IOException {
+		var random = new Random(3);
+		var authors = authors(ArchiveSegment.BLOCK_SIZE, random);
+		var tweets = tweets(4 * ArchiveSegment.BLOCK_SIZE, authors, random);
+		var path = directory.resolve("segment.seg");
+		ArchiveSegment.write(path, tweets);
+		var segment = ArchiveSegment.open(path);
+
+		for (int b = 0; b < segment.blockCount(); b++) {
+			for (var tweet : segment.block(b)) {
+				assertTrue(segment.mayContainAuthor(b, tweet.userId()));
+			}
+		}
+
+		int falsePositives = 0;
+		int probes = 10_000;
+		for (int i = 0; i < probes; i++) {
+			if (segment.mayContainAuthor(i % segment.blockCount(), new UUID(random.nextLong(), random.nextLong()))) {
+				falsePositives++;
+			}
+		}
+		assertTrue(falsePositives < probes * 0.03, falsePositives + " falsos positivos em " + probes);
+	}
+
+	// Versão diferente da atual (ou arquivo truncado) não é aberta
+	@Test
+	void rejectsUnknownVersion() throws IOException {
+		var path = directory.resolve("segment.seg");
+		ArchiveSegment.write(path, tweets(10, authors(2, new Random(4)), new Random(5)));
+
+		var current = ArchiveSegment.open(path);
+		assertEquals(10, current.size());
+
+		try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.allocate(4).putInt(1).flip(), 4);
+		}
+		assertThrows(IOException.class, () -> ArchiveSegment.open(path));
+
+		var truncated = directory.resolve("truncated.seg");
+		ArchiveSegment.write(truncated, tweets(10, authors(2, new Random(4)), new Random(5)));
+		try (var channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 1);
+		}
+		assertThrows(IOException.class, () -> ArchiveSegment.open(truncated));
+		assertThrows(IOException.class, () -> ArchiveSegment.open(path));
+	}
+
+	static List<UUID> authors(int count, Random random) {
+		var authors = new ArrayList<UUID>(count);
+		for (int i = 0; i < count; i++) {
+			authors.add(new UUID(random.nextLong(), random.nextLong()));
+		}
+		return authors;
+	}
+
+	// Tweets em ordem crescente de (creationTimestamp, tweetId), alguns no mesmo instante
+	static List<ArchivedTweet> tweets(int count, List<UUID> authors, Random random) {
+		return tweets(1, START, count, authors, random);
+	}
+
+	static List<ArchivedTweet> tweets(long firstId, Instant from, int count, List<UUID> authors, Random random) {
+		var tweets = new ArrayList<ArchivedTweet>(count);
+		var timestamp = from;
+		for (int i = 0; i < count; i++) {
+			timestamp = timestamp.plusMillis(random.nextInt(3) * 500L);
+			var author = authors.get(random.nextInt(authors.size()));
+			tweets.add(new ArchivedTweet(firstId + i, author, "user-" + author.toString().substring(0, 8),
+					"tweet " + (firstId + i) + " ção 🚀", timestamp, random.nextInt(100)));
+		}
+		return tweets;
+	}
+
+}
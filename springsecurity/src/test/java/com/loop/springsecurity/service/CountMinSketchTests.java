@@ -0,0 +1,71 @@
+package com.loop.springsecurity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTests {
+
+	private static final int DEPTH = 4;
+	private static final int WIDTH = 2048;
+
+	// Nunca subestima; o erro passa de e * total / width em no máximo ~e^-depth (1,8%) dos itens
+	@Test
+	void overestimatesWithinBound() {
+		var sketch = new CountMinSketch(DEPTH, WIDTH);
+		var random = new Random(42);
+		var actual = new HashMap<String, Long>();
+		long total = 0;
+
+		// Distribuição de cauda longa: poucas tags muito frequentes, muitas raras
+		for (int i = 0; i < 200_000; i++) {
+			var tag = "tag" + (int) Math.pow(20_000, random.nextDouble());
+			sketch.add(tag, 1);
+			actual.merge(tag, 1L, Long::sum);
+			total++;
+		}
+
+		double bound = Math.E * total / WIDTH;
+		int exceeded = 0;
+		for (var entry : actual.entrySet()) {
+			long estimate = sketch.estimate(entry.getKey());
+			assertTrue(estimate >= entry.getValue(), entry.getKey());
+			if (estimate - entry.getValue() > bound) {
+				exceeded++;
+			}
+		}
+		assertTrue(exceeded <= actual.size() * 0.05, exceeded + " de " + actual.size() + " acima do limite");
+	}
+
+	// Textos com o mesmo String.hashCode ("Aa" e "BB") não se confundem
+	@Test
+	void sameJavaHashCodeDoesNotCollide() {
+		var sketch = new CountMinSketch(DEPTH, WIDTH);
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+		assertEquals("AaAa".hashCode(), "BBBB".hashCode());
+
+		sketch.add("Aa", 1000);
+		sketch.add("AaAa", 1000);
+
+		assertEquals(1000, sketch.estimate("Aa"));
+		assertEquals(0, sketch.estimate("BB"));
+		assertEquals(0, sketch.estimate("BBBB"));
+		assertEquals(0, sketch.estimate("AaBB"));
+	}
+
+	// clear() zera as estimativas
+	@Test
+	void clearResetsCounts() {
+		var sketch = new CountMinSketch(DEPTH, WIDTH);
+		sketch.add("java", 10);
+		sketch.clear();
+
+		assertEquals(0, sketch.estimate("java"));
+		assertEquals(3, sketch.add("java", 3));
+	}
+
+}
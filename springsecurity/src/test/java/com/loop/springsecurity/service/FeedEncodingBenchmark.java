@@ -0,0 +1,87 @@
+package com.loop.springsecurity.service;
+
+import com.loop.springsecurity.controller.dto.FeedDto;
+import com.loop.springsecurity.controller.dto.FeedItemDto;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+
+// Benchmark dos formatos do /feed: bytes enviados e CPU do servidor por resposta
+// Não é um teste (não roda no mvn test); execute o main pela IDE ou com:
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.loop.springsecurity.service.FeedEncodingBenchmark
+public class FeedEncodingBenchmark {
+
+	private static final int WARMUP = 20_000;
+	private static final int ITERATIONS = 50_000;
+
+	public static void main(String[] args) {
+		var mappers = Map.<String, ObjectMapper>of(
+				"json", JsonMapper.builder().build(),
+				"cbor", CBORMapper.builder().build(),
+				"smile", SmileMapper.builder().build()
+		);
+		var gzip = new GzipCompressor(6, 0);
+		var gzipFast = new GzipCompressor(1, 0);
+
+		System.out.printf("%-6s %-5s %10s %10s %10s %12s %12s %12s%n",
+				"format", "items", "bytes", "gzip-6", "gzip-1", "cpu µs", "+gzip-6 µs", "+gzip-1 µs");
+
+		for (int items : new int[]{10, 50}) {
+			var feed = feed(items);
+			for (var format : new String[]{"json", "cbor", "smile"}) {
+				var mapper = mappers.get(format);
+				var bytes = mapper.writeValueAsBytes(feed);
+
+				double serialize = cpuMicros(() -> mapper.writeValueAsBytes(feed));
+				double withGzip = cpuMicros(() -> gzip.gzip(mapper.writeValueAsBytes(feed)));
+				double withFastGzip = cpuMicros(() -> gzipFast.gzip(mapper.writeValueAsBytes(feed)));
+
+				System.out.printf("%-6s %-5d %10d %10d %10d %12.1f %12.1f %12.1f%n",
+						format, items, bytes.length, gzip.gzip(bytes).length, gzipFast.gzip(bytes).length,
+						serialize, withGzip, withFastGzip);
+			}
+		}
+	}
+
+	// Tempo de CPU (da thread) por execução, em microssegundos
+	private static double cpuMicros(Runnable task) {
+		var threads = ManagementFactory.getThreadMXBean();
+		for (int i = 0; i < WARMUP; i++) {
+			task.run();
+		}
+		long start = threads.getCurrentThreadCpuTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			task.run();
+		}
+		return (threads.getCurrentThreadCpuTime() - start) / 1000.0 / ITERATIONS;
+	}
+
+	// Página do feed com conteúdo parecido com o real
+	private static FeedDto feed(int size) {
+		var random = new Random(42);
+		var words = new String[]{"spring", "security", "jwt", "docker", "mysql", "#java", "@admin",
+				"hoje", "deploy", "feed", "cache", "latência", "banco", "produção", "teste"};
+		var items = new ArrayList<FeedItemDto>(size);
+		for (int i = 0; i < size; i++) {
+			var content = new StringBuilder();
+			int length = 5 + random.nextInt(25);
+			for (int w = 0; w < length; w++) {
+				content.append(words[random.nextInt(words.length)]).append(' ');
+			}
+			items.add(new FeedItemDto(
+					1_000_000L - i,
+					content.toString().trim(),
+					"user" + random.nextInt(1000),
+					random.nextInt(5000)
+			));
+		}
+		return new FeedDto(items, 0, size, 1000, 1000L * size);
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.loop.springsecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Várias instâncias da aplicação (cada uma com o seu outbox, FeedVersion e
+// transações) apontando para um único banco H2 em memória
+class InvalidationOutboxTests {
+
+	private DataSource database;
+
+	// Uma instância da aplicação
+	private record Node(FeedVersion feedVersion, InvalidationOutbox outbox, TransactionTemplate transaction,
+						List<String> evictedUsers) {
+
+		void write(String cache, String key) {
+			transaction.executeWithoutResult(status -> outbox.append(cache, key));
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		var dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		database = dataSource;
+
+		var jdbc = new JdbcTemplate(database);
+		jdbc.execute("""
+				create table if not exists tb_cache_invalidations (
+				    id bigint auto_increment primary key,
+				    cache_name varchar(64) not null,
+				    cache_key varchar(255) not null,
+				    origin varchar(64) not null,
+				    created_at timestamp(3) not null
+				)
+				""");
+		jdbc.execute("delete from tb_cache_invalidations");
+	}
+
+	@Test
+	void writeOnOneNodeInvalidatesTheOthers() {
+		var a = node("a");
+		var b = node("b");
+		var c = node("c");
+
+		long versionA = a.feedVersion().current();
+		long versionB = b.feedVersion().current();
+		long versionC = c.feedVersion().current();
+
+		a.write(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+		a.write(InvalidationOutbox.USERS, "maria");
+		a.outbox().poll();
+		b.outbox().poll();
+		c.outbox().poll();
+
+		// A instância que escreveu já atualizou os próprios caches e ignora o evento
+		assertEquals(versionA, a.feedVersion().current());
+		assertTrue(a.evictedUsers().isEmpty());
+
+		assertTrue(b.feedVersion().current() > versionB);
+		assertTrue(c.feedVersion().current() > versionC);
+		assertEquals(List.of("maria"), b.evictedUsers());
+		assertEquals(List.of("maria"), c.evictedUsers());
+	}
+
+	@Test
+	void rolledBackWritesAreNotPropagated() {
+		var a = node("a");
+		var b = node("b");
+
+		a.transaction().executeWithoutResult(status -> {
+			a.outbox().append(InvalidationOutbox.USERS, "joao");
+			status.setRollbackOnly();
+		});
+		b.outbox().poll();
+
+		assertTrue(b.evictedUsers().isEmpty());
+	}
+
+	// Uma transação que reservou um id menor e termina depois de outra mais nova
+	// não pode ser pulada pelos leitores
+	@Test
+	void lateCommitBehindNewerEventIsStillApplied() throws InterruptedException {
+		var a = node("a");
+		var b = node("b");
+
+		var appended = new CountDownLatch(1);
+		var commit = new CountDownLatch(1);
+		var slow = new Thread(() -> a.transaction().executeWithoutResult(status -> {
+			a.outbox().append(InvalidationOutbox.USERS, "lento");
+			appended.countDown();
+			await(commit);
+		}));
+		slow.start();
+		await(appended);
+
+		a.write(InvalidationOutbox.USERS, "rapido");
+		b.outbox().poll();
+		assertEquals(List.of("rapido"), b.evictedUsers());
+
+		commit.countDown();
+		slow.join();
+
+		b.outbox().poll();
+		assertEquals(List.of("rapido", "lento"), b.evictedUsers());
+	}
+
+	// Um handler que falha não impede os seguintes nem os próximos eventos,
+	// e o evento não é reaplicado na leitura seguinte
+	@Test
+	void failingHandlerDoesNotStopTheOthers() {
+		var a = node("a");
+		var b = node("b");
+
+		var after = new CopyOnWriteArrayList<String>();
+		b.outbox().register(InvalidationOutbox.FEED, key -> {
+			throw new IllegalStateException("falha no handler");
+		});
+		b.outbox().register(InvalidationOutbox.FEED, after::add);
+		long version = b.feedVersion().current();
+
+		a.write(InvalidationOutbox.FEED, InvalidationOutbox.ALL);
+		a.write(InvalidationOutbox.USERS, "maria");
+		b.outbox().poll();
+		b.outbox().poll();
+
+		assertTrue(b.feedVersion().current() > version);
+		assertEquals(List.of(InvalidationOutbox.ALL), after);
+		assertEquals(List.of("maria"), b.evictedUsers());
+	}
+
+	@Test
+	void appendRequiresTransaction() {
+		var a = node("a");
+
+		assertThrows(IllegalStateException.class,
+				() -> a.outbox().append(InvalidationOutbox.FEED, InvalidationOutbox.ALL));
+	}
+
+	// Cria uma instância e faz a primeira leitura (posiciona no fim da tabela)
+	private Node node(String name) {
+		var feedVersion = new FeedVersion();
+		var outbox = new InvalidationOutbox(new JdbcTemplate(database), feedVersion, name,
+				500, 10_000, 5_000, Duration.ofHours(1), new SimpleMeterRegistry());
+
+		var evicted = new CopyOnWriteArrayList<String>();
+		outbox.register(InvalidationOutbox.USERS, evicted::add);
+		outbox.poll();
+
+		return new Node(feedVersion, outbox,
+				new TransactionTemplate(new DataSourceTransactionManager(database)), evicted);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.loop.springsecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Banco H2 em memória (modo MySQL) no lugar do MySQL
+class LikeCounterTests {
+
+	private static final int TWEETS = 4;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private JdbcTemplate jdbcTemplate;
+	private LikeCounter likes;
+
+	@BeforeEach
+	void setUp() {
+		var dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:likes-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table tb_tweets (tweet_id bigint primary key, likes bigint not null, deleted boolean not null)");
+		jdbcTemplate.execute("create table tb_tweet_likes (tweet_id bigint, user_id binary(16), primary key (tweet_id, user_id))");
+		jdbcTemplate.execute("""
+				create table tb_cache_invalidations (id bigint auto_increment primary key, cache_name varchar(32),
+				cache_key varchar(255), origin varchar(64), created_at timestamp(3))
+				""");
+		for (long tweetId = 1; tweetId <= TWEETS; tweetId++) {
+			jdbcTemplate.update("insert into tb_tweets values (?, 0, false)", tweetId);
+		}
+
+		var outbox = new InvalidationOutbox(jdbcTemplate, new FeedVersion(), "test",
+				500, 10_000, 5_000, Duration.ofHours(1), meterRegistry);
+		var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		likes = new LikeCounter(jdbcTemplate, transactionTemplate, new FeedVersion(), outbox,
+				10_000, 1_000_000, 100, meterRegistry);
+	}
+
+	// Pendentes somam ao valor gravado até o flush; depois disso saem da memória
+	@Test
+	void flushMovesPendingLikesToDatabase() {
+		var first = UUID.randomUUID();
+		for (int i = 0; i < 3; i++) {
+			assertTrue(likes.like(1, UUID.randomUUID()));
+		}
+		assertTrue(likes.like(2, first));
+		assertFalse(likes.like(2, first));
+
+		assertEquals(3, likes.count(1, 0));
+		assertEquals(1, likes.count(2, 0));
+		assertTrue(likes.isKnown(1));
+
+		likes.flush();
+
+		assertEquals(3, persisted(1));
+		assertEquals(1, persisted(2));
+		assertEquals(0, likes.count(1, 0));
+		assertFalse(likes.isKnown(1));
+		assertFalse(likes.isKnown(2));
+	}
+
+	// Likes de tweets apagados são descartados, e os pendentes zerados mesmo assim
+	@Test
+	void dropsLikesOfDeletedTweets() {
+		jdbcTemplate.update("update tb_tweets set deleted = true where tweet_id = 3");
+		likes.like(3, UUID.randomUUID());
+
+		likes.flush();
+
+		assertEquals(0, persisted(3));
+		assertFalse(likes.isKnown(3));
+	}
+
+	// Likes chegando durante os flushes (inclusive na remoção das entradas zeradas):
+	// o pendente nunca fica negativo e, ao final, todos os likes estão gravados uma vez
+	@Test
+	void concurrentLikesAreCountedOnce() throws Exception {
+		int threads = 4;
+		int perThread = 5_000;
+		var pool = Executors.newFixedThreadPool(threads);
+		var done = new CountDownLatch(threads);
+		var running = new AtomicBoolean(true);
+
+		for (int t = 0; t < threads; t++) {
+			pool.execute(() -> {
+				for (int i = 0; i < perThread; i++) {
+					likes.like(1 + i % TWEETS, UUID.randomUUID());
+				}
+				done.countDown();
+			});
+		}
+
+		var errors = new ArrayList<String>();
+		while (running.get()) {
+			if (done.await(1, TimeUnit.MILLISECONDS)) {
+				running.set(false);
+			}
+			likes.flush();
+			for (long tweetId = 1; tweetId <= TWEETS; tweetId++) {
+				long count = likes.count(tweetId, 0);
+				if (count < 0) {
+					errors.add("tweet " + tweetId + ": " + count + " pendentes");
+				}
+			}
+		}
+		pool.shutdown();
+		likes.flush();
+
+		assertEquals(new ArrayList<String>(), errors);
+		long total = 0;
+		for (long tweetId = 1; tweetId <= TWEETS; tweetId++) {
+			total += persisted(tweetId);
+			assertEquals(0, likes.count(tweetId, 0));
+			assertFalse(likes.isKnown(tweetId));
+		}
+		assertEquals((long) threads * perThread, total);
+	}
+
+	private long persisted(long tweetId) {
+		return jdbcTemplate.queryForObject("select likes from tb_tweets where tweet_id = ?", Long.class, tweetId);
+	}
+
+}
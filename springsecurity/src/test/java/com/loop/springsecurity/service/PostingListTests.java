@@ -0,0 +1,126 @@
+package com.loop.springsecurity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTests {
+
+	private static final int SEEDS = 10;
+	private static final int OPERATIONS = 20_000;
+
+	// Operações aleatórias comparadas com um TreeSet: ids em ordem (caminho rápido),
+	// fora de ordem (added), remoções (removed) e as recompactações que elas disparam
+	@Test
+	void matchesTreeSet() {
+		for (long seed = 0; seed < SEEDS; seed++) {
+			var random = new Random(seed);
+			var list = new PostingList();
+			var expected = new TreeSet<Long>();
+			long next = 1;
+
+			for (int i = 0; i < OPERATIONS; i++) {
+				int operation = random.nextInt(10);
+				if (operation < 5) {
+					// Tweet novo: maior que todos
+					next += 1 + random.nextInt(random.nextBoolean() ? 4 : 100_000);
+					list.add(next);
+					expected.add(next);
+				} else if (operation < 7) {
+					// Fora de ordem (reconstrução), às vezes repetido
+					long id = 1 + (long) (random.nextDouble() * next);
+					list.add(id);
+					expected.add(id);
+				} else {
+					// Remoção de um id existente ou não
+					long id = random.nextBoolean() && !expected.isEmpty()
+							? existing(expected, random)
+							: 1 + (long) (random.nextDouble() * next);
+					list.remove(id);
+					expected.remove(id);
+				}
+
+				if (i % 1000 == 0) {
+					verify(list, expected, random, seed);
+				}
+			}
+			verify(list, expected, random, seed);
+		}
+	}
+
+	// Lista vazia e lista que volta a ficar vazia
+	@Test
+	void emptiesAndRefills() {
+		var list = new PostingList();
+		verify(list, new TreeSet<>(), new Random(0), 0);
+
+		var expected = new TreeSet<Long>();
+		for (long id = 1; id <= 3 * PostingList.BLOCK_SIZE; id++) {
+			list.add(id);
+			expected.add(id);
+		}
+		for (long id = 1; id <= 3 * PostingList.BLOCK_SIZE; id++) {
+			list.remove(id);
+			expected.remove(id);
+		}
+		verify(list, expected, new Random(0), 0);
+
+		list.add(7);
+		expected.add(7L);
+		verify(list, expected, new Random(0), 0);
+	}
+
+	private static long existing(TreeSet<Long> ids, Random random) {
+		long probe = ids.first() + (long) (random.nextDouble() * (ids.last() - ids.first() + 1));
+		return ids.floor(probe);
+	}
+
+	private static void verify(PostingList list, TreeSet<Long> expected, Random random, long seed) {
+		String context = "seed " + seed;
+
+		assertEquals(expected.size(), list.size(), context);
+		assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray(), context);
+
+		// Leitura decrescente completa
+		assertEquals(new ArrayList<>(expected.descendingSet()), drain(list.reader()), context);
+
+		// seekBefore: ids existentes, entre dois ids, antes do primeiro e depois do último
+		long last = expected.isEmpty() ? 1 : expected.last();
+		for (int i = 0; i < 20; i++) {
+			long before = random.nextInt(10) == 0 ? last + 1 : 1 + (long) (random.nextDouble() * (last + 1));
+			var reader = list.reader();
+			reader.seekBefore(before);
+			assertEquals(new ArrayList<>(expected.headSet(before, false).descendingSet()), drain(reader),
+					context + ", before " + before);
+		}
+
+		// contains: presentes e ausentes, com o mesmo leitor (reaproveita o bloco decodificado)
+		var reader = list.reader();
+		for (int i = 0; i < 200; i++) {
+			long id = 1 + (long) (random.nextDouble() * (last + 1));
+			assertEquals(expected.contains(id), reader.contains(id), context + ", id " + id);
+		}
+		for (long id : expected) {
+			if (random.nextInt(8) == 0) {
+				assertTrue(reader.contains(id), context + ", id " + id);
+			}
+		}
+	}
+
+	private static List<Long> drain(PostingList.Reader reader) {
+		var ids = new ArrayList<Long>();
+		long id;
+		while ((id = reader.next()) != -1) {
+			ids.add(id);
+		}
+		return ids;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.loop.springsecurity.service;
+
+import com.loop.springsecurity.entities.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingQuotaTests {
+
+	private static final int CHECKS = 5_000_000;
+
+	private final PostingQuota quota = new PostingQuota(30, 10, 600, 100, 1000, 600_000, new SimpleMeterRegistry());
+
+	// Burst consumido: o próximo tweet é recusado com o tempo até a próxima ficha
+	@Test
+	void rejectsAfterBurst() {
+		var user = UUID.randomUUID();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, quota.tryAcquire(user, Role.Values.BASIC));
+		}
+
+		long retryAfter = quota.tryAcquire(user, Role.Values.BASIC);
+		assertTrue(retryAfter > 0 && retryAfter <= 2000, "retry after " + retryAfter + " ms");
+
+		// Outro usuário não é afetado
+		assertEquals(0, quota.tryAcquire(UUID.randomUUID(), Role.Values.BASIC));
+	}
+
+	// Verificações com o balde já criado não alocam
+	@Test
+	void checksDoNotAllocate() {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		var user = UUID.randomUUID();
+
+		// Aquecimento (JIT)
+		for (int i = 0; i < CHECKS; i++) {
+			quota.tryAcquire(user, Role.Values.ADMIN);
+		}
+
+		long thread = Thread.currentThread().getId();
+		long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CHECKS; i++) {
+			quota.tryAcquire(user, Role.Values.ADMIN);
+		}
+		long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+		assertTrue(allocated < CHECKS / 100, "alocou " + allocated + " bytes");
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.loop.springsecurity.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrendingTagsTests {
+
+	private static final long NOW = 1_700_000_000_000L;
+
+	private final TrendingTags trends = new TrendingTags();
+
+	// As tags mais frequentes aparecem no top-K em ordem, mesmo com milhares de tags raras
+	@Test
+	void topKAmongManyRareTags() {
+		var random = new Random(7);
+		for (int i = 0; i < 20_000; i++) {
+			trends.record("ruído #rara" + random.nextInt(10_000), NOW);
+		}
+		for (int i = 0; i < 500; i++) {
+			trends.record("#java", NOW);
+		}
+		for (int i = 0; i < 300; i++) {
+			trends.record("#spring @joao", NOW);
+		}
+		for (int i = 0; i < 200; i++) {
+			trends.record("#kafka", NOW);
+		}
+
+		var top = trends.top(TrendingTags.Type.HASHTAG, TrendingTags.Window.FIVE_MINUTES, 3, NOW);
+		assertEquals(List.of("java", "spring", "kafka"), top.stream().map(TrendingTags.Trend::tag).toList());
+
+		// Estimativa nunca abaixo da contagem real, e próxima dela
+		assertTrue(top.get(0).count() >= 500 && top.get(0).count() < 500 + 50, "java: " + top.get(0).count());
+
+		var mentions = trends.top(TrendingTags.Type.MENTION, TrendingTags.Window.FIVE_MINUTES, 3, NOW);
+		assertEquals(List.of(new TrendingTags.Trend("joao", 300)), mentions);
+	}
+
+	// Tags de buckets que saíram da janela não contam mais
+	@Test
+	void expiresOldBuckets() {
+		trends.record("#antiga", NOW);
+		trends.record("#nova", NOW + 5 * 60_000);
+
+		var top = trends.top(TrendingTags.Type.HASHTAG, TrendingTags.Window.FIVE_MINUTES, 10, NOW + 5 * 60_000);
+		assertEquals(List.of(new TrendingTags.Trend("nova", 1)), top);
+	}
+
+}
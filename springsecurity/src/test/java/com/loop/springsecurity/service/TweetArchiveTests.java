@@ -0,0 +1,150 @@
+package com.loop.springsecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Banco H2 em memória (modo MySQL) com a tabela de tweets arquivados apagados
+class TweetArchiveTests {
+
+	private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+	@TempDir
+	Path directory;
+
+	private final Random random = new Random(11);
+	private final List<UUID> authors = ArchiveSegmentTests.authors(12, random);
+
+	// Todos os tweets arquivados, do mais antigo para o mais novo
+	private final List<ArchivedTweet> all = new ArrayList<>();
+	private final Set<Long> deleted = new HashSet<>();
+
+	private JdbcTemplate jdbcTemplate;
+	private TweetArchive archive;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		var dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:archive-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table tb_archive_tombstones (tweet_id bigint primary key, created_at timestamp(3))");
+
+		archive = archive(true);
+
+		// Dois segmentos: 300 (2 blocos) e 600 tweets (3 blocos)
+		append(300);
+		append(600);
+
+		// Apagados espalhados: nos limites dos blocos e dos segmentos, e um bloco quase inteiro
+		var ids = new ArrayList<Long>(List.of(1L, 256L, 257L, 300L, 301L, 556L, 557L, 900L));
+		for (long id = 560; id < 800; id++) {
+			ids.add(id);
+		}
+		for (int i = 0; i < 30; i++) {
+			ids.add(1L + random.nextInt(all.size()));
+		}
+		archive.tombstone(ids);
+		deleted.addAll(ids);
+	}
+
+	// Páginas do feed a partir de vários offsets: iguais às da lista completa sem os apagados
+	@Test
+	void newestAcrossSegmentsAndBlocks() {
+		var live = newestFirst();
+		assertEquals(live.size(), archive.size());
+
+		for (long offset : new long[]{0, 1, 43, 44, 100, 255, 256, 290, 299, 300, 301, 511, 512, 600, live.size() - 1, live.size()}) {
+			for (int limit : new int[]{1, 20, 300}) {
+				int from = (int) Math.min(offset, live.size());
+				var expected = live.subList(from, Math.min(live.size(), from + limit));
+				assertEquals(ids(expected), ids(archive.newest(offset, limit)), "offset " + offset + ", limit " + limit);
+			}
+		}
+	}
+
+	// Timeline de um usuário: só os tweets dele, anteriores ao cursor, sem os apagados
+	@Test
+	void userTweetsBeforeCursor() {
+		var live = newestFirst();
+
+		for (var author : authors) {
+			var mine = live.stream().filter(tweet -> tweet.userId().equals(author)).toList();
+			assertEquals(ids(mine.subList(0, Math.min(10, mine.size()))),
+					ids(archive.userTweetsBefore(author, null, null, 10)));
+
+			// Cursor no meio da timeline
+			var cursor = mine.get(mine.size() / 2);
+			var expected = mine.stream()
+					.filter(tweet -> ArchivedTweet.compareKey(tweet.creationTimestamp(), tweet.tweetId(),
+							cursor.creationTimestamp(), cursor.tweetId()) < 0)
+					.limit(25)
+					.toList();
+			assertEquals(ids(expected), ids(archive.userTweetsBefore(
+					author, cursor.creationTimestamp(), cursor.tweetId(), 25)));
+		}
+
+		// Autor sem tweets no arquivo
+		assertTrue(archive.userTweetsBefore(UUID.randomUUID(), null, null, 10).isEmpty());
+	}
+
+	// Outra instância abre os mesmos segmentos e lê os apagados do banco
+	@Test
+	void readerInstanceRefreshes() {
+		for (var id : deleted) {
+			jdbcTemplate.update("insert into tb_archive_tombstones values (?, current_timestamp(3))", id);
+		}
+
+		var reader = archive(false);
+		reader.refresh();
+
+		assertEquals(archive.size(), reader.size());
+		assertEquals(ids(archive.newest(250, 100)), ids(reader.newest(250, 100)));
+		assertEquals(archive.lastKey(), reader.lastKey());
+	}
+
+	private TweetArchive archive(boolean writer) {
+		var outbox = new InvalidationOutbox(jdbcTemplate, new FeedVersion(), "test",
+				500, 10_000, 5_000, Duration.ofHours(1), new SimpleMeterRegistry());
+		return new TweetArchive(directory.toString(), writer, jdbcTemplate, outbox);
+	}
+
+	private void append(int count) {
+		var from = all.isEmpty() ? START : all.get(all.size() - 1).creationTimestamp().plusSeconds(1);
+		var tweets = ArchiveSegmentTests.tweets(all.size() + 1, from, count, authors, random);
+		archive.append(tweets);
+		all.addAll(tweets);
+	}
+
+	private List<ArchivedTweet> newestFirst() {
+		return all.stream()
+				.filter(tweet -> !deleted.contains(tweet.tweetId()))
+				.sorted(Comparator.comparing(ArchivedTweet::creationTimestamp)
+						.thenComparingLong(ArchivedTweet::tweetId)
+						.reversed())
+				.toList();
+	}
+
+	private static List<Long> ids(List<ArchivedTweet> tweets) {
+		return tweets.stream().map(ArchivedTweet::tweetId).toList();
+	}
+
+}
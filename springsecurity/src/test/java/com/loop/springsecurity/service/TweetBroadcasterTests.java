@@ -0,0 +1,224 @@
+package com.loop.springsecurity.service;
+
+import com.loop.springsecurity.controller.dto.FeedItemDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TweetBroadcasterTests {
+
+	// Conexões ociosas abertas na medição de memória
+	private static final int CONNECTIONS = 10_000;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	// Handlers registrados no outbox, chamados diretamente pelos testes
+	private final Map<String, Consumer<String>> handlers = new HashMap<>();
+
+	private TweetBroadcaster broadcaster;
+
+	@AfterEach
+	void tearDown() {
+		broadcaster.shutdown();
+	}
+
+	// Cada assinante recebe os tweets na ordem em que foram publicados
+	@Test
+	void deliversInPublishOrder() throws InterruptedException {
+		broadcaster = broadcaster(256);
+		var first = new RecordingEmitter();
+		var second = new RecordingEmitter();
+		broadcaster.subscribe(null, first);
+		broadcaster.subscribe(null, second);
+
+		for (long id = 1; id <= 200; id++) {
+			broadcaster.publish(item(id));
+		}
+
+		assertEquals(ids(1, 200), first.take(200));
+		assertEquals(ids(1, 200), second.take(200));
+	}
+
+	// Um assinante que não acompanha (buffer cheio) é desconectado sem afetar os outros
+	@Test
+	void dropsSlowSubscriber() throws InterruptedException {
+		broadcaster = broadcaster(2);
+		var slow = new RecordingEmitter();
+		var fast = new RecordingEmitter();
+		slow.block();
+		broadcaster.subscribe(null, slow);
+		broadcaster.subscribe(null, fast);
+
+		// O primeiro envio fica preso na conexão do assinante lento
+		broadcaster.publish(item(1));
+		assertTrue(slow.sendStarted.await(5, TimeUnit.SECONDS));
+		assertEquals(ids(1, 1), fast.take(1));
+
+		// Mais dois cabem no buffer; o quarto estoura
+		// (cada publicação espera o assinante rápido, cujo buffer também tem 2 posições)
+		for (long id = 2; id <= 4; id++) {
+			broadcaster.publish(item(id));
+			assertEquals(ids(id, id), fast.take(1));
+		}
+
+		assertTrue(slow.completed.await(5, TimeUnit.SECONDS));
+		assertEquals(1.0, meterRegistry.counter("feed.stream.dropped").count());
+
+		slow.release();
+	}
+
+	// Memória de uma conexão ociosa: bytes alocados por assinatura (emitter + assinante),
+	// um limite superior do que cada conexão mantém no heap
+	@Test
+	void idleSubscribersAreCheap() {
+		broadcaster = broadcaster(32);
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		// Aquecimento (JIT)
+		for (int i = 0; i < CONNECTIONS; i++) {
+			broadcaster.subscribe(null).complete();
+		}
+
+		var emitters = new ArrayList<SseEmitter>(CONNECTIONS);
+		long thread = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < CONNECTIONS; i++) {
+			emitters.add(broadcaster.subscribe(null));
+		}
+		long bytesPerConnection = (threads.getThreadAllocatedBytes(thread) - before) / CONNECTIONS;
+
+		assertEquals(CONNECTIONS, emitters.size());
+		assertTrue(bytesPerConnection < 1024, "assinante ocioso ocupa " + bytesPerConnection + " bytes");
+	}
+
+	// Retomando com Last-Event-ID, o cliente recebe apenas os tweets posteriores
+	// (da memória, sem ir ao banco) e depois os novos, sem duplicar
+	@Test
+	void replaysFromLastId() throws InterruptedException {
+		broadcaster = broadcaster(256);
+		for (long id = 1; id <= 5; id++) {
+			broadcaster.publish(item(id));
+		}
+
+		var emitter = new RecordingEmitter();
+		broadcaster.subscribe(2L, emitter);
+		broadcaster.publish(item(6));
+
+		assertEquals(ids(3, 6), emitter.take(4));
+		assertNull(emitter.received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	// Tweets apagados (aqui ou em outra instância, pelo outbox) não são reenviados
+	@Test
+	void replaySkipsDeletedTweets() throws InterruptedException {
+		broadcaster = broadcaster(256);
+		for (long id = 1; id <= 5; id++) {
+			broadcaster.publish(item(id));
+		}
+
+		broadcaster.forget(3);
+		handlers.get(InvalidationOutbox.TWEETS).accept("4");
+
+		var emitter = new RecordingEmitter();
+		broadcaster.subscribe(1L, emitter);
+
+		assertEquals(List.of(2L, 5L), emitter.take(2));
+		assertNull(emitter.received.poll(100, TimeUnit.MILLISECONDS));
+	}
+
+	// Repositório nulo: os testes só fazem replay a partir da memória
+	private TweetBroadcaster broadcaster(int bufferSize) {
+		var outbox = new InvalidationOutbox(null, new FeedVersion(), "test",
+				500, 10_000, 5_000, Duration.ofHours(1), meterRegistry) {
+			@Override
+			public void register(String cache, Consumer<String> handler) {
+				handlers.put(cache, handler);
+			}
+		};
+		return new TweetBroadcaster(null, outbox, bufferSize, 256, 60_000, 2, meterRegistry);
+	}
+
+	private static FeedItemDto item(long id) {
+		return new FeedItemDto(id, "tweet " + id, "admin", 0);
+	}
+
+	private static List<Long> ids(long from, long to) {
+		var ids = new ArrayList<Long>();
+		for (long id = from; id <= to; id++) {
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	// Emitter sem conexão: guarda os tweets enviados e pode simular um cliente lento
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final BlockingQueue<Long> received = new LinkedBlockingQueue<>();
+		private final CountDownLatch sendStarted = new CountDownLatch(1);
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private volatile CountDownLatch blocked = new CountDownLatch(0);
+
+		private RecordingEmitter() {
+			super(60_000L);
+		}
+
+		void block() {
+			blocked = new CountDownLatch(1);
+		}
+
+		void release() {
+			blocked.countDown();
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) {
+			sendStarted.countDown();
+			try {
+				blocked.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			for (var part : builder.build()) {
+				if (part.getData() instanceof FeedItemDto item) {
+					received.add(item.tweetId());
+				}
+			}
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		List<Long> take(int count) throws InterruptedException {
+			var ids = new ArrayList<Long>();
+			for (int i = 0; i < count; i++) {
+				var id = received.poll(5, TimeUnit.SECONDS);
+				if (id == null) {
+					break;
+				}
+				ids.add(id);
+			}
+			return ids;
+		}
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.loop.springsecurity.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TweetJournalTests {
+
+	@TempDir
+	Path directory;
+
+	private TweetJournal journal;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		journal.close();
+	}
+
+	// O snapshot traz as posting lists como estavam (inclusive added/removed e tail)
+	// e os tombstones; por cima vêm só os eventos dos journals posteriores
+	@Test
+	void restoresIndexSnapshotAndTail() throws Exception {
+		var lists = new TreeMap<String, PostingList>();
+		var random = new Random(0);
+		var big = new PostingList();
+		for (long id = 1; id <= 10 * PostingList.BLOCK_SIZE + 7; id++) {
+			big.add(id * 3);
+		}
+		for (int i = 0; i < 40; i++) {
+			big.add(1 + 3L * random.nextInt(1000));
+			big.remove(3L * (1 + random.nextInt(1000)));
+		}
+		lists.put("ola", big);
+		var small = new PostingList();
+		small.add(5);
+		lists.put("mundo", small);
+
+		var tombstones = new LinkedHashMap<Long, String>();
+		tombstones.put(6L, "ola mundo");
+		tombstones.put(9L, null);
+
+		journal = open();
+		assertEquals(-1, journal.restore(new Recorder()));
+		journal.markReconciled(111);
+		journal.register(writer -> {
+			for (var entry : lists.entrySet()) {
+				writer.term(entry.getKey(), entry.getValue().copy());
+			}
+			for (var entry : tombstones.entrySet()) {
+				writer.deleted(entry.getKey(), entry.getValue());
+			}
+		});
+		journal.snapshot();
+
+		journal.created(20, "novo");
+		journal.deleted(5);
+		journal.purged(6, "ola mundo");
+		journal.close();
+
+		journal = open();
+		var restored = new Recorder();
+		assertEquals(111, journal.restore(restored));
+
+		assertEquals(lists.keySet(), restored.terms.keySet());
+		for (var entry : lists.entrySet()) {
+			assertArrayEquals(entry.getValue().toArray(), restored.terms.get(entry.getKey()).toArray(), entry.getKey());
+			assertEquals(entry.getValue().size(), restored.terms.get(entry.getKey()).size(), entry.getKey());
+		}
+		assertEquals(List.of("deleted 6 ola mundo", "deleted 9 null",
+				"created 20 novo", "deleted 5 null", "purged 6 ola mundo"), restored.events);
+	}
+
+	// Um novo snapshot substitui o anterior: os journals que ele cobre não são reaplicados
+	@Test
+	void snapshotReplacesCoveredJournals() throws Exception {
+		var list = new PostingList();
+		journal = open();
+		journal.markReconciled(111);
+		journal.register(writer -> writer.term("ola", list.copy()));
+		journal.snapshot();
+
+		list.add(1);
+		journal.created(1, "ola");
+		journal.markReconciled(222);
+		journal.snapshot();
+
+		list.add(2);
+		journal.created(2, "ola");
+		journal.close();
+
+		journal = open();
+		var restored = new Recorder();
+		assertEquals(222, journal.restore(restored));
+		assertArrayEquals(new long[] { 1 }, restored.terms.get("ola").toArray());
+		assertEquals(List.of("created 2 ola"), restored.events);
+		assertEquals(1, snapshots().size());
+	}
+
+	// Snapshot ilegível (outro formato, corrompido): descartado, o índice vem do banco
+	@Test
+	void discardsUnreadableSnapshot() throws Exception {
+		journal = open();
+		journal.markReconciled(111);
+		journal.register(writer -> writer.deleted(1, "x"));
+		journal.snapshot();
+		journal.close();
+
+		var snapshot = snapshots().get(0);
+		var bytes = Files.readAllBytes(snapshot);
+		bytes[7] = 2;
+		Files.write(snapshot, bytes);
+
+		journal = open();
+		assertEquals(-1, journal.restore(new Recorder()));
+		assertFalse(Files.exists(snapshot));
+		assertTrue(snapshots().isEmpty());
+	}
+
+	private TweetJournal open() throws Exception {
+		var opened = new TweetJournal(true, directory.toString(), 0, 60_000, 600_000, new SimpleMeterRegistry());
+		opened.open();
+		return opened;
+	}
+
+	private List<Path> snapshots() throws Exception {
+		var result = new ArrayList<Path>();
+		try (var files = Files.newDirectoryStream(directory, "snapshot-*.snap")) {
+			files.forEach(result::add);
+		}
+		return result;
+	}
+
+	private static final class Recorder implements TweetJournal.Listener {
+
+		private final Map<String, PostingList> terms = new HashMap<>();
+		private final List<String> events = new ArrayList<>();
+
+		@Override
+		public void term(String token, PostingList list) {
+			terms.put(token, list);
+		}
+
+		@Override
+		public void deleted(long tweetId, String content) {
+			events.add("deleted " + tweetId + " " + content);
+		}
+
+		@Override
+		public void created(long tweetId, String content) {
+			events.add("created " + tweetId + " " + content);
+		}
+
+		@Override
+		public void purged(long tweetId, String content) {
+			events.add("purged " + tweetId + " " + content);
+		}
+	}
+
+}